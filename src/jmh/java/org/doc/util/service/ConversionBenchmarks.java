@@ -0,0 +1,133 @@
+package org.doc.util.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.doc.util.model.ConversionResult;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of each conversion stage on a synthetic collection. Run with the GC
+ * profiler (the {@code jmh} profile's default) to see allocation per operation:
+ * <pre>mvn -Pjmh test-compile exec:exec -Djmh.args="ConversionBenchmarks -p items=2000 -prof gc"</pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ConversionBenchmarks {
+
+    @Param({"100", "2000"})
+    public int items;
+
+    @Param({"2"})
+    public int folderDepth;
+
+    @Param({"12"})
+    public int bodyFields;
+
+    @Param({"2"})
+    public int examples;
+
+    @Param({"42"})
+    public long seed;
+
+    @Param({"true"})
+    public boolean dedup;
+
+    private Tokenizer tokenizer;
+    private PostmanToSwaggerService service;
+    private PathTemplateTrie pathTemplates;
+    private String collection;
+    private JsonNode root;
+    private List<String> bodies;
+    private List<String> urls;
+    private Set<String> paths;
+    private Map<String, Object> spec;
+    private String yaml;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        tokenizer = TestConverters.cl100k();
+        pathTemplates = new PathTemplateTrie(true, 2);
+        service = TestConverters.builder(tokenizer).pathTemplates(pathTemplates).deduplicate(dedup)
+                .parallelThreshold(256).build();
+
+        collection = new SyntheticCollectionGenerator(seed, items, folderDepth, bodyFields, examples).generate();
+        root = new ObjectMapper().readTree(collection);
+        bodies = new ArrayList<>();
+        urls = new ArrayList<>();
+        collectSamples(root.path("item"));
+        paths = new LinkedHashSet<>();
+        for (String url : urls) paths.add(service.normalizePath(url));
+
+        spec = service.buildSpec(root).openApi();
+        yaml = service.toYaml(spec);
+        tokenizer.countTokens(yaml);
+    }
+
+    /** End to end: parse, build, dedup, serialize, pretty-print and count both documents. */
+    @Benchmark
+    public ConversionResult convert() throws Exception {
+        return service.convert(collection);
+    }
+
+    /** Operation building and schema dedup on an already parsed collection. */
+    @Benchmark
+    public Object buildSpec() {
+        return service.buildSpec(root);
+    }
+
+    /** Parsing example bodies and inferring their schemas. */
+    @Benchmark
+    public void inferSchemas(Blackhole bh) {
+        for (String body : bodies) bh.consume(service.buildSchemaFromJson(body));
+    }
+
+    @Benchmark
+    public void normalizePaths(Blackhole bh) {
+        for (String url : urls) bh.consume(service.normalizePath(url));
+    }
+
+    @Benchmark
+    public Map<String, String> inferPathTemplates() {
+        return pathTemplates.infer(paths);
+    }
+
+    @Benchmark
+    public String serializeYaml() {
+        return service.toYaml(spec);
+    }
+
+    @Benchmark
+    public int countTokens() {
+        return tokenizer.countTokens(yaml);
+    }
+
+    private void collectSamples(JsonNode items) {
+        for (JsonNode item : items) {
+            if (item.has("item")) {
+                collectSamples(item.path("item"));
+                continue;
+            }
+            JsonNode request = item.path("request");
+            JsonNode url = request.path("url");
+            urls.add(url.isTextual() ? url.asText() : url.path("raw").asText());
+            String raw = request.path("body").path("raw").asText(null);
+            if (raw != null) bodies.add(raw);
+            for (JsonNode response : item.path("response")) {
+                bodies.add(response.path("body").asText());
+            }
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package org.doc.util.loadtest;
+
+import org.doc.util.UtilApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.server.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One load-test run in one thread mode, started by {@link LoadTest} in a JVM of its
+ * own: boots the application on a random port, warms it up, then keeps
+ * {@code clients} requests in flight for the measured duration and summarizes
+ * latency, throughput and heap.
+ * <p>
+ * Clients are closed-loop (each sends its next request when the last one is
+ * answered) and run on platform threads, so in virtual mode they do not compete
+ * with the server's virtual threads for carrier threads. The application shares
+ * the JVM, so the heap figures include the pre-generated workload, which is the
+ * same in every mode.
+ */
+final class LoadRun {
+
+    private static final long HEAP_SAMPLE_MILLIS = 10;
+
+    /** Latency of one request label, or of all requests ({@code all}). */
+    record Latency(String label, int requests, int errors, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+    }
+
+    record Summary(String mode, int clients, double seconds, int requests, int errors, double errorPct,
+                   double throughput, double p50Ms, double p95Ms, double p99Ms, double maxMs, long heapPeakMb,
+                   List<Latency> labels) {
+    }
+
+    private LoadRun() {
+    }
+
+    /** {@code <mode> <summary-file> <LoadTest options>...}; prints the run and writes its summary as JSON. */
+    public static void main(String[] args) throws Exception {
+        // A restart class loader would boot a second copy of the application
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        String mode = args[0];
+        Path summaryFile = Path.of(args[1]);
+        LoadTest.Options options = LoadTest.Options.parse(Arrays.copyOfRange(args, 2, args.length));
+        Workload workload = new Workload(options.mix, options.perSize, options.webPercent, options.seed);
+
+        Summary summary = run(mode, mode.equals("virtual"), options, workload);
+        print(summary);
+        LoadTest.JSON.writeValue(summaryFile.toFile(), summary);
+        System.exit(0);
+    }
+
+    /** @param virtualThreads serve requests on virtual threads ({@code spring.threads.virtual.enabled}) */
+    static Summary run(String mode, boolean virtualThreads, LoadTest.Options options, Workload workload)
+            throws Exception {
+        Map<String, Object> app = new LinkedHashMap<>(options.properties);
+        app.put("server.port", "0");
+        app.put("spring.threads.virtual.enabled", String.valueOf(virtualThreads));
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(UtilApplication.class)
+                .properties(app)
+                .run();
+             HttpClient http = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI base = URI.create("http://localhost:" + port);
+
+            drive(http, base, workload, options.clients, options.warmup, null);
+
+            System.gc();
+            HeapSampler heap = new HeapSampler();
+            Thread sampler = Thread.ofPlatform().daemon().name("heap-sampler").start(heap);
+            long start = System.nanoTime();
+            List<Recorder> recorders = new ArrayList<>();
+            drive(http, base, workload, options.clients, options.duration, recorders);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            sampler.interrupt();
+            sampler.join();
+            return summarize(mode, options.clients, seconds, recorders, heap.peak);
+        }
+    }
+
+    private static void print(Summary run) {
+        System.out.printf("  %-10s %8s %7s %9s %9s %9s %9s%n", "", "requests", "errors", "p50 ms", "p95 ms",
+                "p99 ms", "max ms");
+        for (Latency l : run.labels()) {
+            System.out.printf("  %-10s %8d %7d %9.1f %9.1f %9.1f %9.1f%n", l.label(), l.requests(), l.errors(),
+                    l.p50Ms(), l.p95Ms(), l.p99Ms(), l.maxMs());
+        }
+        System.out.printf("  throughput %.1f req/s, heap high-water %d MB%n", run.throughput(), run.heapPeakMb());
+    }
+
+    // ── Clients ───────────────────────────────────────────────────────────────
+
+    /** Runs the clients for {@code duration}; requests are recorded only when {@code recorders} is given. */
+    private static void drive(HttpClient http, URI base, Workload workload, int clients, Duration duration,
+                              List<Recorder> recorders) throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        ExecutorService pool = Executors.newFixedThreadPool(clients, Thread.ofPlatform().name("load-client-", 0)
+                .factory());
+        try {
+            List<Future<Recorder>> futures = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                Random random = new Random(c);
+                futures.add(pool.submit(() -> {
+                    Recorder recorder = new Recorder();
+                    while (System.nanoTime() < deadline) {
+                        Workload.Request request = workload.next(base, random);
+                        long sent = System.nanoTime();
+                        int status;
+                        try {
+                            status = http.send(request.http(), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (IOException e) {
+                            status = -1;
+                        }
+                        recorder.record(request.label(), System.nanoTime() - sent, status);
+                    }
+                    return recorder;
+                }));
+            }
+            for (Future<Recorder> future : futures) {
+                Recorder recorder = future.get();
+                if (recorders != null) recorders.add(recorder);
+            }
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /** One client's latencies by label; a client is single-threaded, so nothing is shared. */
+    private static final class Recorder {
+
+        private final Map<String, long[]> nanos = new HashMap<>();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Integer> errors = new HashMap<>();
+
+        void record(String label, long elapsed, int status) {
+            int n = counts.getOrDefault(label, 0);
+            long[] values = nanos.get(label);
+            if (values == null || values.length == n) {
+                values = values == null ? new long[256] : Arrays.copyOf(values, n * 2);
+                nanos.put(label, values);
+            }
+            values[n] = elapsed;
+            counts.put(label, n + 1);
+            if (status < 200 || status >= 300) errors.merge(label, 1, Integer::sum);
+        }
+    }
+
+    // ── Heap ──────────────────────────────────────────────────────────────────
+
+    /** Samples used heap until interrupted and keeps the highest value. */
+    private static final class HeapSampler implements Runnable {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private volatile long peak;
+
+        @Override
+        public void run() {
+            while (true) {
+                peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                try {
+                    Thread.sleep(HEAP_SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    peak = Math.max(peak, memory.getHeapMemoryUsage().getUsed());
+                    return;
+                }
+            }
+        }
+    }
+
+    // ── Summary ───────────────────────────────────────────────────────────────
+
+    private static Summary summarize(String mode, int clients, double seconds, List<Recorder> recorders,
+                                     long heapPeak) {
+        Map<String, long[]> byLabel = new TreeMap<>();
+        Map<String, Integer> errorsByLabel = new HashMap<>();
+        for (Recorder recorder : recorders) {
+            recorder.counts.forEach((label, n) -> byLabel.merge(label, Arrays.copyOf(recorder.nanos.get(label), n),
+                    LoadRun::concat));
+            recorder.errors.forEach((label, n) -> errorsByLabel.merge(label, n, Integer::sum));
+        }
+
+        List<Latency> labels = new ArrayList<>();
+        long[] all = new long[0];
+        int errors = 0;
+        for (Map.Entry<String, long[]> e : byLabel.entrySet()) {
+            int labelErrors = errorsByLabel.getOrDefault(e.getKey(), 0);
+            labels.add(latency(e.getKey(), e.getValue(), labelErrors));
+            all = concat(all, e.getValue());
+            errors += labelErrors;
+        }
+        Latency total = latency("all", all, errors);
+        labels.add(total);
+
+        return new Summary(mode, clients, round(seconds), all.length, errors,
+                round(all.length == 0 ? 0 : 100.0 * errors / all.length),
+                round((all.length - errors) / seconds),
+                total.p50Ms(), total.p95Ms(), total.p99Ms(), total.maxMs(), heapPeak >> 20, labels);
+    }
+
+    private static Latency latency(String label, long[] nanos, int errors) {
+        Arrays.sort(nanos);
+        return new Latency(label, nanos.length, errors, percentile(nanos, 50), percentile(nanos, 95),
+                percentile(nanos, 99), nanos.length == 0 ? 0 : round(nanos[nanos.length - 1] / 1e6));
+    }
+
+    /** Nearest-rank percentile of sorted nanoseconds, in milliseconds. */
+    static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+        return round(sorted[Math.max(0, rank - 1)] / 1e6);
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] joined = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, joined, a.length, b.length);
+        return joined;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
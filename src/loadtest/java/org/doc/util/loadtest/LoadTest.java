@@ -0,0 +1,213 @@
+package org.doc.util.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test for the HTTP endpoints and the gate that fails the build when it regresses.
+ * <p>
+ * Each thread mode ({@code platform}, {@code virtual}) runs in its own JVM, which boots
+ * the application, drives {@code POST /api/convert} and {@code POST /convert} with
+ * concurrent clients sending synthetic collections of mixed sizes, and records
+ * p50/p95/p99 latency, throughput and the heap high-water mark. The results go to
+ * stdout and a JSON report, with the virtual-thread mode compared to the platform
+ * one; the run then exits 1 if any mode crossed a limit in the thresholds file.
+ * <pre>mvn -Ploadtest verify -Dload.args="--clients=32 --duration=60s"</pre>
+ */
+public final class LoadTest {
+
+    static final String USAGE = """
+            Usage: LoadTest [options]
+              --clients=N            concurrent clients (default: 16)
+              --warmup=DURATION      unmeasured warm-up per mode (default: 10s)
+              --duration=DURATION    measured time per mode (default: 30s)
+              --modes=LIST           thread modes to run: platform, virtual (default: both)
+              --mix=LIST             collection sizes as items:weight (default: 20:70,200:25,1000:5)
+              --per-size=N           distinct collections per size (default: 8)
+              --web-percent=N        share of requests uploaded through the web form (default: 20)
+              --seed=N               generator seed (default: 42)
+              --thresholds=FILE      limits to check (default: src/loadtest/thresholds.properties)
+              --report=FILE          JSON report (default: target/loadtest/load-report.json)
+              --some.property=X      any application property, e.g. --server.tomcat.threads.max=50
+            """;
+
+    static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /** The application's conversion cache would answer repeated collections; measure conversions instead. */
+    static final Map<String, String> DEFAULT_PROPERTIES = Map.of(
+            "converter.cache.max-bytes", "0",
+            "spring.main.banner-mode", "off",
+            "logging.level.root", "WARN");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        Thresholds thresholds = Thresholds.load(options.thresholds);
+        Path directory = options.report.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+
+        List<LoadRun.Summary> runs = new ArrayList<>();
+        for (String mode : options.modes) {
+            System.out.printf("%n%s threads: %ds warm-up, %ds measured, %d clients, mix %s%n", mode,
+                    options.warmup.toSeconds(), options.duration.toSeconds(), options.clients, options.mix);
+            Path summary = directory.resolve(mode + ".json");
+            int exit = fork(mode, summary, args);
+            if (exit != 0) {
+                System.err.println("Load test in " + mode + " mode exited with " + exit);
+                System.exit(1);
+            }
+            runs.add(JSON.readValue(summary.toFile(), LoadRun.Summary.class));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("clients", options.clients);
+        report.put("mix", options.mix.stream().map(Workload.Size::toString).toList());
+        report.put("runs", runs);
+        LoadRun.Summary platform = find(runs, "platform");
+        LoadRun.Summary virtual = find(runs, "virtual");
+        if (platform != null && virtual != null) {
+            Map<String, Double> comparison = compare(platform, virtual);
+            report.put("virtualVsPlatformPct", comparison);
+            System.out.printf("%nVirtual vs platform threads (%% change): %s%n", comparison);
+        }
+        JSON.writeValue(options.report.toFile(), report);
+        System.out.println("Report: " + options.report);
+
+        boolean failed = false;
+        for (LoadRun.Summary run : runs) {
+            for (String violation : thresholds.violations(run)) {
+                System.err.println("FAILED " + run.mode() + ": " + violation);
+                failed = true;
+            }
+        }
+        if (failed) {
+            System.err.println("Load test exceeded the limits in " + options.thresholds);
+            System.exit(1);
+        }
+        System.out.println("Load test within the limits in " + options.thresholds);
+    }
+
+    /**
+     * Runs one mode in a fresh JVM with this JVM's options and class path, so neither
+     * mode inherits the other's JIT-compiled code, heap or thread pools.
+     */
+    private static int fork(String mode, Path summary, String[] args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadRun.class.getName());
+        command.add(mode);
+        command.add(summary.toString());
+        command.addAll(List.of(args));
+        return new ProcessBuilder(command).inheritIO().start().waitFor();
+    }
+
+    /** Change of each figure in virtual mode relative to platform mode, in percent. */
+    private static Map<String, Double> compare(LoadRun.Summary platform, LoadRun.Summary virtual) {
+        Map<String, Double> change = new LinkedHashMap<>();
+        change.put("throughput", pct(platform.throughput(), virtual.throughput()));
+        change.put("p50Ms", pct(platform.p50Ms(), virtual.p50Ms()));
+        change.put("p95Ms", pct(platform.p95Ms(), virtual.p95Ms()));
+        change.put("p99Ms", pct(platform.p99Ms(), virtual.p99Ms()));
+        change.put("heapPeakMb", pct(platform.heapPeakMb(), virtual.heapPeakMb()));
+        return change;
+    }
+
+    private static double pct(double base, double value) {
+        return base == 0 ? 0 : Math.round((value - base) * 1000 / base) / 10.0;
+    }
+
+    private static LoadRun.Summary find(List<LoadRun.Summary> runs, String mode) {
+        return runs.stream().filter(r -> r.mode().equals(mode)).findFirst().orElse(null);
+    }
+
+    // ── Options ───────────────────────────────────────────────────────────────
+
+    static final class Options {
+
+        int clients = 16;
+        Duration warmup = Duration.ofSeconds(10);
+        Duration duration = Duration.ofSeconds(30);
+        List<String> modes = List.of("platform", "virtual");
+        List<Workload.Size> mix = List.of(new Workload.Size(20, 70), new Workload.Size(200, 25),
+                new Workload.Size(1000, 5));
+        int perSize = 8;
+        int webPercent = 20;
+        long seed = 42;
+        Path thresholds = Path.of("src/loadtest/thresholds.properties");
+        Path report = Path.of("target/loadtest/load-report.json");
+        final Map<String, String> properties = new LinkedHashMap<>(DEFAULT_PROPERTIES);
+
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Unexpected argument " + arg);
+                String key = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                try {
+                    switch (key) {
+                        case "clients" -> options.clients = positive(key, Integer.parseInt(value));
+                        case "warmup" -> options.warmup = DurationStyle.detectAndParse(value);
+                        case "duration" -> options.duration = DurationStyle.detectAndParse(value);
+                        case "modes" -> options.modes = modes(value);
+                        case "mix" -> options.mix = Arrays.stream(value.split(",")).map(Workload.Size::parse).toList();
+                        case "per-size" -> options.perSize = positive(key, Integer.parseInt(value));
+                        case "web-percent" -> options.webPercent = Integer.parseInt(value);
+                        case "seed" -> options.seed = Long.parseLong(value);
+                        case "thresholds" -> options.thresholds = Path.of(value);
+                        case "report" -> options.report = Path.of(value);
+                        default -> {
+                            if (!key.contains(".")) throw new IllegalArgumentException("Unknown option --" + key);
+                            options.properties.put(key, value);
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid value for --" + key + ": " + value);
+                }
+            }
+            if (!Files.isRegularFile(options.thresholds)) {
+                throw new IllegalArgumentException("Thresholds file not found: " + options.thresholds);
+            }
+            return options;
+        }
+
+        private static List<String> modes(String value) {
+            List<String> modes = Arrays.stream(value.split(",")).map(String::trim).toList();
+            for (String mode : modes) {
+                if (!mode.equals("platform") && !mode.equals("virtual")) {
+                    throw new IllegalArgumentException("Unknown thread mode " + mode);
+                }
+            }
+            return modes;
+        }
+
+        private static int positive(String key, int value) {
+            if (value < 1) throw new IllegalArgumentException("--" + key + " must be at least 1");
+            return value;
+        }
+    }
+}
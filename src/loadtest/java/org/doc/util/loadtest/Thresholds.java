@@ -0,0 +1,60 @@
+package org.doc.util.loadtest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Limits a load-test run must stay within, read from a properties file kept in
+ * the repository. A key such as {@code p99-ms} applies to every thread mode;
+ * {@code virtual.p99-ms} overrides it for one mode. Missing keys are not checked.
+ */
+final class Thresholds {
+
+    private final Properties limits;
+
+    private Thresholds(Properties limits) {
+        this.limits = limits;
+    }
+
+    static Thresholds load(Path file) throws IOException {
+        Properties limits = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            limits.load(reader);
+        }
+        return new Thresholds(limits);
+    }
+
+    /** Every limit the run crossed, e.g. {@code "p99-ms 812.4 > 600"}; empty if it passed. */
+    List<String> violations(LoadRun.Summary run) {
+        List<String> violations = new ArrayList<>();
+        atMost(violations, run, "p50-ms", run.p50Ms());
+        atMost(violations, run, "p95-ms", run.p95Ms());
+        atMost(violations, run, "p99-ms", run.p99Ms());
+        atMost(violations, run, "max-heap-mb", run.heapPeakMb());
+        atMost(violations, run, "max-error-pct", run.errorPct());
+        Double minThroughput = limit(run.mode(), "min-throughput");
+        if (minThroughput != null && run.throughput() < minThroughput) {
+            violations.add("min-throughput " + run.throughput() + " < " + format(minThroughput));
+        }
+        return violations;
+    }
+
+    private void atMost(List<String> violations, LoadRun.Summary run, String key, double actual) {
+        Double max = limit(run.mode(), key);
+        if (max != null && actual > max) violations.add(key + " " + actual + " > " + format(max));
+    }
+
+    private Double limit(String mode, String key) {
+        String value = limits.getProperty(mode + "." + key, limits.getProperty(key));
+        return value == null || value.isBlank() ? null : Double.valueOf(value.trim());
+    }
+
+    private static String format(double value) {
+        return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+}
@@ -0,0 +1,116 @@
+package org.doc.util.loadtest;
+
+import org.doc.util.service.SyntheticCollectionGenerator;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The requests a load test sends: synthetic collections of a few sizes, each
+ * drawn with its weight, posted either to the API ({@code POST /api/convert})
+ * or uploaded through the web form ({@code POST /convert}). Bodies are generated
+ * and encoded once up front so clients spend their time waiting on the server.
+ */
+final class Workload {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(2);
+    private static final String BOUNDARY = "load-test-boundary";
+
+    /** One size class, e.g. {@code 200:25} = collections of 200 requests, weight 25. */
+    record Size(int items, int weight) {
+
+        static Size parse(String spec) {
+            String[] parts = spec.trim().split(":");
+            if (parts.length != 2) throw new IllegalArgumentException("Expected items:weight, got " + spec);
+            return new Size(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        }
+
+        @Override
+        public String toString() {
+            return items + ":" + weight;
+        }
+    }
+
+    /** A request ready to send, and the label its latency is recorded under, e.g. {@code api/200}. */
+    record Request(String label, HttpRequest http) {
+    }
+
+    /** A collection as the API takes it and, when the web form is used, as a multipart upload. */
+    private record Body(byte[] json, byte[] form) {
+    }
+
+    private final List<Size> sizes;
+    private final List<List<Body>> bodies = new ArrayList<>();
+    private final int totalWeight;
+    private final int webPercent;
+
+    /**
+     * @param perSize    distinct collections generated for each size
+     * @param webPercent share of requests sent to the web form instead of the API
+     */
+    Workload(List<Size> sizes, int perSize, int webPercent, long seed) {
+        this.sizes = List.copyOf(sizes);
+        this.webPercent = webPercent;
+        int weight = 0;
+        for (Size size : sizes) {
+            List<Body> collections = new ArrayList<>(perSize);
+            for (int i = 0; i < perSize; i++) {
+                String json = new SyntheticCollectionGenerator(seed + i, size.items(), 2, 12, 2).generate();
+                byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+                collections.add(new Body(bytes, webPercent > 0 ? upload(bytes) : null));
+            }
+            bodies.add(collections);
+            weight += size.weight();
+        }
+        if (weight <= 0) throw new IllegalArgumentException("The workload mix needs a positive weight");
+        this.totalWeight = weight;
+    }
+
+    long bytes() {
+        return bodies.stream().flatMap(List::stream)
+                .mapToLong(b -> b.json().length + (b.form() != null ? b.form().length : 0))
+                .sum();
+    }
+
+    /** Picks the next request for a client; each client has its own {@code random}. */
+    Request next(URI base, Random random) {
+        int pick = random.nextInt(totalWeight);
+        int s = 0;
+        while (pick >= sizes.get(s).weight()) pick -= sizes.get(s++).weight();
+        List<Body> collections = bodies.get(s);
+        Body body = collections.get(random.nextInt(collections.size()));
+        int items = sizes.get(s).items();
+
+        if (random.nextInt(100) < webPercent) {
+            return new Request("web/" + items, HttpRequest.newBuilder(base.resolve("/convert"))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.form()))
+                    .build());
+        }
+        return new Request("api/" + items, HttpRequest.newBuilder(base.resolve("/api/convert"))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/yaml")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.json()))
+                .build());
+    }
+
+    /** The collection as the form's file field; form fields are capped far below the upload limit. */
+    private static byte[] upload(byte[] collection) {
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"collection.json\"\r\n"
+                + "Content-Type: application/json\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] tail = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] body = new byte[head.length + collection.length + tail.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(collection, 0, body, head.length, collection.length);
+        System.arraycopy(tail, 0, body, head.length + collection.length, tail.length);
+        return body;
+    }
+}
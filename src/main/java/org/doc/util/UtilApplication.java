@@ -1,12 +1,19 @@
 package org.doc.util;
 
+import org.doc.util.cli.CliApplication;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 @SpringBootApplication
 public class UtilApplication {
 
+    /** {@code convert ...} runs the headless converter instead of the web application. */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("convert")) {
+            System.exit(CliApplication.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
         SpringApplication.run(UtilApplication.class, args);
     }
 
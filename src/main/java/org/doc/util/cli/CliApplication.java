@@ -0,0 +1,74 @@
+package org.doc.util.cli;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.doc.util.config.TokenizerConfig;
+import org.doc.util.service.PathTemplateTrie;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.SchemaDeduplicator;
+import org.doc.util.service.SchemaMerger;
+import org.doc.util.service.TokenBudgetTrimmer;
+import org.doc.util.service.cache.ConversionCache;
+import org.doc.util.service.format.EndpointDslFormat;
+import org.doc.util.service.format.FlowYamlFormat;
+import org.doc.util.service.format.MinifiedJsonFormat;
+import org.doc.util.service.format.OpenApiYamlFormat;
+import org.doc.util.service.format.OutputFormats;
+import org.doc.util.service.metrics.ConversionMetrics;
+import org.doc.util.service.spec.SpecInterner;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Context of the headless converter ({@code java -jar util.jar convert ...}): only the
+ * conversion pipeline, listed explicitly instead of scanned, with no auto-configuration,
+ * web server or templates, so it starts in a fraction of the web application's time.
+ * Deliberately not a {@code @Configuration}, so the web application's component scan
+ * leaves it out. {@code mvn -Pcli-aot package} pre-computes this context with Spring
+ * AOT; see the README for the class data sharing archive.
+ */
+@Import({TokenizerConfig.class, OpenApiYamlFormat.class, MinifiedJsonFormat.class, FlowYamlFormat.class,
+        EndpointDslFormat.class, OutputFormats.class, ConversionCache.class, SchemaMerger.class,
+        PathTemplateTrie.class, SpecInterner.class, SchemaDeduplicator.class, TokenBudgetTrimmer.class,
+        ConversionMetrics.class, PostmanToSwaggerService.class, ConverterCli.class})
+public class CliApplication {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Converts the files named in {@code args} and returns the exit code. Arguments of
+     * the form {@code --some.property=value} set application properties, as for the web
+     * app.
+     */
+    public static int run(String[] args) {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CliApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .properties(Map.of("logging.level.root", "warn"))
+                .run(args)) {
+            String[] options = Arrays.stream(args).filter(a -> !isProperty(a)).toArray(String[]::new);
+            return context.getBean(ConverterCli.class).run(options, System.out, System.err);
+        }
+    }
+
+    /** {@code --converter.tokenizer.engine=heuristic}: a dotted name, unlike the converter's own options. */
+    static boolean isProperty(String arg) {
+        int eq = arg.indexOf('=');
+        return arg.startsWith("--") && eq > 2 && arg.lastIndexOf('.', eq) > 2;
+    }
+}
@@ -0,0 +1,280 @@
+package org.doc.util.cli;
+
+import org.doc.util.model.ConversionOptions;
+import org.doc.util.service.IoSupport;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.format.OutputFormat;
+import org.doc.util.service.format.OutputFormats;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Converts collection files and directories from the command line.
+ * <p>
+ * Directories are walked for {@code *.json} files (hidden files and earlier
+ * {@code *.openapi.json} results skipped) and every collection is converted on a fixed
+ * pool of threads. Input never becomes a String: files up to {@value #MAP_THRESHOLD}
+ * bytes are read into a byte array, larger ones are memory-mapped, and both are parsed
+ * by the tree converter straight from the bytes. Each result is written next to its
+ * input as {@code <name>.yaml} ({@code .openapi.json} for JSON), or under {@code --out}
+ * mirroring the directory layout, to a temporary file moved into place once complete.
+ * A summary line per file goes to stdout in input order, failures to stderr; the exit
+ * code is 0 when every file converted, 1 when some failed and 2 for usage errors.
+ */
+public class ConverterCli {
+
+    static final String USAGE = """
+            Usage: convert [options] <file-or-directory>...
+              -o, --out DIR         write results under DIR (default: next to each input)
+              -f, --format ID       output format: %s (default: openapi-yaml)
+              -t, --threads N       collections converted in parallel (default: CPU count)
+                  --max-tokens N    trim each document until its YAML fits N tokens
+              -q, --quiet           print failures only
+              --some.property=X     any application property, e.g. --converter.tokenizer.engine=heuristic
+            """;
+
+    /** Smaller files are read into a byte array; mapping has a fixed cost per file. */
+    static final int MAP_THRESHOLD = 1 << 20;
+
+    private final PostmanToSwaggerService converter;
+    private final OutputFormats formats;
+
+    public ConverterCli(PostmanToSwaggerService converter, OutputFormats formats) {
+        this.converter = converter;
+        this.formats = formats;
+    }
+
+    /** Runs one invocation and returns its exit code. */
+    public int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        List<Job> jobs;
+        try {
+            options = Options.parse(args, formats);
+            jobs = plan(options);
+        } catch (IllegalArgumentException | IOException e) {
+            err.println(e.getMessage());
+            err.printf(USAGE, String.join(", ", formats.all().stream().map(OutputFormat::id).toList()));
+            return 2;
+        }
+        if (jobs.isEmpty()) {
+            err.println("No collections found");
+            return 2;
+        }
+
+        long started = System.nanoTime();
+        int failed = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(options.threads, jobs.size()))) {
+            List<Future<Converted>> results = new ArrayList<>(jobs.size());
+            for (Job job : jobs) results.add(executor.submit(() -> convert(job, options)));
+            for (int i = 0; i < jobs.size(); i++) {
+                try {
+                    Converted c = results.get(i).get();
+                    if (!options.quiet) {
+                        out.printf("%s -> %s  %d operations, %,d -> %,d bytes, %,d Postman tokens%n",
+                                jobs.get(i).input, jobs.get(i).output, c.operations, c.inputBytes, c.outputBytes,
+                                c.postmanTokens);
+                    }
+                } catch (ExecutionException e) {
+                    failed++;
+                    err.println(jobs.get(i).input + ": " + IoSupport.rootMessage(e));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return 1;
+                }
+            }
+        }
+        if (!options.quiet) {
+            out.printf("%d of %d converted in %d ms%n", jobs.size() - failed, jobs.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        }
+        return failed == 0 ? 0 : 1;
+    }
+
+    // ── Planning ──────────────────────────────────────────────────────────────
+
+    private record Job(Path input, Path output) {}
+
+    /** Inputs in argument order, directories in name order, each with a unique output path. */
+    private static List<Job> plan(Options options) throws IOException {
+        List<Path[]> inputs = new ArrayList<>();
+        for (Path arg : options.inputs) {
+            if (Files.isDirectory(arg)) {
+                try (Stream<Path> files = Files.walk(arg)) {
+                    files.filter(ConverterCli::isCollectionFile).sorted()
+                            .forEach(file -> inputs.add(new Path[] {file, arg.relativize(file)}));
+                }
+            } else if (Files.isRegularFile(arg)) {
+                inputs.add(new Path[] {arg, arg.getFileName()});
+            } else {
+                throw new IllegalArgumentException("No such file or directory: " + arg);
+            }
+        }
+
+        Set<Path> inputFiles = new HashSet<>();
+        for (Path[] input : inputs) inputFiles.add(input[0].toAbsolutePath().normalize());
+        // JSON results are marked so that a later run over the same directory skips them
+        String extension = options.format.extension();
+        String suffix = extension.equals("json") ? ".openapi.json" : "." + extension;
+        Set<Path> outputs = new HashSet<>();
+        List<Job> jobs = new ArrayList<>(inputs.size());
+        for (Path[] input : inputs) {
+            Path dir = options.out != null ? options.out.resolve(input[1]).getParent() : input[0].getParent();
+            if (dir == null) dir = Path.of("");
+            String base = baseName(input[0].getFileName().toString());
+            Path output = dir.resolve(base + suffix);
+            for (int i = 2; inputFiles.contains(output.toAbsolutePath().normalize())
+                    || !outputs.add(output.toAbsolutePath().normalize()); i++) {
+                output = dir.resolve(base + "-" + i + suffix);
+            }
+            jobs.add(new Job(input[0], output));
+        }
+        return jobs;
+    }
+
+    private static boolean isCollectionFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return Files.isRegularFile(file) && !name.startsWith(".") && name.endsWith(".json")
+                && !name.endsWith(".openapi.json");
+    }
+
+    private static String baseName(String fileName) {
+        String base = fileName.replaceFirst("(?i)(\\.postman_collection)?\\.json$", "");
+        return base.isBlank() ? "collection" : base;
+    }
+
+    // ── Converting ────────────────────────────────────────────────────────────
+
+    private record Converted(int operations, long inputBytes, long outputBytes, int postmanTokens) {}
+
+    private Converted convert(Job job, Options options) throws IOException {
+        PostmanToSwaggerService.PreparedSpec spec;
+        long inputBytes = Files.size(job.input);
+        try (InputStream in = open(job.input, inputBytes)) {
+            spec = converter.prepare(in, ConversionOptions.builder().maxTokens(options.maxTokens).build());
+        }
+
+        Files.createDirectories(job.output.toAbsolutePath().getParent());
+        Path partial = job.output.resolveSibling(job.output.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 65536)) {
+                converter.write(spec, options.format, out);
+            }
+            Files.move(partial, job.output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return new Converted(spec.requestCount(), inputBytes, Files.size(job.output), spec.postmanTokens());
+    }
+
+    /** The file's bytes: read whole when small, mapped when large, streamed beyond 2 GB. */
+    private static InputStream open(Path file, long size) throws IOException {
+        if (size < MAP_THRESHOLD) return new ByteArrayInputStream(Files.readAllBytes(file));
+        if (size > Integer.MAX_VALUE) return Files.newInputStream(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    /** Reads a mapped file; the mapping stays valid after its channel is closed. */
+    private static final class BufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        BufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    // ── Options ───────────────────────────────────────────────────────────────
+
+    private static final class Options {
+        Path out;
+        OutputFormat format;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Integer maxTokens;
+        boolean quiet;
+        final List<Path> inputs = new ArrayList<>();
+
+        static Options parse(String[] args, OutputFormats formats) {
+            Options options = new Options();
+            String formatId = "openapi-yaml";
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                String value = null;
+                int eq = arg.indexOf('=');
+                if (arg.startsWith("--") && eq > 0) {
+                    value = arg.substring(eq + 1);
+                    arg = arg.substring(0, eq);
+                }
+                switch (arg) {
+                    case "-o", "--out" -> options.out = Path.of(value != null ? value : next(args, ++i, arg));
+                    case "-f", "--format" -> formatId = value != null ? value : next(args, ++i, arg);
+                    case "-t", "--threads" -> options.threads = positive(value != null ? value : next(args, ++i, arg), arg);
+                    case "--max-tokens" -> options.maxTokens = positive(value != null ? value : next(args, ++i, arg), arg);
+                    case "-q", "--quiet" -> options.quiet = true;
+                    default -> {
+                        if (arg.startsWith("-")) throw new IllegalArgumentException("Unknown option " + arg);
+                        options.inputs.add(Path.of(arg));
+                    }
+                }
+            }
+            if (options.inputs.isEmpty()) throw new IllegalArgumentException("No input files given");
+            options.format = formats.get(formatId);
+            return options;
+        }
+
+        private static String next(String[] args, int i, String option) {
+            if (i >= args.length) throw new IllegalArgumentException(option + " needs a value");
+            return args[i];
+        }
+
+        private static int positive(String value, String option) {
+            try {
+                int n = Integer.parseInt(value);
+                if (n > 0) return n;
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException(option + " must be a positive number, got " + value);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.doc.util.config;
+
+import org.doc.util.service.tokenizer.BpeTokenizer;
+import org.doc.util.service.tokenizer.HeuristicTokenizer;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+@Configuration
+public class TokenizerConfig {
+
+    /**
+     * {@code bpe} counts with the bundled cl100k_base vocabulary (or any tiktoken-format
+     * rank file given by {@code converter.tokenizer.vocabulary}); {@code heuristic}
+     * falls back to the 3.5 chars/token estimate.
+     */
+    @Bean
+    public Tokenizer tokenizer(@Value("${converter.tokenizer.engine:bpe}") String engine,
+                               @Value("${converter.tokenizer.name:cl100k_base}") String name,
+                               @Value("${converter.tokenizer.vocabulary:classpath:tokenizer/cl100k_base.tiktoken.gz}")
+                               Resource vocabulary) {
+        if ("heuristic".equalsIgnoreCase(engine)) {
+            return new HeuristicTokenizer();
+        }
+        return new BpeTokenizer(name, vocabulary);
+    }
+}
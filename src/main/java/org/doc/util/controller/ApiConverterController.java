@@ -1,23 +1,72 @@
 package org.doc.util.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.doc.util.model.ConversionOptions;
 import org.doc.util.model.ConversionResult;
 import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.admission.AdmissionRejectedException;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.doc.util.service.cache.CacheStats;
+import org.doc.util.service.cache.ConversionCache;
+import org.doc.util.service.view.ResultDocument;
+import org.doc.util.service.view.ResultDocumentStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 
+/**
+ * The web UI. A conversion renders only its summary and token counts into the page;
+ * the documents stay in the {@link ResultDocumentStore} and the page fetches the
+ * lines it scrolls to from {@code /result/{id}/{document}}, or downloads a whole
+ * document from {@code .../download}.
+ */
 @Controller
 public class ApiConverterController {
 
+    private static final Logger log = LoggerFactory.getLogger(ApiConverterController.class);
+
+    /** Pasted input up to this many chars is put back into the form after converting. */
+    static final int MAX_ECHOED_INPUT = 256 * 1024;
+
+    private static final String MISSING_INPUT = "Please provide a Postman collection JSON (paste or upload a file).";
+
+    /** Most lines one page request may ask for. */
+    static final int MAX_PAGE_LINES = 5000;
+
     @Autowired
     private PostmanToSwaggerService service;
 
+    @Autowired
+    private ConversionCache cache;
+
+    @Autowired
+    private ConversionAdmission admission;
+
+    @Autowired
+    private ResultDocumentStore documents;
+
     @GetMapping("/")
     public String index() {
         return "index";
@@ -27,27 +76,136 @@ public class ApiConverterController {
     public String convert(
             @RequestParam(value = "postmanJson", required = false) String postmanJson,
             @RequestParam(value = "file", required = false) MultipartFile file,
-            Model model) {
+            @RequestParam(value = "timings", defaultValue = "false") boolean timings,
+            @RequestParam(value = "maxTokens", required = false) Integer maxTokens,
+            @RequestParam(value = "compareFormats", defaultValue = "false") boolean compareFormats,
+            Model model, HttpServletResponse response) {
 
         try {
-            String json = postmanJson;
-            if (file != null && !file.isEmpty()) {
-                json = new String(file.getBytes(), StandardCharsets.UTF_8);
-            }
-
-            if (json == null || json.isBlank()) {
-                model.addAttribute("error", "Please provide a Postman collection JSON (paste or upload a file).");
+            boolean uploaded = file != null && !file.isEmpty();
+            if (!uploaded && (postmanJson == null || postmanJson.isBlank())) {
+                model.addAttribute("error", MISSING_INPUT);
                 return "index";
             }
 
-            ConversionResult result = service.convert(json.trim());
+            ConversionOptions options = ConversionOptions.builder()
+                    .includeTimings(timings)
+                    .maxTokens(maxTokens)
+                    .compareFormats(compareFormats)
+                    .build();
+            ConversionResult result;
+            // An upload is admitted on its size before it is read into memory
+            long size = uploaded ? file.getSize() : postmanJson.length();
+            try (ConversionAdmission.Permit permit = admission.admit(size)) {
+                String json = uploaded ? new String(file.getBytes(), StandardCharsets.UTF_8) : postmanJson;
+                if (json.isBlank()) {
+                    model.addAttribute("error", MISSING_INPUT);
+                    return "index";
+                }
+                result = service.convert(json, options);
+            }
             model.addAttribute("result", result);
-            model.addAttribute("postmanInput", json.trim());
+            model.addAttribute("resultId", documents.put(result));
+            if (!uploaded && postmanJson.length() <= MAX_ECHOED_INPUT) {
+                model.addAttribute("postmanInput", postmanJson);
+            }
 
+        } catch (AdmissionRejectedException e) {
+            response.setStatus(e.getStatus());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()));
+            model.addAttribute("error", "Server is busy: " + e.getMessage());
         } catch (Exception e) {
             model.addAttribute("error", "Conversion failed: " + e.getMessage());
         }
 
         return "index";
     }
+
+    /**
+     * Streams the OpenAPI YAML for an uploaded collection straight into the response,
+     * for collections too large to convert and render through the page.
+     * <p>
+     * The collection is scanned in full before the first byte is written, so an invalid
+     * one is answered with 400 instead of a download. A failure once output has been
+     * sent is logged and rethrown, and the container drops the connection. The client
+     * then sees a failed download rather than a truncated file with a 200.
+     */
+    @PostMapping("/convert/stream")
+    public void convertStream(@RequestParam("file") MultipartFile file,
+                              HttpServletResponse response) throws IOException {
+        response.setContentType("application/yaml");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"openapi.yaml\"");
+        try {
+            service.convertStreaming(file, response.getOutputStream());
+        } catch (IOException | RuntimeException e) {
+            if (response.isCommitted()) {
+                log.warn("Streamed conversion of {} failed after the response was committed; aborting it: {}",
+                        file.getOriginalFilename(), e.toString());
+                throw e;
+            }
+            response.reset();
+            if (!(e instanceof JsonProcessingException json)) throw e;
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Invalid collection: " + json.getOriginalMessage());
+        }
+    }
+
+    /**
+     * Lines {@code from} to {@code from + count} of a result document as plain text,
+     * gzipped when the browser accepts it, with the document's line count in
+     * X-Total-Lines. {@code document} is {@code postman} or an output format id; a
+     * result dropped from the store answers 404.
+     */
+    @GetMapping("/result/{id}/{document}")
+    public ResponseEntity<StreamingResponseBody> documentLines(
+            @PathVariable String id, @PathVariable String document,
+            @RequestParam(value = "from", defaultValue = "0") int from,
+            @RequestParam(value = "count", defaultValue = "500") int count,
+            HttpServletRequest request) {
+        if (from < 0 || count < 1 || count > MAX_PAGE_LINES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "from must be at least 0 and count between 1 and " + MAX_PAGE_LINES);
+        }
+        ResultDocument doc = document(id, document);
+        byte[] page = doc.lines(from, count).getBytes(StandardCharsets.UTF_8);
+        boolean gzip = ResponseBodies.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .cacheControl(CacheControl.maxAge(Duration.ofHours(1)).cachePrivate())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header("X-Total-Lines", String.valueOf(doc.lineCount()));
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(out -> ResponseBodies.write(out, gzip, target -> target.write(page)));
+    }
+
+    /** A whole result document as an attachment, streamed and gzipped when accepted. */
+    @GetMapping("/result/{id}/{document}/download")
+    public ResponseEntity<StreamingResponseBody> downloadDocument(@PathVariable String id,
+                                                                  @PathVariable String document,
+                                                                  HttpServletRequest request) {
+        ResultDocument doc = document(id, document);
+        boolean gzip = ResponseBodies.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(doc.mediaType()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + doc.fileName() + "\"");
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(out -> ResponseBodies.write(out, gzip,
+                target -> doc.writeTo(new OutputStreamWriter(target, StandardCharsets.UTF_8))));
+    }
+
+    @GetMapping("/cache/stats")
+    @ResponseBody
+    public CacheStats cacheStats() {
+        return cache.stats();
+    }
+
+    private ResultDocument document(String id, String document) {
+        ResultDocument doc = documents.get(id, document);
+        if (doc == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                    "No document " + document + " for result " + id + "; older results are dropped, convert again");
+        }
+        return doc;
+    }
 }
@@ -0,0 +1,431 @@
+package org.doc.util.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
+import org.doc.util.model.ConversionJobStatus;
+import org.doc.util.model.ConversionOptions;
+import org.doc.util.model.ConversionResult;
+import org.doc.util.model.SpecFormat;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.admission.AdmissionRejectedException;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.doc.util.service.batch.BatchConversionService;
+import org.doc.util.service.format.OutputFormat;
+import org.doc.util.service.format.OutputFormats;
+import org.doc.util.service.incremental.ConversionState;
+import org.doc.util.service.incremental.ConversionStateStore;
+import org.doc.util.service.jobs.ConversionJob;
+import org.doc.util.service.jobs.ConversionJobService;
+import org.doc.util.service.merge.CollectionMergeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Conversion API for scripts and pipelines. The request body is the collection JSON
+ * (optionally {@code Content-Encoding: gzip}) and is parsed straight from the request
+ * stream; the response is YAML or JSON depending on {@code Accept}, gzipped when the
+ * client accepts it, and written directly to the response stream. Tree conversions are
+ * admitted against the memory budget first and answered with 429 or 503 when it is
+ * exhausted. Conversions that would outlast the request can be submitted as jobs
+ * under {@code /api/jobs} and fetched once done. Collections split across several
+ * files can be merged into one document with {@code /api/convert/merge}.
+ */
+@RestController
+@RequestMapping("/api")
+public class ConversionApiController {
+
+    private static final MediaType APPLICATION_YAML = MediaType.parseMediaType("application/yaml");
+    private static final List<MediaType> YAML_TYPES = List.of(APPLICATION_YAML,
+            MediaType.parseMediaType("application/x-yaml"), MediaType.parseMediaType("text/yaml"));
+
+    @Autowired
+    private PostmanToSwaggerService service;
+
+    @Autowired
+    private BatchConversionService batch;
+
+    @Autowired
+    private ConversionAdmission admission;
+
+    @Autowired
+    private OutputFormats formats;
+
+    @Autowired
+    private ConversionStateStore states;
+
+    @Autowired
+    private ConversionJobService jobs;
+
+    @Autowired
+    private CollectionMergeService merger;
+
+    /**
+     * @param stream spool the body to a temporary file and convert it with the streaming
+     *               converter, for collections too large to parse into memory; the
+     *               X-Postman-Tokens header is not sent in this mode
+     * @param maxTokens trim the document until its YAML fits this many tokens; the
+     *                  count and the trimming steps applied are sent as X-Swagger-Tokens
+     *                  and X-Budget-Trims. Not available with {@code stream}
+     * @param formatId output format id, e.g. {@code endpoint-dsl}; overrides {@code Accept}.
+     *                 Only {@code openapi-yaml} and {@code json-min} can be streamed
+     */
+    @PostMapping("/convert")
+    public ResponseEntity<StreamingResponseBody> convert(
+            @RequestParam(value = "stream", defaultValue = "false") boolean stream,
+            @RequestParam(value = "maxTokens", required = false) Integer maxTokens,
+            @RequestParam(value = "format", required = false) String formatId,
+            HttpServletRequest request) throws IOException, HttpMediaTypeNotAcceptableException {
+
+        OutputFormat format = formatId != null
+                ? outputFormat(formatId)
+                : formats.get(negotiate(request.getHeader(HttpHeaders.ACCEPT)).formatId());
+        boolean gzip = ResponseBodies.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.mediaType()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+
+        if (stream && maxTokens != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "maxTokens is not supported with stream=true");
+        }
+        if (stream) {
+            SpecFormat streamed = SpecFormat.forFormatId(format.id());
+            if (streamed == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Format " + format.id() + " cannot be streamed; use openapi-yaml or json-min");
+            }
+            Path spool = spool(request);
+            return response.body(out -> {
+                try {
+                    ResponseBodies.write(out, gzip,
+                            target -> service.convertStreaming(new FileSystemResource(spool), target, streamed));
+                } finally {
+                    Files.deleteIfExists(spool);
+                }
+            });
+        }
+
+        // The parsed tree lives until the response is written, so the permit does too
+        long length = request.getContentLengthLong();
+        Path spool = length < 0 || isGzip(request) ? spool(request) : null;
+        ConversionAdmission.Permit permit = null;
+        try {
+            permit = admission.admit(spool != null ? Files.size(spool) : length);
+            PostmanToSwaggerService.PreparedSpec spec;
+            try (InputStream in = spool != null ? Files.newInputStream(spool) : request.getInputStream()) {
+                spec = service.prepare(in, ConversionOptions.builder().maxTokens(maxTokens).build());
+            }
+            if (spec.swaggerTokens() >= 0) response.header("X-Swagger-Tokens", String.valueOf(spec.swaggerTokens()));
+            if (!spec.budgetTrims().isEmpty()) response.header("X-Budget-Trims", String.join(",", spec.budgetTrims()));
+            ConversionAdmission.Permit held = permit;
+            ResponseEntity<StreamingResponseBody> entity = response
+                    .header("X-Operation-Count", String.valueOf(spec.requestCount()))
+                    .header("X-Postman-Tokens", String.valueOf(spec.postmanTokens()))
+                    .body(out -> {
+                        try (held) {
+                            ResponseBodies.write(out, gzip, target -> service.write(spec, format, target));
+                        }
+                    });
+            permit = null;
+            return entity;
+        } finally {
+            if (permit != null) permit.close();
+            if (spool != null) Files.deleteIfExists(spool);
+        }
+    }
+
+    /**
+     * Converts a new version of a collection, rebuilding only the request items that
+     * changed since an earlier conversion. Send the {@code X-Conversion-State} id of
+     * that conversion's response as {@code since}; an unknown or evicted id falls back
+     * to a full conversion. The response is the OpenAPI YAML with headers
+     * X-Conversion-State (the id for the next call), X-Baseline ({@code reused},
+     * {@code missing}, {@code incompatible} or {@code none}) and
+     * X-Reused-Operations / X-Rebuilt-Operations / X-Removed-Operations.
+     */
+    @PostMapping("/convert/incremental")
+    public ResponseEntity<StreamingResponseBody> convertIncremental(
+            @RequestParam(value = "since", required = false) String since,
+            HttpServletRequest request) throws Exception {
+        ConversionState previous = states.get(since);
+        PostmanToSwaggerService.IncrementalConversion conversion;
+        // Admitted before the body is read, like the tree path of /convert
+        long length = request.getContentLengthLong();
+        Path spool = length < 0 || isGzip(request) ? spool(request) : null;
+        try (ConversionAdmission.Permit permit = admission.admit(spool != null ? Files.size(spool) : length)) {
+            byte[] body;
+            try (InputStream in = spool != null ? Files.newInputStream(spool) : request.getInputStream()) {
+                body = in.readAllBytes();
+            }
+            conversion = service.convertIncremental(body, previous, ConversionOptions.defaults());
+        } finally {
+            if (spool != null) Files.deleteIfExists(spool);
+        }
+        states.put(conversion.stateId(), conversion.state());
+
+        ConversionResult result = conversion.result();
+        String baseline = since == null ? "none"
+                : previous == null ? "missing"
+                : conversion.baselineUsed() ? "reused" : "incompatible";
+        boolean gzip = ResponseBodies.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] yaml = result.getSwaggerYaml().getBytes(StandardCharsets.UTF_8);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(APPLICATION_YAML)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header("X-Conversion-State", conversion.stateId())
+                .header("X-Baseline", baseline)
+                .header("X-Reused-Operations", String.valueOf(conversion.reused()))
+                .header("X-Rebuilt-Operations", String.valueOf(conversion.rebuilt()))
+                .header("X-Removed-Operations", String.valueOf(conversion.removed()))
+                .header("X-Postman-Tokens", String.valueOf(result.getPostmanTokens()))
+                .header("X-Swagger-Tokens", String.valueOf(result.getSwaggerTokens()));
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(out -> ResponseBodies.write(out, gzip, target -> target.write(yaml)));
+    }
+
+    /**
+     * Converts several collections at once. Send them as multipart {@code files} (each a
+     * collection or a zip of collections) or as a raw zip body. The response is a zip of
+     * OpenAPI YAML files plus {@code token-report.json}; collections that fail are listed
+     * in the report with their error instead of failing the batch.
+     */
+    @PostMapping(value = "/convert/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> convertBatch(@RequestParam("files") List<MultipartFile> files) {
+        List<BatchConversionService.Input> inputs = files.stream()
+                .filter(f -> !f.isEmpty())
+                .map(f -> new BatchConversionService.Input(
+                        f.getOriginalFilename() != null ? f.getOriginalFilename() : f.getName(), f, f.getSize()))
+                .toList();
+        return batchResponse(out -> batch.convert(inputs, out), () -> {});
+    }
+
+    @PostMapping(value = "/convert/batch", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> convertBatchArchive(HttpServletRequest request) throws IOException {
+        Path spool = spool(request);
+        List<BatchConversionService.Input> inputs = List.of(
+                new BatchConversionService.Input("upload.zip", new FileSystemResource(spool), Files.size(spool)));
+        return batchResponse(out -> batch.convert(inputs, out), () -> Files.deleteIfExists(spool));
+    }
+
+    /**
+     * Merges several collections of one API, sent as multipart {@code files}, into one
+     * OpenAPI document. The response is a zip of {@code openapi.yaml} and
+     * {@code merge-report.json}, which lists conflicting operations and compares the
+     * merged document's tokens with the collections converted separately; headers
+     * X-Operation-Count and X-Merge-Conflicts summarize it. Collections that fail are
+     * reported and left out.
+     */
+    @PostMapping(value = "/convert/merge", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> convertMerge(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "title", defaultValue = "Merged API") String title) {
+        List<CollectionMergeService.Input> inputs = files.stream()
+                .filter(f -> !f.isEmpty())
+                .map(f -> new CollectionMergeService.Input(
+                        f.getOriginalFilename() != null ? f.getOriginalFilename() : f.getName(), f, f.getSize()))
+                .toList();
+        CollectionMergeService.Merged merged;
+        try {
+            merged = merger.merge(inputs, title);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"openapi-merged.zip\"")
+                .header("X-Operation-Count", String.valueOf(merged.report().getOperations()))
+                .header("X-Merge-Conflicts", String.valueOf(merged.report().getConflicts().size()))
+                .body(out -> merger.write(merged, out));
+    }
+
+    /**
+     * Queues a conversion and answers 202 at once with the job's status and its
+     * Location, for collections whose conversion would outlast a gateway timeout. Poll
+     * the status for progress, then fetch {@code /result}. The job uses the streaming
+     * converter, so {@code format} is {@code openapi-yaml} (the default) or
+     * {@code json-min}. Answered with 429 when too many jobs are queued.
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<ConversionJobStatus> submitJob(
+            @RequestParam(value = "format", defaultValue = "openapi-yaml") String formatId,
+            HttpServletRequest request) throws IOException {
+        SpecFormat format = SpecFormat.forFormatId(outputFormat(formatId).id());
+        if (format == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Format " + formatId + " cannot be streamed; use openapi-yaml or json-min");
+        }
+        ConversionJob job;
+        try (InputStream in = requestBody(request)) {
+            job = jobs.submit(in, format);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.id()))
+                .body(job.status(jobs.ttl()));
+    }
+
+    /** State of a job, with request items processed out of the total. */
+    @GetMapping("/jobs/{id}")
+    public ConversionJobStatus jobStatus(@PathVariable String id) {
+        return job(id).status(jobs.ttl());
+    }
+
+    /**
+     * The document of a succeeded job, streamed from the job store and gzipped when the
+     * client accepts it; 409 while the job is queued or running, or when it failed.
+     */
+    @GetMapping("/jobs/{id}/result")
+    public ResponseEntity<StreamingResponseBody> jobResult(@PathVariable String id, HttpServletRequest request)
+            throws IOException {
+        ConversionJob job = job(id);
+        if (job.state() != ConversionJob.State.SUCCEEDED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Job " + id + " is " + job.state());
+        }
+        // Opened here so the download survives the result expiring while it is sent
+        InputStream in;
+        try {
+            in = Files.newInputStream(jobs.result(job));
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Job " + id + " has expired");
+        }
+        boolean gzip = ResponseBodies.acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String extension = job.format() == SpecFormat.JSON ? "json" : "yaml";
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(job.format().mediaType()))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"openapi." + extension + "\"");
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(out -> {
+            try (in) {
+                ResponseBodies.write(out, gzip, in::transferTo);
+            }
+        });
+    }
+
+    /** Cancels a job that has not finished and deletes it with its result. */
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<Void> deleteJob(@PathVariable String id) {
+        if (!jobs.delete(id)) throw unknownJob(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler({JsonProcessingException.class, ZipException.class})
+    public ResponseEntity<ProblemDetail> unreadableCollection(IOException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                "Not a readable Postman collection: " + e.getMessage());
+        return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_PROBLEM_JSON).body(problem);
+    }
+
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ProblemDetail> overloaded(AdmissionRejectedException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.valueOf(e.getStatus()), e.getMessage());
+        return ResponseEntity.status(e.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                .body(problem);
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────────
+
+    private interface Cleanup {
+        void run() throws IOException;
+    }
+
+    private static ResponseEntity<StreamingResponseBody> batchResponse(ResponseBodies.BodyWriter writer, Cleanup cleanup) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"openapi-batch.zip\"")
+                .body(out -> {
+                    try {
+                        writer.writeTo(out);
+                    } finally {
+                        cleanup.run();
+                    }
+                });
+    }
+
+    /** Copies the (possibly gzipped) request body to a temporary file. */
+    private static Path spool(HttpServletRequest request) throws IOException {
+        Path spool = Files.createTempFile("upload", ".tmp");
+        try (InputStream in = requestBody(request)) {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        return spool;
+    }
+
+    private static InputStream requestBody(HttpServletRequest request) throws IOException {
+        InputStream in = request.getInputStream();
+        return isGzip(request) ? new GZIPInputStream(in, 8192) : in;
+    }
+
+    private static boolean isGzip(HttpServletRequest request) {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        return encoding != null && encoding.trim().equalsIgnoreCase("gzip");
+    }
+
+    private ConversionJob job(String id) {
+        ConversionJob job = jobs.get(id);
+        if (job == null) throw unknownJob(id);
+        return job;
+    }
+
+    private static ResponseStatusException unknownJob(String id) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "No job " + id + "; finished jobs expire");
+    }
+
+    private OutputFormat outputFormat(String id) {
+        try {
+            return formats.get(id);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /** Highest-quality acceptable type wins; YAML when the client does not say. */
+    private static SpecFormat negotiate(String accept) throws HttpMediaTypeNotAcceptableException {
+        if (accept == null || accept.isBlank()) return SpecFormat.YAML;
+        List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.getQualityValue() == 0) continue;
+            for (MediaType yaml : YAML_TYPES) {
+                if (type.includes(yaml)) return SpecFormat.YAML;
+            }
+            if (type.includes(MediaType.APPLICATION_JSON)) return SpecFormat.JSON;
+        }
+        throw new HttpMediaTypeNotAcceptableException(List.of(APPLICATION_YAML, MediaType.APPLICATION_JSON));
+    }
+}
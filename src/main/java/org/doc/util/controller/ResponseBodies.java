@@ -0,0 +1,36 @@
+package org.doc.util.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** Writing streamed response bodies, gzipped when the client accepts it. */
+final class ResponseBodies {
+
+    private ResponseBodies() {
+    }
+
+    interface BodyWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    static void write(OutputStream out, boolean gzip, BodyWriter writer) throws IOException {
+        if (!gzip) {
+            writer.writeTo(out);
+            return;
+        }
+        GZIPOutputStream zipped = new GZIPOutputStream(out, 8192);
+        writer.writeTo(zipped);
+        zipped.finish();
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] coding = part.trim().split(";");
+            if (!coding[0].trim().equalsIgnoreCase("gzip")) continue;
+            return coding.length < 2 || !coding[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+}
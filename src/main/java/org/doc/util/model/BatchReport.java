@@ -0,0 +1,47 @@
+package org.doc.util.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/** Aggregate token report for a batch conversion, written as {@code token-report.json}. */
+@Data
+@Builder
+@Jacksonized
+public class BatchReport {
+
+    private int collections;
+    private int succeeded;
+    private int failed;
+    private String tokenizer;
+
+    private long postmanTokens;
+    private long swaggerTokens;
+
+    /** Positive = the OpenAPI documents are smaller in total */
+    private long tokenDifference;
+
+    /** Total reduction as a percentage string, e.g. "41.3" */
+    private String reductionPct;
+
+    private long elapsedMillis;
+
+    /** One entry per input collection, in input order */
+    private List<Item> items;
+
+    @Data
+    @Builder
+    @Jacksonized
+    public static class Item {
+        /** Entry name in the uploaded archive, or the uploaded file name */
+        private String source;
+        /** YAML entry written to the output archive; null when the conversion failed */
+        private String output;
+        private String collectionName;
+        private int postmanTokens;
+        private int swaggerTokens;
+        private String error;
+    }
+}
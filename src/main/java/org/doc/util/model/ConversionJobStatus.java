@@ -0,0 +1,44 @@
+package org.doc.util.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+/** State of an asynchronous conversion job, as returned by {@code GET /api/jobs/{id}}. */
+@Data
+@Builder
+public class ConversionJobStatus {
+
+    private String id;
+
+    /** QUEUED, RUNNING, SUCCEEDED or FAILED; a cancelled job is deleted */
+    private String state;
+
+    /** Output format id of the result, e.g. "openapi-yaml" */
+    private String format;
+
+    /** Request items converted so far */
+    private int processedRequests;
+
+    /** Request items in the collection; -1 until the collection has been scanned */
+    private int totalRequests;
+
+    private Instant submittedAt;
+    private Instant startedAt;
+    private Instant finishedAt;
+
+    /** When the result is deleted; null until the job has finished */
+    private Instant expiresAt;
+
+    // Set once the job has succeeded
+    private String collectionName;
+    private Integer operationCount;
+    private Integer uncollapsedRequests;
+    private Integer postmanTokens;
+    private Integer swaggerTokens;
+    private Long resultBytes;
+
+    /** Why the job failed */
+    private String error;
+}
@@ -0,0 +1,30 @@
+package org.doc.util.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Per-request switches for a conversion. Options that change the generated document
+ * must also be reflected in the result cache key.
+ */
+@Data
+@Builder
+public class ConversionOptions {
+
+    /** Attach the per-stage timing breakdown to the result */
+    private boolean includeTimings;
+
+    /** Also render every output format and count its tokens */
+    private boolean compareFormats;
+
+    /** Trim the document until its YAML fits this many tokens; null or 0 = no budget */
+    private Integer maxTokens;
+
+    public boolean hasTokenBudget() {
+        return maxTokens != null && maxTokens > 0;
+    }
+
+    public static ConversionOptions defaults() {
+        return ConversionOptions.builder().build();
+    }
+}
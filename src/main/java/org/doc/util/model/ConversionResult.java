@@ -2,9 +2,14 @@ package org.doc.util.model;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+import java.util.Map;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
+@Jacksonized
 public class ConversionResult {
 
     private String collectionName;
@@ -13,6 +18,33 @@ public class ConversionResult {
     private int postmanTokens;
     private int swaggerTokens;
 
+    /** Tokenizer that produced the counts, e.g. "cl100k_base" */
+    private String tokenizer;
+
+    /** Schemas lifted into components/schemas because they occurred more than once */
+    private int sharedSchemas;
+
+    /** Estimated tokens saved by referencing those schemas instead of repeating them */
+    private int dedupTokenSavings;
+
+    /** Requested maximum YAML tokens; null when no budget was given */
+    private Integer tokenBudget;
+
+    /** true when the trimmed YAML fits the budget */
+    private boolean withinBudget;
+
+    /** Trimming steps that changed the document, with the parts each changed, e.g. "descriptions (12)" */
+    private List<String> budgetTrims;
+
+    /** Tags whose operations were dropped to meet the budget */
+    private List<String> droppedTags;
+
+    /** The document in every output format with token counts; only set when formats were compared */
+    private List<FormatOutput> formats;
+
+    /** Milliseconds per conversion stage plus "total"; only set when timings were requested */
+    private Map<String, Double> stageMillis;
+
     /** Positive = Postman is larger (swagger saves tokens), negative = swagger is larger */
     private int tokenDifference;
 
@@ -40,7 +72,8 @@ public class ConversionResult {
                                       String postmanJson,
                                       String swaggerYaml,
                                       int postmanTokens,
-                                      int swaggerTokens) {
+                                      int swaggerTokens,
+                                      String tokenizer) {
         int diff = postmanTokens - swaggerTokens;
         boolean smaller = diff > 0;
         double pct = postmanTokens == 0 ? 0.0 : Math.abs((double) diff / postmanTokens * 100.0);
@@ -52,6 +85,7 @@ public class ConversionResult {
                 .swaggerYaml(swaggerYaml)
                 .postmanTokens(postmanTokens)
                 .swaggerTokens(swaggerTokens)
+                .tokenizer(tokenizer)
                 .tokenDifference(diff)
                 .reductionPct(String.format("%.1f", pct))
                 .savingsVerb(smaller ? "saves" : "costs")
@@ -0,0 +1,29 @@
+package org.doc.util.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+/** The converted document in one output format, with its token count. */
+@Data
+@Builder
+@Jacksonized
+public class FormatOutput {
+
+    /** Output format id, e.g. "json-min" */
+    private String id;
+    private String label;
+    private String mediaType;
+    private String extension;
+    private String content;
+    private int tokens;
+
+    /** Reduction against the Postman JSON as a percentage string; negative when larger */
+    private String reductionPct;
+
+    /** Character count as formatted string */
+    private String chars;
+
+    /** true for the format(s) with the fewest tokens */
+    private boolean cheapest;
+}
@@ -0,0 +1,78 @@
+package org.doc.util.model;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.List;
+
+/** Report of merging several collections into one document, written as {@code merge-report.json}. */
+@Data
+@Builder
+@Jacksonized
+public class MergeReport {
+
+    private int collections;
+    private int succeeded;
+    private int failed;
+    private String tokenizer;
+
+    /** Operations in the merged document */
+    private int operations;
+
+    /** Operations defined identically by more than one collection, kept once */
+    private int duplicateOperations;
+
+    /** Distinct servers; the first is the document's, the others are set on their operations */
+    private List<String> servers;
+
+    /** Tags used by more than one collection */
+    private List<String> sharedTags;
+
+    /** Schemas lifted into components/schemas of the merged document */
+    private int sharedSchemas;
+
+    /** Sum of the YAML tokens of each collection converted on its own */
+    private long separateSwaggerTokens;
+
+    private long mergedSwaggerTokens;
+
+    /** Positive = the merged document is smaller than the separate ones together */
+    private long tokenSavings;
+
+    /** Savings as a percentage of the separate documents, e.g. "23.4" */
+    private String savingsPct;
+
+    private long elapsedMillis;
+
+    /** One entry per input collection, in input order */
+    private List<Item> items;
+
+    /** Path and method pairs that collections define differently; the first collection's operation is kept */
+    private List<Conflict> conflicts;
+
+    @Data
+    @Builder
+    @Jacksonized
+    public static class Item {
+        /** Uploaded file name */
+        private String source;
+        private String collectionName;
+        private int operations;
+        /** YAML tokens of this collection converted on its own */
+        private int swaggerTokens;
+        private String error;
+    }
+
+    @Data
+    @Builder
+    @Jacksonized
+    public static class Conflict {
+        private String path;
+        private String method;
+        /** Source whose operation was kept */
+        private String keptFrom;
+        /** Sources whose different operations were dropped */
+        private List<String> droppedFrom;
+    }
+}
@@ -0,0 +1,39 @@
+package org.doc.util.model;
+
+/**
+ * Serializations the streaming converter can write through a Jackson generator; each
+ * matches one {@link org.doc.util.service.format.OutputFormat} of the tree converter.
+ */
+public enum SpecFormat {
+
+    /** Block-style YAML, as shown in the UI */
+    YAML("application/yaml", "openapi-yaml"),
+
+    /** Compact JSON with the same empty-value omissions as the YAML */
+    JSON("application/json", "json-min");
+
+    private final String mediaType;
+    private final String formatId;
+
+    SpecFormat(String mediaType, String formatId) {
+        this.mediaType = mediaType;
+        this.formatId = formatId;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /** Id of the equivalent output format. */
+    public String formatId() {
+        return formatId;
+    }
+
+    /** The streaming format for an output format id, or null when it cannot be streamed. */
+    public static SpecFormat forFormatId(String formatId) {
+        for (SpecFormat format : values()) {
+            if (format.formatId.equals(formatId)) return format;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package org.doc.util.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Outcome of a streaming conversion. The documents themselves were written to the
+ * caller's stream, so only their sizes and token estimates are kept here.
+ */
+@Data
+@Builder
+public class StreamingConversionSummary {
+
+    private String collectionName;
+    private int operationCount;
+    /** Request items of other URLs in a path template whose operation was built from the first URL's alone. */
+    private int uncollapsedRequests;
+    private long postmanChars;
+    private long swaggerChars;
+    private int postmanTokens;
+    private int swaggerTokens;
+    private String tokenizer;
+}
@@ -0,0 +1,43 @@
+package org.doc.util.service;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/** Helpers shared by the services that write archives or report per-input failures, and by the CLI. */
+public final class IoSupport {
+
+    private IoSupport() {
+    }
+
+    /** The message of the innermost cause, or its class name when it has none. */
+    public static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) cause = cause.getCause();
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * {@code out} behind a wrapper whose {@code close()} only flushes, for streams that
+     * belong to someone else, such as the servlet response a zip is written to.
+     */
+    public static OutputStream keepOpen(OutputStream out) {
+        return new KeepOpen(out);
+    }
+
+    private static final class KeepOpen extends FilterOutputStream {
+        KeepOpen(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package org.doc.util.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Turns the concrete URLs of recorded requests into path templates, so that
+ * {@code /users/123/orders/987} and {@code /users/456/orders/12} both become
+ * {@code /users/{userId}/orders/{orderId}} and share one {@code paths} entry.
+ * <p>
+ * Every distinct path of a collection is inserted into a segment trie. Walking it
+ * top-down, the id-like children of a node are collapsed into one {@code {param}}
+ * child and their subtrees merged, so values further down are compared across all
+ * the parents they appeared under. A segment is id-like when it is a UUID, a hex
+ * hash of at least 16 characters, or a number; numbers are only collapsed when a node
+ * has at least {@code min-distinct} of them or already has a template child, so a
+ * lone {@code /v1/2} stays literal. The parameter is named after the segment before
+ * it ({@code users} → {@code userId}), or reuses the name of an existing template.
+ * <p>
+ * Also home to the path and operationId scanners, which replace regex chains with a
+ * single pass over the input.
+ */
+@Component
+public class PathTemplateTrie {
+
+    private final boolean enabled;
+    private final int minDistinct;
+
+    @Autowired
+    public PathTemplateTrie(@Value("${converter.paths.infer-templates:true}") boolean enabled,
+                            @Value("${converter.paths.min-distinct:2}") int minDistinct) {
+        this.enabled = enabled;
+        this.minDistinct = minDistinct;
+    }
+
+    /** Part of the cache key: results differ when these settings do. */
+    public String describe() {
+        return enabled ? "paths:" + minDistinct : "paths:off";
+    }
+
+    /**
+     * Templates for the given normalized paths. Only paths that change are in the
+     * returned map; every other path maps to itself.
+     */
+    public Map<String, String> infer(Collection<String> paths) {
+        if (!enabled) return Map.of();
+        Node root = new Node();
+        boolean candidates = false;
+        for (String path : paths) {
+            if (!path.startsWith("/")) continue;
+            Node node = root;
+            int start = 1;
+            while (true) {
+                int slash = path.indexOf('/', start);
+                int end = slash < 0 ? path.length() : slash;
+                String segment = path.substring(start, end);
+                candidates |= kind(segment) != Kind.LITERAL;
+                node = node.children.computeIfAbsent(segment, k -> new Node());
+                if (slash < 0) break;
+                start = slash + 1;
+            }
+        }
+        if (!candidates) return Map.of();
+        collapse(root, null, new HashSet<>());
+
+        Map<String, String> templates = new HashMap<>();
+        StringBuilder out = new StringBuilder();
+        for (String path : paths) {
+            if (!path.startsWith("/") || templates.containsKey(path)) continue;
+            out.setLength(0);
+            Node node = root;
+            int start = 1;
+            while (node != null) {
+                int slash = path.indexOf('/', start);
+                int end = slash < 0 ? path.length() : slash;
+                String segment = path.substring(start, end);
+                String key = node.collapsed.getOrDefault(segment, segment);
+                out.append('/').append(key);
+                node = slash < 0 ? null : node.children.get(key);
+                start = slash + 1;
+            }
+            if (!out.toString().equals(path)) templates.put(path, out.toString());
+        }
+        return templates;
+    }
+
+    // ── Trie ──────────────────────────────────────────────────────────────────
+
+    private static final class Node {
+        final Map<String, Node> children = new LinkedHashMap<>();
+        /** Segments merged into a template child, and the template they went to. */
+        final Map<String, String> collapsed = new HashMap<>();
+    }
+
+    private enum Kind { LITERAL, TEMPLATE, NUMBER, ID }
+
+    /** @param names parameter names already used on the way down to {@code node} */
+    private void collapse(Node node, String segment, Set<String> names) {
+        String template = null;
+        int numbers = 0;
+        boolean ids = false;
+        for (String key : node.children.keySet()) {
+            switch (kind(key)) {
+                case TEMPLATE -> template = template == null ? key : template;
+                case NUMBER -> numbers++;
+                case ID -> ids = true;
+                default -> { }
+            }
+        }
+        boolean collapseNumbers = numbers > 0 && (numbers >= minDistinct || template != null || ids);
+        if (ids || collapseNumbers) {
+            if (template == null) template = "{" + parameterName(segment, names) + "}";
+            Node target = node.children.computeIfAbsent(template, k -> new Node());
+            for (Iterator<Map.Entry<String, Node>> it = node.children.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Node> child = it.next();
+                Kind kind = kind(child.getKey());
+                if (kind == Kind.ID || kind == Kind.NUMBER && collapseNumbers) {
+                    merge(child.getValue(), target);
+                    node.collapsed.put(child.getKey(), template);
+                    it.remove();
+                }
+            }
+        }
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            String key = child.getKey();
+            boolean param = kind(key) == Kind.TEMPLATE;
+            String name = param ? key.substring(1, key.length() - 1) : null;
+            boolean added = param && names.add(name);
+            collapse(child.getValue(), key, names);
+            if (added) names.remove(name);
+        }
+    }
+
+    private static void merge(Node from, Node into) {
+        from.children.forEach((key, child) -> {
+            Node existing = into.children.putIfAbsent(key, child);
+            if (existing != null) merge(child, existing);
+        });
+    }
+
+    /** {@code users} → {@code userId}; {@code id} after another parameter or at the root. */
+    private static String parameterName(String segment, Set<String> taken) {
+        StringBuilder name = new StringBuilder();
+        if (segment != null && kind(segment) == Kind.LITERAL) {
+            boolean upper = false;
+            for (int i = 0; i < segment.length(); i++) {
+                char c = segment.charAt(i);
+                if (c < 128 && Character.isLetterOrDigit(c)) {
+                    name.append(upper ? Character.toUpperCase(c) : name.isEmpty() ? Character.toLowerCase(c) : c);
+                    upper = false;
+                } else {
+                    upper = !name.isEmpty();
+                }
+            }
+            int n = name.length();
+            if (n > 3 && name.lastIndexOf("ies") == n - 3) {
+                name.replace(n - 3, n, "y");
+            } else if (n > 1 && name.charAt(n - 1) == 's' && "su".indexOf(name.charAt(n - 2)) < 0) {
+                name.setLength(n - 1);
+            }
+        }
+        String base = name.isEmpty() || !Character.isLetter(name.charAt(0)) ? "id" : name.append("Id").toString();
+        String candidate = base;
+        for (int i = 2; taken.contains(candidate); i++) candidate = base + i;
+        return candidate;
+    }
+
+    private static Kind kind(String segment) {
+        int n = segment.length();
+        if (n == 0) return Kind.LITERAL;
+        if (n > 2 && segment.charAt(0) == '{' && segment.charAt(n - 1) == '}') return Kind.TEMPLATE;
+        boolean digits = true;
+        boolean hex = true;
+        boolean anyDigit = false;
+        for (int i = 0; i < n; i++) {
+            char c = segment.charAt(i);
+            boolean digit = c >= '0' && c <= '9';
+            anyDigit |= digit;
+            digits &= digit;
+            hex &= digit || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F'
+                    || n == 36 && c == '-' && (i == 8 || i == 13 || i == 18 || i == 23);
+        }
+        if (digits) return Kind.NUMBER;
+        if (!anyDigit || !hex) return Kind.LITERAL;
+        if (n == 36 && segment.indexOf('-') >= 0) {
+            return segment.charAt(8) == '-' && segment.charAt(13) == '-'
+                    && segment.charAt(18) == '-' && segment.charAt(23) == '-' ? Kind.ID : Kind.LITERAL;
+        }
+        return n >= 16 ? Kind.ID : Kind.LITERAL;
+    }
+
+    // ── Scanners ──────────────────────────────────────────────────────────────
+
+    /**
+     * The path of a Postman URL, in one pass: a leading {@code {{baseUrl}}} and
+     * {@code scheme://host} are dropped, as are the query and fragment; {@code /:name}
+     * becomes {@code /{name}}, {@code {{name}}} becomes {@code {name}}, the path starts
+     * with exactly one slash and repeated slashes collapse.
+     */
+    public static String normalizePath(String rawUrl) {
+        int length = rawUrl.length();
+        int start = 0;
+        if (rawUrl.startsWith("{{")) {
+            int close = rawUrl.indexOf('}', 2);
+            if (close > 2 && close + 1 < length && rawUrl.charAt(close + 1) == '}') start = close + 2;
+        }
+        int scheme = rawUrl.startsWith("http://", start) ? 7 : rawUrl.startsWith("https://", start) ? 8 : 0;
+        if (scheme > 0) {
+            int slash = rawUrl.indexOf('/', start + scheme);
+            start = slash < 0 ? length : slash;
+        }
+        int end = start;
+        while (end < length && rawUrl.charAt(end) != '?' && rawUrl.charAt(end) != '#') end++;
+
+        PathBuilder out = new PathBuilder(end - start + 2);
+        for (int i = start; i < end; i++) {
+            char c = rawUrl.charAt(i);
+            if (c == '/' && i + 2 < end && rawUrl.charAt(i + 1) == ':' && isIdentifierStart(rawUrl.charAt(i + 2))) {
+                out.append('/');
+                out.append('{');
+                i += 2;
+                while (i < end && isIdentifierPart(rawUrl.charAt(i))) out.append(rawUrl.charAt(i++));
+                out.append('}');
+                i--;
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * The request name in lower snake case, keeping only ASCII letters and digits; when
+     * nothing is left, the method and the path with slashes as underscores.
+     */
+    public static String operationId(String method, String path, String name) {
+        String lower = name.toLowerCase();
+        StringBuilder id = new StringBuilder(lower.length());
+        boolean gap = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9') {
+                if (gap && !id.isEmpty()) id.append('_');
+                id.append(c);
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+        if (!id.isEmpty()) return id.toString();
+        id.append(method);
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == '/') id.append('_');
+            else if (c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '_') id.append(c);
+        }
+        return id.toString();
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isIdentifierStart(c) || c >= '0' && c <= '9';
+    }
+
+    /**
+     * Output of {@link #normalizePath}: starts with a slash, drops a slash that follows
+     * another, and rewrites {@code {{name}}} to {@code {name}} as the closing braces
+     * arrive. A {@code {{} needs at least one character before the first {@code }},
+     * and that {@code }} must be followed by a second one.
+     */
+    private static final class PathBuilder {
+        private final StringBuilder out;
+        /** Index of the first brace of an open {@code {{}, or -1. */
+        private int open = -1;
+        private boolean closing;
+
+        PathBuilder(int capacity) {
+            out = new StringBuilder(capacity).append('/');
+        }
+
+        void append(char c) {
+            if (c == '/' && out.charAt(out.length() - 1) == '/') return;
+            if (closing) {
+                closing = false;
+                int first = open;
+                open = -1;
+                if (c == '}') {
+                    out.deleteCharAt(first);
+                    return;
+                }
+            } else if (open >= 0) {
+                if (c == '}') {
+                    if (out.length() > open + 2) closing = true;
+                    else open = -1;
+                }
+                out.append(c);
+                return;
+            }
+            out.append(c);
+            int n = out.length();
+            if (c == '{' && out.charAt(n - 2) == '{') open = n - 2;
+        }
+
+        @Override
+        public String toString() {
+            return out.toString();
+        }
+    }
+}
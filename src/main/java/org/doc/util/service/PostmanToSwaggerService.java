@@ -1,82 +1,996 @@
 package org.doc.util.service;
 
-import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.doc.util.model.ConversionOptions;
 import org.doc.util.model.ConversionResult;
+import org.doc.util.model.FormatOutput;
+import org.doc.util.model.SpecFormat;
+import org.doc.util.model.StreamingConversionSummary;
+import org.doc.util.service.cache.ContentHash;
+import org.doc.util.service.cache.ConversionCache;
+import org.doc.util.service.format.MinifiedJsonFormat;
+import org.doc.util.service.format.OpenApiYamlFormat;
+import org.doc.util.service.format.OutputFormat;
+import org.doc.util.service.format.OutputFormats;
+import org.doc.util.service.incremental.ConversionState;
+import org.doc.util.service.metrics.ConversionMetrics;
+import org.doc.util.service.metrics.StageTimer;
+import org.doc.util.service.spec.SpecInterner;
+import org.doc.util.service.spec.SpecNode;
+import org.doc.util.service.tokenizer.ChunkCounts;
+import org.doc.util.service.tokenizer.TokenChunks;
+import org.doc.util.service.tokenizer.TokenCounter;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
 public class PostmanToSwaggerService {
 
+    /** Rounds of trimming against the real count; the trimmer's own estimate drifts a little. */
+    private static final int BUDGET_ROUNDS = 3;
     private static final Pattern PATH_PARAM_PATTERN = Pattern.compile("\\{([^}]+)\\}");
+    private static final SpecNode STRING_SCHEMA = SpecNode.of("type", "string");
+    private static final SpecNode GRAPHQL_SCHEMA = SpecNode.of("type", "object", "properties", SpecNode.of(
+            "query", STRING_SCHEMA,
+            "variables", SpecNode.of("type", "object")));
+    private static final SpecNode DEFAULT_RESPONSES =
+            SpecNode.of("200", SpecNode.of("description", "Successful response"));
     private static final Set<String> SKIP_HEADERS =
             Set.of("content-type", "accept", "authorization", "content-length");
 
     private final ObjectMapper jsonMapper;
+    private final ObjectWriter compactJsonWriter;
     private final ObjectMapper yamlMapper;
+    private final ObjectMapper specJsonMapper;
+    private final Tokenizer tokenizer;
+    private final ConversionCache cache;
+    private final SchemaMerger schemaMerger;
+    private final PathTemplateTrie pathTemplates;
+    private final SpecInterner interner;
+    private final SchemaDeduplicator deduplicator;
+    private final TokenBudgetTrimmer trimmer;
+    private final OutputFormats formats;
+    private final ConversionMetrics metrics;
+    private final int parallelThreshold;
 
-    public PostmanToSwaggerService() {
+    public PostmanToSwaggerService(Tokenizer tokenizer, ConversionCache cache, SchemaMerger schemaMerger,
+                                   PathTemplateTrie pathTemplates, SpecInterner interner,
+                                   SchemaDeduplicator deduplicator, TokenBudgetTrimmer trimmer,
+                                   OutputFormats formats, ConversionMetrics metrics,
+                                   @Value("${converter.parallel.threshold:256}") int parallelThreshold) {
+        this.tokenizer = tokenizer;
+        this.cache = cache;
+        this.schemaMerger = schemaMerger;
+        this.pathTemplates = pathTemplates;
+        this.interner = interner;
+        this.deduplicator = deduplicator;
+        this.trimmer = trimmer;
+        this.formats = formats;
+        this.metrics = metrics;
+        this.parallelThreshold = parallelThreshold;
         this.jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-        this.yamlMapper = new ObjectMapper(
-                new YAMLFactory()
-                        .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
-                        .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES))
-                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
-                .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+        this.compactJsonWriter = jsonMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.yamlMapper = OpenApiYamlFormat.newMapper();
+        this.specJsonMapper = MinifiedJsonFormat.newMapper();
     }
 
     public ConversionResult convert(String postmanJson) throws Exception {
+        return convert(postmanJson, ConversionOptions.defaults());
+    }
+
+    public ConversionResult convert(String postmanJson, ConversionOptions options) throws Exception {
+        StageTimer timer = metrics.start(ConversionMetrics.TREE);
+        ConversionResult result;
+        String cacheOutcome;
+        if (!cache.isEnabled()) {
+            result = convertUncached(postmanJson, options, timer, null);
+            cacheOutcome = "off";
+        } else {
+            String variant = stateVariant()
+                    + (options.hasTokenBudget() ? "|budget:" + options.getMaxTokens() : "")
+                    + (options.isCompareFormats() ? "|formats:" + formatIds() : "");
+            ConversionCache.Key key = cache.key(postmanJson.getBytes(StandardCharsets.UTF_8), variant);
+            result = cache.get(key);
+            timer.lap("cache");
+            cacheOutcome = "hit";
+            if (result == null) {
+                result = convertUncached(postmanJson, options, timer, null);
+                cache.put(key, result);
+                timer.lap("cache");
+                cacheOutcome = "miss";
+            }
+        }
+        metrics.recordConversion(timer, cacheOutcome,
+                ConversionMetrics.utf8Length(postmanJson), ConversionMetrics.utf8Length(result.getSwaggerYaml()));
+
+        // Cached results are shared, so the breakdown goes on a copy
+        return options.isIncludeTimings() ? result.toBuilder().stageMillis(timer.breakdown()).build() : result;
+    }
+
+    private ConversionResult convertUncached(String postmanJson, ConversionOptions options, StageTimer timer,
+                                             Delta delta) throws Exception {
         JsonNode root = jsonMapper.readTree(postmanJson);
+        timer.lap("parse");
+        return convertTree(root, options, timer, delta);
+    }
 
+    /** @param delta reuse from an earlier conversion, or null to build everything */
+    private ConversionResult convertTree(JsonNode root, ConversionOptions options, StageTimer timer,
+                                         Delta delta) throws Exception {
         String collectionName = root.path("info").path("name").asText("API");
 
-        // Extract baseUrl from collection variables if available
-        String baseUrl = extractBaseUrl(root);
+        SchemaDeduplicator.Result spec = buildSpec(root, timer, delta != null ? delta::operation : this::buildOperation);
+        Map<String, Object> openApi = spec.openApi();
+
+        // Serialize
+        String swaggerYaml = toYaml(openApi);
+        timer.lap("serialize");
+        Budgeted budgeted = null;
+        if (options.hasTokenBudget()) {
+            budgeted = fitToBudget(openApi, swaggerYaml, options.getMaxTokens());
+            openApi = budgeted.openApi();
+            swaggerYaml = budgeted.yaml();
+            timer.lap("trim");
+        }
+        String prettyPostman = jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(root);
+        timer.lap("pretty");
+
+        int postmanTokens = delta != null ? delta.postmanTokens(prettyPostman) : tokenizer.countTokens(prettyPostman);
+        int swaggerTokens = budgeted != null ? budgeted.tokens()
+                : delta != null ? delta.yamlTokens(swaggerYaml) : tokenizer.countTokens(swaggerYaml);
+        timer.lap("tokens");
+
+        ConversionResult result = ConversionResult.of(collectionName, prettyPostman, swaggerYaml,
+                postmanTokens, swaggerTokens, tokenizer.name());
+        result.setSharedSchemas(spec.liftedSchemas());
+        result.setDedupTokenSavings(spec.tokenSavings());
+        if (budgeted != null) {
+            result.setTokenBudget(options.getMaxTokens());
+            result.setWithinBudget(swaggerTokens <= options.getMaxTokens());
+            result.setBudgetTrims(budgeted.describeTrims());
+            result.setDroppedTags(budgeted.droppedTags());
+        }
+        if (options.isCompareFormats()) {
+            result.setFormats(renderFormats(openApi, swaggerYaml, swaggerTokens, postmanTokens));
+            timer.lap("formats");
+        }
+        return result;
+    }
+
+    // ── Incremental conversion ────────────────────────────────────────────────
 
+    /**
+     * Converts a new version of a collection, reusing what an earlier conversion left
+     * behind. Request items are fingerprinted (XXH64 of the item JSON and its folder
+     * tag); only items whose fingerprint is not in {@code previous} are built, the rest
+     * take their operation from the state. Token counts only tokenize the YAML and
+     * Postman lines that are new. Deduplication and serialization still cover the
+     * whole document, since lifted schemas depend on every operation. A state built
+     * with other settings is ignored. The result cache is bypassed.
+     *
+     * @param input    the collection as UTF-8 JSON; parsed from the bytes, never copied into a String
+     * @param previous the state of the earlier conversion, or null for a first run
+     */
+    public IncrementalConversion convertIncremental(byte[] input, ConversionState previous,
+                                                    ConversionOptions options) throws Exception {
+        StageTimer timer = metrics.start(ConversionMetrics.INCREMENTAL);
+        String variant = stateVariant();
+        boolean compatible = previous != null && previous.variant().equals(variant);
+        Delta delta = new Delta(compatible ? previous : ConversionState.EMPTY);
+        JsonNode root = jsonMapper.readTree(input);
+        timer.lap("parse");
+        ConversionResult result = convertTree(root, options, timer, delta);
+        metrics.recordConversion(timer, "off", input.length, ConversionMetrics.utf8Length(result.getSwaggerYaml()));
+        if (options.isIncludeTimings()) result.setStageMillis(timer.breakdown());
+
+        String stateId = Long.toHexString(ContentHash.xxh64(input, 0, input.length))
+                + Integer.toHexString(variant.hashCode());
+        return new IncrementalConversion(result, stateId, delta.state(variant, result.getSwaggerYaml().length()), compatible,
+                delta.reused.get(), delta.rebuilt.get(), delta.removed());
+    }
+
+    private String stateVariant() {
+        return tokenizer.name() + "|" + schemaMerger.describe() + "|" + pathTemplates.describe()
+                + "|" + deduplicator.describe();
+    }
+
+    /**
+     * An incremental conversion and the state to hand to the next one.
+     *
+     * @param stateId         stable id of {@code state}: the same collection and settings give the same id
+     * @param baselineUsed    whether the previous state was compatible and reused
+     * @param reused          operations taken from the previous state (or repeated within this collection)
+     * @param rebuilt         operations built from their request items
+     * @param removed         operations of the previous state no longer in the collection
+     */
+    public record IncrementalConversion(ConversionResult result, String stateId, ConversionState state,
+                                        boolean baselineUsed, int reused, int rebuilt, int removed) {
+    }
+
+    /** Reuse from one earlier state while a conversion runs, and the state it leaves behind. */
+    private final class Delta {
+        private final ConversionState previous;
+        private final Map<Long, ConversionState.Operation> operations = new ConcurrentHashMap<>();
+        private final AtomicInteger reused = new AtomicInteger();
+        private final AtomicInteger rebuilt = new AtomicInteger();
+        private ChunkCounts yamlChunks = ChunkCounts.EMPTY;
+        private ChunkCounts postmanChunks = ChunkCounts.EMPTY;
+
+        Delta(ConversionState previous) {
+            this.previous = previous;
+        }
+
+        /** Thread-safe; called from the fork-join pool for large collections. */
+        BuiltOperation operation(RequestEntry entry) {
+            long fingerprint = fingerprint(entry);
+            ConversionState.Operation op = operations.get(fingerprint);
+            if (op == null) op = previous.operation(fingerprint);
+            if (op != null) {
+                reused.incrementAndGet();
+            } else {
+                BuiltOperation built = buildOperation(entry);
+                op = new ConversionState.Operation(built.path(), built.method(), built.operation());
+                rebuilt.incrementAndGet();
+            }
+            operations.put(fingerprint, op);
+            return new BuiltOperation(op.path(), op.method(), op.operation());
+        }
+
+        int yamlTokens(String yaml) {
+            TokenChunks.Counted counted = TokenChunks.count(tokenizer, yaml, previous.yamlChunks());
+            yamlChunks = counted.chunks();
+            return counted.tokens();
+        }
+
+        int postmanTokens(String pretty) {
+            TokenChunks.Counted counted = TokenChunks.count(tokenizer, pretty, previous.postmanChunks());
+            postmanChunks = counted.chunks();
+            return counted.tokens();
+        }
+
+        int removed() {
+            int removed = 0;
+            for (long fingerprint : previous.fingerprints()) {
+                if (!operations.containsKey(fingerprint)) removed++;
+            }
+            return removed;
+        }
+
+        ConversionState state(String variant, long documentChars) {
+            return new ConversionState(variant, new HashMap<>(operations), yamlChunks, postmanChunks, documentChars);
+        }
+    }
+
+    /**
+     * XXH64 of the item's compact JSON and of the items collapsed into it, prefixed by
+     * its path template (which depends on the other items) and the tag it inherits from
+     * its folder.
+     */
+    private long fingerprint(RequestEntry entry) {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream(1024);
+        buf.writeBytes(entry.path().getBytes(StandardCharsets.UTF_8));
+        buf.write(0);
+        if (entry.tag() != null) buf.writeBytes(entry.tag().getBytes(StandardCharsets.UTF_8));
+        buf.write(entry.tag() != null ? 0 : 1);
+        try {
+            compactJsonWriter.writeValue(buf, entry.item());
+            for (JsonNode other : entry.collapsed()) compactJsonWriter.writeValue(buf, other);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] bytes = buf.toByteArray();
+        return ContentHash.xxh64(bytes, 0, bytes.length);
+    }
+
+    // ── Output formats ────────────────────────────────────────────────────────
+
+    /**
+     * Renders and counts every output format from the same document, one format per
+     * fork-join task. The block YAML was already produced and counted, so it is reused.
+     */
+    private List<FormatOutput> renderFormats(Map<String, Object> openApi, String yaml, int yamlTokens,
+                                             int postmanTokens) {
+        List<FormatOutput> outputs = formats.all().parallelStream().map(format -> {
+            boolean primary = format.id().equals(OpenApiYamlFormat.ID);
+            String content = primary ? yaml : format.render(openApi);
+            int tokens = primary ? yamlTokens : tokenizer.countTokens(content);
+            double pct = postmanTokens == 0 ? 0.0 : (double) (postmanTokens - tokens) / postmanTokens * 100.0;
+            return FormatOutput.builder()
+                    .id(format.id())
+                    .label(format.label())
+                    .mediaType(format.mediaType())
+                    .extension(format.extension())
+                    .content(content)
+                    .tokens(tokens)
+                    .reductionPct(String.format("%.1f", pct))
+                    .chars(String.format("%,d", content.length()))
+                    .build();
+        }).toList();
+        int fewest = outputs.stream().mapToInt(FormatOutput::getTokens).min().orElse(0);
+        outputs.forEach(o -> o.setCheapest(o.getTokens() == fewest));
+        return outputs;
+    }
+
+    private String formatIds() {
+        return String.join(",", formats.all().stream().map(OutputFormat::id).toList());
+    }
+
+    // ── Token budget ──────────────────────────────────────────────────────────
+
+    /**
+     * Trims {@code openApi} until its YAML fits {@code maxTokens}, or nothing more can be
+     * dropped. The trimmer accounts per operation; the full document is only counted
+     * again after each round to catch estimate drift.
+     */
+    private Budgeted fitToBudget(Map<String, Object> openApi, String yaml, int maxTokens) {
+        int tokens = tokenizer.countTokens(yaml);
+        Map<String, Integer> trims = new LinkedHashMap<>();
+        List<String> droppedTags = new ArrayList<>();
+        for (int round = 0; round < BUDGET_ROUNDS && tokens > maxTokens; round++) {
+            TokenBudgetTrimmer.Result trimmed = trimmer.trim(openApi, maxTokens, tokens, this::yamlTokens);
+            if (trimmed.openApi() == openApi) break;
+            trimmed.trims().forEach(t -> trims.merge(t.step(), t.count(), Integer::sum));
+            droppedTags.addAll(trimmed.droppedTags());
+            openApi = trimmed.openApi();
+            yaml = toYaml(openApi);
+            tokens = tokenizer.countTokens(yaml);
+        }
+        return new Budgeted(openApi, yaml, tokens, trims, droppedTags);
+    }
+
+    /** The OpenAPI document for a parsed collection, before serialization. */
+    SchemaDeduplicator.Result buildSpec(JsonNode root) {
+        return buildSpec(root, StageTimer.none(), this::buildOperation);
+    }
+
+    private SchemaDeduplicator.Result buildSpec(JsonNode root, StageTimer timer,
+                                                Function<RequestEntry, BuiltOperation> builder) {
         // Build OpenAPI spec
+        Map<String, Object> openApi = buildSpecHeader(root.path("info"), root.path("variable"));
+        Map<String, Object> paths = buildPaths(root, timer, builder);
+        openApi.put("paths", paths.isEmpty() ? Map.of("/", Map.of()) : paths);
+        timer.lap("build");
+
+        // Lift repeated schemas into components/schemas
+        SchemaDeduplicator.Result result = deduplicator.deduplicate(openApi, this::yamlTokens);
+        timer.lap("dedup");
+        return result;
+    }
+
+    /**
+     * path → method → operation, in request order; a later request for the same URL
+     * replaces an earlier one. Requests for different URLs that fall into one path
+     * template are built as one operation (see {@link #collapseTemplates}).
+     */
+    private Map<String, Object> buildPaths(JsonNode root, StageTimer timer,
+                                           Function<RequestEntry, BuiltOperation> builder) {
+        // Collect all requests recursively (preserving folder as tags)
+        List<RequestEntry> requests = new ArrayList<>();
+        collectRequests(root.path("item"), null, requests);
+        timer.requestCount(requests.size());
+        Set<String> distinctPaths = new LinkedHashSet<>();
+        for (RequestEntry entry : requests) distinctPaths.add(entry.path());
+        Map<String, String> templates = pathTemplates.infer(distinctPaths);
+        if (!templates.isEmpty()) requests = collapseTemplates(requests, templates);
+        timer.lap("collect");
+
+        Map<String, Object> paths = new LinkedHashMap<>();
+        for (BuiltOperation op : buildOperations(requests, builder)) {
+            addOperation(op, paths);
+        }
+        return paths;
+    }
+
+    /**
+     * Replaces each templated path with its template and leaves one entry per template
+     * and method, in the position of the first. The last request owns the operation;
+     * the last request of every other URL in the template goes along as
+     * {@link RequestEntry#collapsed}, so its parameters and saved responses are folded
+     * in rather than lost.
+     */
+    private List<RequestEntry> collapseTemplates(List<RequestEntry> requests, Map<String, String> templates) {
+        Set<String> templated = new HashSet<>(templates.values());
+        List<RequestEntry> out = new ArrayList<>(requests.size());
+        // template + method → URL → its last request, and the slot the first one took in out
+        Map<String, Map<String, RequestEntry>> byUrl = new HashMap<>();
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (RequestEntry entry : requests) {
+            String path = templates.getOrDefault(entry.path(), entry.path());
+            if (!templated.contains(path)) {
+                out.add(entry);
+                continue;
+            }
+            String slot = path + " " + operationMethod(entry.item().path("request"));
+            if (!positions.containsKey(slot)) {
+                positions.put(slot, out.size());
+                out.add(null);
+            }
+            Map<String, RequestEntry> urls = byUrl.computeIfAbsent(slot, k -> new LinkedHashMap<>());
+            urls.remove(entry.path());
+            urls.put(entry.path(), new RequestEntry(entry.item(), entry.tag(), path));
+        }
+        positions.forEach((slot, position) -> {
+            List<RequestEntry> urls = new ArrayList<>(byUrl.get(slot).values());
+            RequestEntry owner = urls.removeLast();
+            out.set(position, urls.isEmpty() ? owner : new RequestEntry(owner.item(), owner.tag(), owner.path(),
+                    urls.stream().map(RequestEntry::item).toList()));
+        });
+        return out;
+    }
+
+    String toYaml(Object value) {
+        try {
+            return yamlMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int yamlTokens(Object value) {
+        return tokenizer.countTokens(toYaml(value));
+    }
+
+    /** openapi / info / servers entries shared by the tree and streaming converters. */
+    private Map<String, Object> buildSpecHeader(JsonNode infoNode, JsonNode variables) {
         Map<String, Object> openApi = new LinkedHashMap<>();
         openApi.put("openapi", "3.0.3");
 
         Map<String, Object> info = new LinkedHashMap<>();
-        info.put("title", collectionName);
-        info.put("description", root.path("info").path("description").asText(null));
+        info.put("title", infoNode.path("name").asText("API"));
+        info.put("description", infoNode.path("description").asText(null));
         info.put("version", "1.0.0");
         openApi.put("info", info);
 
+        // Extract baseUrl from collection variables if available
+        String baseUrl = extractBaseUrl(variables);
         if (baseUrl != null) {
             Map<String, Object> server = new LinkedHashMap<>();
             server.put("url", baseUrl);
             openApi.put("servers", List.of(server));
         }
+        return openApi;
+    }
 
-        // Collect all requests recursively (preserving folder as tags)
-        List<RequestEntry> requests = new ArrayList<>();
-        collectRequests(root.path("item"), null, requests);
+    // ── Parts of a merged document ────────────────────────────────────────────
 
-        // Build paths
-        Map<String, Object> paths = new LinkedHashMap<>();
-        for (RequestEntry entry : requests) {
-            processRequest(entry, paths);
-        }
+    /**
+     * One collection as a part of a document merged from several: its server and its
+     * paths, built as for {@link #convert} with path templates inferred within the
+     * collection, before schemas are lifted. Operations come from the shared interner,
+     * so a schema or parameter that recurs across collections is one node. Also
+     * counts the YAML tokens of the collection's own document, to compare against.
+     * Safe to call for several collections at once.
+     */
+    public CollectionPart buildPart(JsonNode root) {
+        Map<String, Object> openApi = buildSpecHeader(root.path("info"), root.path("variable"));
+        Map<String, Object> paths = buildPaths(root, StageTimer.none(), this::buildOperation);
         openApi.put("paths", paths.isEmpty() ? Map.of("/", Map.of()) : paths);
+        int tokens = yamlTokens(deduplicator.deduplicate(openApi, this::yamlTokens).openApi());
+        int operations = 0;
+        for (Object item : paths.values()) operations += ((Map<?, ?>) item).size();
+        return new CollectionPart(root.path("info").path("name").asText("API"),
+                extractBaseUrl(root.path("variable")), paths, operations, tokens);
+    }
 
-        // Serialize
-        String swaggerYaml = yamlMapper.writeValueAsString(openApi);
-        String prettyPostman = jsonMapper.writerWithDefaultPrettyPrinter()
-                .writeValueAsString(jsonMapper.readTree(postmanJson));
+    /** Lifts repeated schemas out of a document assembled from parts and writes it as YAML. */
+    public AssembledSpec assemble(Map<String, Object> openApi) {
+        SchemaDeduplicator.Result spec = deduplicator.deduplicate(openApi, this::yamlTokens);
+        String yaml = toYaml(spec.openApi());
+        return new AssembledSpec(yaml, tokenizer.countTokens(yaml), spec.liftedSchemas(), spec.tokenSavings());
+    }
+
+    /**
+     * @param server        the collection's {@code baseUrl} variable, or null
+     * @param paths         path → method → operation
+     * @param swaggerTokens YAML tokens of the collection's own document
+     */
+    public record CollectionPart(String collectionName, String server, Map<String, Object> paths,
+                                 int operationCount, int swaggerTokens) {}
+
+    public record AssembledSpec(String yaml, int swaggerTokens, int liftedSchemas, int dedupTokenSavings) {}
+
+    // ── Stream in, stream out ─────────────────────────────────────────────────
+
+    /**
+     * Parses a collection straight from {@code in} and builds its OpenAPI document,
+     * without ever holding the input as a String. The Postman token count is taken
+     * here from the parsed tree; the document is written later with {@link #write}.
+     */
+    public PreparedSpec prepare(InputStream in) throws IOException {
+        return prepare(in, ConversionOptions.defaults());
+    }
+
+    /**
+     * As {@link #prepare(InputStream)}, trimming the document to the options' token
+     * budget. The budget is measured on the YAML form whichever format is written.
+     */
+    public PreparedSpec prepare(InputStream in, ConversionOptions options) throws IOException {
+        StageTimer timer = metrics.start(ConversionMetrics.API);
+        JsonNode root;
+        long inputBytes;
+        try (JsonParser p = jsonMapper.createParser(in)) {
+            root = jsonMapper.readTree(p);
+            inputBytes = p.currentLocation().getByteOffset();
+        }
+        if (root == null || !root.isObject()) {
+            throw new JsonParseException(null, "Expected a Postman collection object");
+        }
+        timer.lap("parse");
+
+        SchemaDeduplicator.Result spec = buildSpec(root, timer, this::buildOperation);
+        Map<String, Object> openApi = spec.openApi();
+        Budgeted budgeted = null;
+        if (options.hasTokenBudget()) {
+            budgeted = fitToBudget(openApi, toYaml(openApi), options.getMaxTokens());
+            openApi = budgeted.openApi();
+            timer.lap("trim");
+        }
+
+        TokenCounter postmanTokens = tokenizer.newCounter();
+        jsonMapper.writerWithDefaultPrettyPrinter().writeValue(postmanTokens, root);
+        timer.lap("pretty");
+
+        return new PreparedSpec(root.path("info").path("name").asText("API"), timer.requestCount(),
+                postmanTokens.tokens(), openApi, timer, inputBytes,
+                budgeted != null ? budgeted.tokens() : -1,
+                budgeted != null ? List.copyOf(budgeted.trims().keySet()) : List.of());
+    }
+
+    /** Writes a prepared document to {@code out} in {@code format}, leaving the stream open. */
+    public void write(PreparedSpec spec, OutputFormat format, OutputStream out) throws IOException {
+        write(spec, format, out, null);
+    }
+
+    /** As {@link #write(PreparedSpec, OutputFormat, OutputStream)}, returning the tokens of what was written. */
+    public int writeCounted(PreparedSpec spec, OutputFormat format, OutputStream out) throws IOException {
+        TokenCounter tokens = tokenizer.newCounter();
+        write(spec, format, out, tokens);
+        tokens.close();
+        return tokens.tokens();
+    }
+
+    private void write(PreparedSpec spec, OutputFormat format, OutputStream out, TokenCounter tokens)
+            throws IOException {
+        ByteCountingStream counted = new ByteCountingStream(out);
+        Writer writer = new OutputStreamWriter(counted, StandardCharsets.UTF_8);
+        if (tokens != null) writer = new CountingWriter(writer, tokens);
+        format.write(spec.openApi, writer);
+        writer.flush();
+        spec.timer.lap("write");
+        metrics.recordConversion(spec.timer, "off", spec.inputBytes, counted.count());
+    }
+
+    /** A built document waiting to be written; see {@link #prepare}. */
+    public static final class PreparedSpec {
+        private final String collectionName;
+        private final int requestCount;
+        private final int postmanTokens;
+        private final Map<String, Object> openApi;
+        private final StageTimer timer;
+        private final long inputBytes;
+        private final int swaggerTokens;
+        private final List<String> budgetTrims;
+
+        private PreparedSpec(String collectionName, int requestCount, int postmanTokens,
+                             Map<String, Object> openApi, StageTimer timer, long inputBytes,
+                             int swaggerTokens, List<String> budgetTrims) {
+            this.collectionName = collectionName;
+            this.requestCount = requestCount;
+            this.postmanTokens = postmanTokens;
+            this.openApi = openApi;
+            this.timer = timer;
+            this.inputBytes = inputBytes;
+            this.swaggerTokens = swaggerTokens;
+            this.budgetTrims = budgetTrims;
+        }
+
+        public String collectionName() {
+            return collectionName;
+        }
+
+        public int requestCount() {
+            return requestCount;
+        }
+
+        public int postmanTokens() {
+            return postmanTokens;
+        }
+
+        /** YAML token count after trimming; only counted when a token budget was given, else -1. */
+        public int swaggerTokens() {
+            return swaggerTokens;
+        }
+
+        /** Trimming steps that changed the document, e.g. "descriptions"; empty without a budget. */
+        public List<String> budgetTrims() {
+            return budgetTrims;
+        }
+    }
+
+    // ── Streaming conversion ──────────────────────────────────────────────────
+
+    /**
+     * Converts a collection without holding it as a String or a full tree, writing the
+     * YAML to {@code out} as operations are produced. The source is read three times:
+     * a scan pass records info, variables, folder names, path templates and the
+     * path/method layout; a write pass builds each operation and emits it once its
+     * slot in {@code paths} is open; a final pass pretty-prints the input into a
+     * counter for the token estimate. Peak memory is bounded by the largest request
+     * item plus the operations that arrive ahead of their slot, which only happens
+     * when a path/method is repeated verbatim further down the collection.
+     * <p>
+     * Output matches {@link #convert(String)} for the same collection with two
+     * exceptions: repeated schemas stay inline, since lifting them needs every
+     * operation in hand; and when several concrete URLs fall into one path template
+     * (e.g. {@code /users/1} … {@code /users/999}), the template's operation is built
+     * from the first URL's request item alone, where the tree converter folds in the
+     * parameters and responses of the others. Waiting for them would hold back every
+     * operation written after the first one until the last arrives; the summary counts
+     * the request items left out this way.
+     */
+    public StreamingConversionSummary convertStreaming(InputStreamSource source, OutputStream out) throws IOException {
+        return convertStreaming(source, out, SpecFormat.YAML);
+    }
+
+    public StreamingConversionSummary convertStreaming(InputStreamSource source, OutputStream out,
+                                                       SpecFormat format) throws IOException {
+        return convertStreaming(source, out, format, Progress.NONE);
+    }
+
+    /** As above, reporting the request count after the scan and each request item as it is converted. */
+    public StreamingConversionSummary convertStreaming(InputStreamSource source, OutputStream out,
+                                                       SpecFormat format, Progress progress) throws IOException {
+        StageTimer timer = metrics.start(ConversionMetrics.STREAM);
+        CollectionLayout layout = scanLayout(source);
+        timer.requestCount(layout.requestCount());
+        timer.lap("scan");
+        progress.started(layout.requestCount());
+        String collectionName = layout.info().path("name").asText("API");
+        Map<String, Object> header = buildSpecHeader(layout.info(), layout.variables());
+
+        TokenCounter swaggerTokens = tokenizer.newCounter();
+        ByteCountingStream yamlBytes = new ByteCountingStream(out);
+        CountingWriter yamlOut = new CountingWriter(new OutputStreamWriter(yamlBytes, StandardCharsets.UTF_8), swaggerTokens);
+        int operations = 0;
+        ObjectMapper generatorMapper = format == SpecFormat.JSON ? specJsonMapper : yamlMapper;
+        try (JsonGenerator gen = generatorMapper.createGenerator(yamlOut)) {
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            if (layout.requestCount() == 0) {
+                header.put("paths", Map.of("/", Map.of()));
+                yamlMapper.writeValue(gen, header);
+            } else {
+                gen.writeStartObject();
+                for (Map.Entry<String, Object> e : header.entrySet()) {
+                    gen.writeFieldName(e.getKey());
+                    yamlMapper.writeValue(gen, e.getValue());
+                }
+                gen.writeFieldName("paths");
+                gen.writeStartObject();
+                PathStreamWriter paths = new PathStreamWriter(gen, layout);
+                try (InputStream in = source.getInputStream(); JsonParser p = jsonMapper.createParser(in)) {
+                    new ItemWalker(true, (item, folder) -> {
+                        paths.accept(buildOperation(new RequestEntry(item, layout.tag(folder),
+                                operationPath(item.path("request"))).templated(layout.templates())));
+                        progress.processed(paths.accepted());
+                    }).walkCollection(p);
+                }
+                operations = paths.written();
+                gen.writeEndObject();
+                gen.writeEndObject();
+            }
+        }
+        yamlOut.flush();
+        swaggerTokens.close();
+        timer.lap("write");
+
+        TokenCounter postmanTokens = tokenizer.newCounter();
+        long postmanChars = countPretty(source, postmanTokens);
+        timer.lap("pretty");
+        metrics.recordConversion(timer, "off", layout.inputBytes(), yamlBytes.count());
+        return StreamingConversionSummary.builder()
+                .collectionName(collectionName)
+                .operationCount(operations)
+                .uncollapsedRequests(layout.uncollapsed())
+                .postmanChars(postmanChars)
+                .swaggerChars(yamlOut.count())
+                .postmanTokens(postmanTokens.tokens())
+                .swaggerTokens(swaggerTokens.tokens())
+                .tokenizer(tokenizer.name())
+                .build();
+    }
+
+    /**
+     * Progress of a streaming conversion, reported on the converting thread. A callback
+     * may throw to abandon the conversion.
+     */
+    public interface Progress {
+        Progress NONE = new Progress() {};
+
+        /** The scan pass found {@code requests} request items. */
+        default void started(int requests) {}
+
+        /** {@code done} request items have been converted so far. */
+        default void processed(int done) {}
+    }
+
+    /**
+     * First pass: everything needed to emit paths in the same order as the tree
+     * converter. Templates need every path, so each request's path and method are
+     * kept (as shared strings) until they are known.
+     */
+    private CollectionLayout scanLayout(InputStreamSource source) throws IOException {
+        Map<String, String> distinct = new LinkedHashMap<>();
+        List<String> paths = new ArrayList<>();
+        List<String> methods = new ArrayList<>();
+        ItemWalker walker = new ItemWalker(false, (item, folder) -> {
+            JsonNode request = item.path("request");
+            paths.add(distinct.computeIfAbsent(operationPath(request), k -> k));
+            methods.add(distinct.computeIfAbsent(operationMethod(request), k -> k));
+        });
+        long inputBytes;
+        try (InputStream in = source.getInputStream(); JsonParser p = jsonMapper.createParser(in)) {
+            walker.walkCollection(p);
+            inputBytes = p.currentLocation().getByteOffset();
+        }
+
+        Map<String, String> templates = pathTemplates.infer(new LinkedHashSet<>(paths));
+        // A verbatim repeat takes over its slot, as in the tree converter; a different URL
+        // merged into the same template does not (see convertStreaming)
+        Map<String, Map<String, Integer>> pathMethods = new LinkedHashMap<>();
+        int uncollapsed = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
+            Map<String, Integer> slots =
+                    pathMethods.computeIfAbsent(templates.getOrDefault(path, path), k -> new LinkedHashMap<>());
+            Integer claimed = slots.get(methods.get(i));
+            if (claimed == null || paths.get(claimed).equals(path)) slots.put(methods.get(i), i);
+            else uncollapsed++;
+        }
+
+        // Folders without a name inherit the enclosing tag, as in collectRequests
+        List<String> tags = new ArrayList<>(walker.folderNames.size());
+        for (int i = 0; i < walker.folderNames.size(); i++) {
+            String name = walker.folderNames.get(i);
+            int parent = walker.folderParents.get(i);
+            tags.add(name != null ? name : parent >= 0 ? tags.get(parent) : null);
+        }
+        return new CollectionLayout(walker.info, walker.variables, pathMethods, templates, tags, paths.size(),
+                uncollapsed, inputBytes);
+    }
+
+    private long countPretty(InputStreamSource source, TokenCounter tokens) throws IOException {
+        CountingWriter counter = new CountingWriter(Writer.nullWriter(), tokens);
+        try (InputStream in = source.getInputStream();
+             JsonParser p = jsonMapper.createParser(in);
+             JsonGenerator g = jsonMapper.createGenerator(counter)) {
+            g.useDefaultPrettyPrinter();
+            if (p.nextToken() != null) g.copyCurrentStructure(p);
+        }
+        tokens.close();
+        return counter.count();
+    }
+
+    private interface RequestVisitor {
+        void request(JsonNode item, int folder) throws IOException;
+    }
+
+    /**
+     * Walks a collection token by token. Request items are read as small trees; folder
+     * {@code item} arrays are descended into without buffering the folder itself.
+     * Folders get ordinals in document order so both passes agree on them. An item with
+     * an {@code item} array is a folder whether or not it also has a {@code request},
+     * and wherever the two fields fall, as in {@link #collectRequests}.
+     */
+    private final class ItemWalker {
+        private final boolean fullItems;
+        private final RequestVisitor visitor;
+        private final List<String> folderNames = new ArrayList<>();
+        private final List<Integer> folderParents = new ArrayList<>();
+        private JsonNode info = jsonMapper.missingNode();
+        private JsonNode variables = jsonMapper.missingNode();
+
+        ItemWalker(boolean fullItems, RequestVisitor visitor) {
+            this.fullItems = fullItems;
+            this.visitor = visitor;
+        }
+
+        void walkCollection(JsonParser p) throws IOException {
+            if (p.nextToken() != JsonToken.START_OBJECT) return;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                switch (field) {
+                    case "info" -> info = jsonMapper.readTree(p);
+                    case "variable" -> variables = jsonMapper.readTree(p);
+                    case "item" -> {
+                        if (value == JsonToken.START_ARRAY) walkItems(p, -1);
+                        else p.skipChildren();
+                    }
+                    default -> p.skipChildren();
+                }
+            }
+        }
+
+        private void walkItems(JsonParser p, int parent) throws IOException {
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                if (p.currentToken() == JsonToken.START_OBJECT) walkItem(p, parent);
+                else p.skipChildren();
+            }
+        }
+
+        private void walkItem(JsonParser p, int parent) throws IOException {
+            ObjectNode item = jsonMapper.createObjectNode();
+            int folder = -1;
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                String field = p.currentName();
+                JsonToken value = p.nextToken();
+                if ("item".equals(field) && value == JsonToken.START_ARRAY) {
+                    folder = folderNames.size();
+                    folderNames.add(null);
+                    folderParents.add(parent);
+                    walkItems(p, folder);
+                } else if (fullItems || "request".equals(field) || "name".equals(field)) {
+                    item.set(field, jsonMapper.readTree(p));
+                } else {
+                    p.skipChildren();
+                }
+            }
+            if (folder >= 0) {
+                folderNames.set(folder, item.path("name").asText(null));
+            } else if (item.has("request")) {
+                visitor.request(item, parent);
+            }
+        }
+    }
+
+    /**
+     * Emits operations into an open {@code paths} object in first-occurrence order.
+     * Each path/method slot is filled by the request item the layout chose for it;
+     * other definitions are dropped and early arrivals wait in {@code pending} until
+     * their slot comes up.
+     */
+    private final class PathStreamWriter {
+        private final JsonGenerator gen;
+        private final Iterator<Map.Entry<String, Map<String, Integer>>> pathOrder;
+        private final Map<String, Map<String, Integer>> pathMethods;
+        private final Map<Integer, BuiltOperation> pending = new HashMap<>();
+        private Iterator<Integer> slots = Collections.emptyIterator();
+        private int nextSlot = -1;
+        private int ordinal;
+        private int written;
+
+        PathStreamWriter(JsonGenerator gen, CollectionLayout layout) throws IOException {
+            this.gen = gen;
+            this.pathMethods = layout.pathMethods();
+            this.pathOrder = pathMethods.entrySet().iterator();
+            advance();
+        }
+
+        void accept(BuiltOperation op) throws IOException {
+            int current = ordinal++;
+            if (pathMethods.get(op.path()).get(op.method()) != current) return;
+            pending.put(current, op);
+            while (nextSlot >= 0 && pending.containsKey(nextSlot)) {
+                BuiltOperation ready = pending.remove(nextSlot);
+                gen.writeFieldName(ready.method());
+                yamlMapper.writeValue(gen, ready.operation());
+                written++;
+                advance();
+            }
+        }
+
+        int written() {
+            return written;
+        }
+
+        /** Request items seen so far, including superseded ones. */
+        int accepted() {
+            return ordinal;
+        }
+
+        private void advance() throws IOException {
+            if (slots.hasNext()) {
+                nextSlot = slots.next();
+                return;
+            }
+            if (nextSlot >= 0) gen.writeEndObject();
+            if (!pathOrder.hasNext()) {
+                nextSlot = -1;
+                return;
+            }
+            Map.Entry<String, Map<String, Integer>> next = pathOrder.next();
+            gen.writeFieldName(next.getKey());
+            gen.writeStartObject();
+            slots = next.getValue().values().iterator();
+            nextSlot = slots.next();
+        }
+    }
+
+    /** Counts characters passing through and copies them into a token counter. */
+    private static final class CountingWriter extends FilterWriter {
+        private final TokenCounter tokens;
+        private long count;
 
-        int postmanTokens = estimateTokens(prettyPostman);
-        int swaggerTokens = estimateTokens(swaggerYaml);
+        CountingWriter(Writer out, TokenCounter tokens) {
+            super(out);
+            this.tokens = tokens;
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            out.write(c);
+            tokens.write(c);
+            count++;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            out.write(cbuf, off, len);
+            tokens.write(cbuf, off, len);
+            count += len;
+        }
 
-        return ConversionResult.of(collectionName, prettyPostman, swaggerYaml, postmanTokens, swaggerTokens);
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            out.write(str, off, len);
+            tokens.write(str, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+
+    private static final class ByteCountingStream extends FilterOutputStream {
+        private long count;
+
+        ByteCountingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long count() {
+            return count;
+        }
     }
 
     // ── Recursive request collector ──────────────────────────────────────────
@@ -84,37 +998,63 @@ public class PostmanToSwaggerService {
     private void collectRequests(JsonNode items, String tag, List<RequestEntry> out) {
         if (items == null || !items.isArray()) return;
         for (JsonNode item : items) {
-            if (item.has("request")) {
-                out.add(new RequestEntry(item, tag));
-            } else if (item.has("item")) {
+            // An item array makes a folder even next to a request, which the streaming
+            // walker could not honour without buffering the folder
+            if (item.path("item").isArray()) {
                 // Folder — use folder name as tag
                 String folderTag = item.path("name").asText(tag);
                 collectRequests(item.path("item"), folderTag, out);
+            } else if (item.has("request")) {
+                out.add(new RequestEntry(item, tag, operationPath(item.path("request"))));
             }
         }
     }
 
     // ── Request → OpenAPI operation ──────────────────────────────────────────
 
-    private void processRequest(RequestEntry entry, Map<String, Object> paths) {
+    /**
+     * Builds every operation, on the common fork-join pool once the collection reaches
+     * {@code converter.parallel.threshold} requests. Operations only read their own
+     * item, and the results come back in request order, so {@code paths} is filled
+     * exactly as the sequential loop would fill it.
+     */
+    private List<BuiltOperation> buildOperations(List<RequestEntry> requests,
+                                                 Function<RequestEntry, BuiltOperation> builder) {
+        if (parallelThreshold > 0 && requests.size() >= parallelThreshold) {
+            return requests.parallelStream().map(builder).toList();
+        }
+        List<BuiltOperation> ops = new ArrayList<>(requests.size());
+        for (RequestEntry entry : requests) {
+            ops.add(builder.apply(entry));
+        }
+        return ops;
+    }
+
+    private void addOperation(BuiltOperation op, Map<String, Object> paths) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> pathItem = (Map<String, Object>) paths.computeIfAbsent(op.path(), k -> new LinkedHashMap<>());
+        pathItem.put(op.method(), op.operation());
+    }
+
+    /**
+     * The operation of one request item as {@link SpecNode}s. Parameters, bodies and
+     * responses are interned, so the schemas and parameters that recur across a
+     * collection are held once.
+     */
+    private BuiltOperation buildOperation(RequestEntry entry) {
         JsonNode item = entry.item();
         JsonNode request = item.path("request");
 
         String name = item.path("name").asText("Unknown");
-        String method = request.path("method").asText("GET").toLowerCase();
-
-        String rawUrl = extractRawUrl(request.path("url"));
-        String path = normalizePath(rawUrl);
-
-        @SuppressWarnings("unchecked")
-        Map<String, Object> pathItem = (Map<String, Object>) paths.computeIfAbsent(path, k -> new LinkedHashMap<>());
+        String method = operationMethod(request);
+        String path = entry.path();
 
-        Map<String, Object> operation = new LinkedHashMap<>();
+        SpecNode.Builder operation = SpecNode.builder();
         operation.put("summary", name);
         if (entry.tag() != null) {
-            operation.put("tags", List.of(entry.tag()));
+            operation.put("tags", interner.intern(List.of(entry.tag())));
         }
-        operation.put("operationId", toOperationId(method, path, name));
+        operation.put("operationId", PathTemplateTrie.operationId(method, path, name));
 
         String desc = request.path("description").asText(null);
         if (desc != null && !desc.isBlank()) {
@@ -122,76 +1062,91 @@ public class PostmanToSwaggerService {
         }
 
         // Parameters
-        List<Map<String, Object>> parameters = new ArrayList<>();
+        List<SpecNode> parameters = new ArrayList<>();
         addPathParams(path, parameters);
         addQueryParams(request.path("url"), parameters);
         addHeaderParams(request, parameters);
-        if (!parameters.isEmpty()) operation.put("parameters", parameters);
+        if (!entry.collapsed().isEmpty()) {
+            for (JsonNode other : entry.collapsed()) {
+                addQueryParams(other.path("request").path("url"), parameters);
+                addHeaderParams(other.path("request"), parameters);
+            }
+            parameters = distinctParameters(parameters);
+        }
+        if (!parameters.isEmpty()) operation.put("parameters", interner.intern(parameters));
 
         // Request body
-        Map<String, Object> requestBody = buildRequestBody(request);
-        if (requestBody != null) operation.put("requestBody", requestBody);
+        SpecNode requestBody = buildRequestBody(request);
+        if (requestBody != null) operation.put("requestBody", interner.intern(requestBody));
 
         // Responses
-        operation.put("responses", buildResponses(item));
+        operation.put("responses", interner.intern(buildResponses(item, entry.collapsed())));
+
+        return new BuiltOperation(path, method, operation.build());
+    }
 
-        pathItem.put(method, operation);
+    private String operationMethod(JsonNode request) {
+        return request.path("method").asText("GET").toLowerCase();
+    }
+
+    private String operationPath(JsonNode request) {
+        return normalizePath(extractRawUrl(request.path("url")));
     }
 
     // ── Parameter builders ────────────────────────────────────────────────────
 
-    private void addPathParams(String path, List<Map<String, Object>> out) {
+    private void addPathParams(String path, List<SpecNode> out) {
         Matcher m = PATH_PARAM_PATTERN.matcher(path);
         while (m.find()) {
-            Map<String, Object> p = new LinkedHashMap<>();
-            p.put("name", m.group(1));
-            p.put("in", "path");
-            p.put("required", true);
-            p.put("schema", Map.of("type", "string"));
-            out.add(p);
+            out.add(SpecNode.of("name", m.group(1), "in", "path", "required", true, "schema", STRING_SCHEMA));
         }
     }
 
-    private void addQueryParams(JsonNode url, List<Map<String, Object>> out) {
+    private void addQueryParams(JsonNode url, List<SpecNode> out) {
         if (!url.has("query")) return;
         for (JsonNode q : url.path("query")) {
             if (q.path("disabled").asBoolean(false)) continue;
             String key = q.path("key").asText("");
             if (key.isBlank()) continue;
-            Map<String, Object> p = new LinkedHashMap<>();
+            SpecNode.Builder p = SpecNode.builder();
             p.put("name", key);
             p.put("in", "query");
             p.put("required", false);
             String d = q.path("description").asText(null);
             if (d != null && !d.isBlank()) p.put("description", d);
-            p.put("schema", Map.of("type", "string"));
-            out.add(p);
+            p.put("schema", STRING_SCHEMA);
+            out.add(p.build());
         }
     }
 
-    private void addHeaderParams(JsonNode request, List<Map<String, Object>> out) {
+    private void addHeaderParams(JsonNode request, List<SpecNode> out) {
         if (!request.has("header")) return;
         for (JsonNode h : request.path("header")) {
             if (h.path("disabled").asBoolean(false)) continue;
             String key = h.path("key").asText("");
             if (key.isBlank() || SKIP_HEADERS.contains(key.toLowerCase())) continue;
-            Map<String, Object> p = new LinkedHashMap<>();
-            p.put("name", key);
-            p.put("in", "header");
-            p.put("required", false);
-            p.put("schema", Map.of("type", "string"));
-            out.add(p);
+            out.add(SpecNode.of("name", key, "in", "header", "required", false, "schema", STRING_SCHEMA));
         }
     }
 
+    /** The first parameter of each name and location. */
+    private static List<SpecNode> distinctParameters(List<SpecNode> parameters) {
+        Set<String> seen = new HashSet<>();
+        List<SpecNode> out = new ArrayList<>(parameters.size());
+        for (SpecNode p : parameters) {
+            if (seen.add(p.get("in") + " " + p.get("name"))) out.add(p);
+        }
+        return out;
+    }
+
     // ── Request body ──────────────────────────────────────────────────────────
 
-    private Map<String, Object> buildRequestBody(JsonNode request) {
+    private SpecNode buildRequestBody(JsonNode request) {
         JsonNode body = request.path("body");
         if (body.isMissingNode() || body.isEmpty()) return null;
 
         String mode = body.path("mode").asText("");
-        Map<String, Object> content = new LinkedHashMap<>();
+        SpecNode content;
 
         switch (mode) {
             case "raw" -> {
@@ -199,125 +1154,84 @@ public class PostmanToSwaggerService {
                 String lang = body.path("options").path("raw").path("language").asText("json");
                 String ct = detectContentType(request, raw, lang);
 
-                Map<String, Object> mediaType = new LinkedHashMap<>();
-                if (ct.contains("json")) {
-                    Map<String, Object> schema = buildSchemaFromJson(raw);
-                    if (schema != null) mediaType.put("schema", schema);
-                }
-                content.put(ct, mediaType);
-            }
-            case "formdata" -> {
-                Map<String, Object> mediaType = new LinkedHashMap<>();
-                mediaType.put("schema", buildFormSchema(body.path("formdata")));
-                content.put("multipart/form-data", mediaType);
-            }
-            case "urlencoded" -> {
-                Map<String, Object> mediaType = new LinkedHashMap<>();
-                mediaType.put("schema", buildFormSchema(body.path("urlencoded")));
-                content.put("application/x-www-form-urlencoded", mediaType);
-            }
-            case "graphql" -> {
-                Map<String, Object> mediaType = new LinkedHashMap<>();
-                mediaType.put("schema", Map.of("type", "object",
-                        "properties", Map.of(
-                                "query", Map.of("type", "string"),
-                                "variables", Map.of("type", "object"))));
-                content.put("application/json", mediaType);
+                Map<String, Object> schema = ct.contains("json") ? buildSchemaFromJson(raw) : null;
+                content = SpecNode.of(ct, schema != null ? SpecNode.of("schema", schema) : SpecNode.EMPTY);
             }
+            case "formdata" -> content = SpecNode.of("multipart/form-data",
+                    SpecNode.of("schema", buildFormSchema(body.path("formdata"))));
+            case "urlencoded" -> content = SpecNode.of("application/x-www-form-urlencoded",
+                    SpecNode.of("schema", buildFormSchema(body.path("urlencoded"))));
+            case "graphql" -> content = SpecNode.of("application/json", SpecNode.of("schema", GRAPHQL_SCHEMA));
             default -> {
                 return null;
             }
         }
 
-        Map<String, Object> rb = new LinkedHashMap<>();
-        rb.put("required", true);
-        rb.put("content", content);
-        return rb;
+        return SpecNode.of("required", true, "content", content);
     }
 
-    private Map<String, Object> buildFormSchema(JsonNode fields) {
-        Map<String, Object> schema = new LinkedHashMap<>();
-        schema.put("type", "object");
-        Map<String, Object> properties = new LinkedHashMap<>();
+    private SpecNode buildFormSchema(JsonNode fields) {
+        SpecNode.Builder properties = SpecNode.builder();
         if (fields.isArray()) {
             for (JsonNode f : fields) {
                 if (f.path("disabled").asBoolean(false)) continue;
                 String key = f.path("key").asText("");
                 if (key.isBlank()) continue;
-                String fType = "file".equals(f.path("type").asText("text")) ? "string" : "string";
-                Map<String, Object> prop = new LinkedHashMap<>();
-                prop.put("type", fType);
-                if ("file".equals(f.path("type").asText())) prop.put("format", "binary");
-                properties.put(key, prop);
+                properties.put(key, "file".equals(f.path("type").asText())
+                        ? SpecNode.of("type", "string", "format", "binary") : STRING_SCHEMA);
             }
         }
-        if (!properties.isEmpty()) schema.put("properties", properties);
-        return schema;
+        SpecNode.Builder schema = SpecNode.builder().put("type", "object");
+        if (!properties.isEmpty()) schema.put("properties", properties.build());
+        return schema.build();
     }
 
     // ── Responses ─────────────────────────────────────────────────────────────
 
-    private Map<String, Object> buildResponses(JsonNode item) {
-        Map<String, Object> responses = new LinkedHashMap<>();
-        JsonNode examples = item.path("response");
+    /**
+     * One response per status code. All saved examples with the same code are merged
+     * into one body schema, the item's own first and then those of {@code collapsed};
+     * the first example's name becomes the description.
+     */
+    private SpecNode buildResponses(JsonNode item, List<JsonNode> collapsed) {
+        List<JsonNode> examples = new ArrayList<>();
+        item.path("response").forEach(examples::add);
+        for (JsonNode other : collapsed) other.path("response").forEach(examples::add);
 
-        if (examples.isArray() && !examples.isEmpty()) {
+        if (!examples.isEmpty()) {
+            SpecNode.Builder responses = SpecNode.builder();
+            Map<String, String> descriptions = new LinkedHashMap<>();
+            Map<String, SchemaMerger.Merge> bodies = new HashMap<>();
             for (JsonNode resp : examples) {
                 String code = String.valueOf(resp.path("code").asInt(200));
-                String name = resp.path("name").asText("Response");
-                Map<String, Object> response = new LinkedHashMap<>();
-                response.put("description", name);
-
-                // Try to add response body schema from example
+                descriptions.putIfAbsent(code, resp.path("name").asText("Response"));
                 String body = resp.path("body").asText("");
-                if (!body.isBlank() && body.trim().startsWith("{")) {
-                    Map<String, Object> schema = buildSchemaFromJson(body);
-                    if (schema != null) {
-                        Map<String, Object> content = new LinkedHashMap<>();
-                        content.put("application/json", Map.of("schema", schema));
-                        response.put("content", content);
-                    }
-                }
-                responses.put(code, response);
+                if (looksLikeJson(body)) bodies.computeIfAbsent(code, c -> schemaMerger.start()).add(body);
             }
-        } else {
-            responses.put("200", Map.of("description", "Successful response"));
+            descriptions.forEach((code, name) -> {
+                SchemaMerger.Merge merge = bodies.get(code);
+                Map<String, Object> schema = merge != null ? merge.schema() : null;
+                responses.put(code, schema == null ? SpecNode.of("description", name) : SpecNode.of(
+                        "description", name,
+                        "content", SpecNode.of("application/json", SpecNode.of("schema", schema))));
+            });
+            return responses.build();
+        }
+        return DEFAULT_RESPONSES;
+    }
+
+    private static boolean looksLikeJson(String body) {
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (!Character.isWhitespace(c)) return c == '{' || c == '[';
         }
-        return responses;
+        return false;
     }
 
     // ── Schema inference ──────────────────────────────────────────────────────
 
-    private Map<String, Object> buildSchemaFromJson(String json) {
-        if (json == null || json.isBlank()) return null;
-        try {
-            JsonNode node = jsonMapper.readTree(json);
-            return inferSchema(node);
-        } catch (Exception e) {
-            return null;
-        }
-    }
-
-    private Map<String, Object> inferSchema(JsonNode node) {
-        Map<String, Object> schema = new LinkedHashMap<>();
-        if (node.isObject()) {
-            schema.put("type", "object");
-            Map<String, Object> props = new LinkedHashMap<>();
-            node.fields().forEachRemaining(e -> props.put(e.getKey(), inferSchema(e.getValue())));
-            if (!props.isEmpty()) schema.put("properties", props);
-        } else if (node.isArray()) {
-            schema.put("type", "array");
-            schema.put("items", node.isEmpty() ? Map.of("type", "object") : inferSchema(node.get(0)));
-        } else if (node.isBoolean()) {
-            schema.put("type", "boolean");
-        } else if (node.isIntegralNumber()) {
-            schema.put("type", "integer");
-        } else if (node.isFloatingPointNumber()) {
-            schema.put("type", "number");
-        } else {
-            schema.put("type", "string");
-        }
-        return schema;
+    Map<String, Object> buildSchemaFromJson(String json) {
+        return schemaMerger.infer(json);
     }
 
     // ── URL & path helpers ────────────────────────────────────────────────────
@@ -327,30 +1241,11 @@ public class PostmanToSwaggerService {
         return url.path("raw").asText("/unknown");
     }
 
-    private String normalizePath(String rawUrl) {
-        String path = rawUrl;
-        // Remove {{baseUrl}} or similar Postman variables at the start
-        path = path.replaceAll("^\\{\\{[^}]+\\}\\}", "");
-        // Remove protocol://host:port
-        path = path.replaceAll("^https?://[^/]*", "");
-        // Remove query string and fragment
-        int q = path.indexOf('?');
-        if (q >= 0) path = path.substring(0, q);
-        int f = path.indexOf('#');
-        if (f >= 0) path = path.substring(0, f);
-        // Convert :param path segments to {param}
-        path = path.replaceAll("/:([a-zA-Z_][a-zA-Z0-9_]*)", "/{$1}");
-        // Inline {{variable}} → {variable}
-        path = path.replaceAll("\\{\\{([^}]+)\\}\\}", "{$1}");
-        // Ensure leading slash
-        if (!path.startsWith("/")) path = "/" + path;
-        // Collapse multiple slashes
-        path = path.replaceAll("/+", "/");
-        return path.isBlank() ? "/" : path;
-    }
-
-    private String extractBaseUrl(JsonNode root) {
-        JsonNode variables = root.path("variable");
+    String normalizePath(String rawUrl) {
+        return PathTemplateTrie.normalizePath(rawUrl);
+    }
+
+    private String extractBaseUrl(JsonNode variables) {
         if (variables.isArray()) {
             for (JsonNode v : variables) {
                 String key = v.path("key").asText("");
@@ -380,27 +1275,45 @@ public class PostmanToSwaggerService {
         };
     }
 
-    private String toOperationId(String method, String path, String name) {
-        String clean = name.toLowerCase()
-                .replaceAll("[^a-z0-9\\s]", " ")
-                .trim()
-                .replaceAll("\\s+", "_");
-        return clean.isBlank() ? method + path.replace("/", "_").replaceAll("[^a-z0-9_]", "") : clean;
-    }
-
-    // ── Token estimation ──────────────────────────────────────────────────────
+    // ── Inner types ───────────────────────────────────────────────────────────
 
     /**
-     * Approximates Claude/GPT BPE token count.
-     * Rule of thumb: ~4 characters per token for mixed text/code content.
-     * Structured formats (JSON/YAML) skew slightly higher due to punctuation tokens,
-     * so we use 3.5 chars/token for a more realistic estimate.
+     * @param path      the normalized path, or its template once templates are inferred
+     * @param collapsed request items of other URLs in the same template and method,
+     *                  whose parameters and saved responses are folded into this one's
      */
-    private int estimateTokens(String text) {
-        return Math.max(1, (int) Math.ceil(text.length() / 3.5));
+    private record RequestEntry(JsonNode item, String tag, String path, List<JsonNode> collapsed) {
+        RequestEntry(JsonNode item, String tag, String path) {
+            this(item, tag, path, List.of());
+        }
+
+        RequestEntry templated(Map<String, String> templates) {
+            String template = templates.get(path);
+            return template == null ? this : new RequestEntry(item, tag, template);
+        }
     }
 
-    // ── Inner record ──────────────────────────────────────────────────────────
+    /** A document after budget trimming; {@code trims} maps each step to the parts it changed. */
+    private record Budgeted(Map<String, Object> openApi, String yaml, int tokens,
+                            Map<String, Integer> trims, List<String> droppedTags) {
 
-    private record RequestEntry(JsonNode item, String tag) {}
+        List<String> describeTrims() {
+            return trims.entrySet().stream().map(e -> e.getKey() + " (" + e.getValue() + ")").toList();
+        }
+    }
+
+    private record BuiltOperation(String path, String method, Map<String, Object> operation) {}
+
+    private record CollectionLayout(JsonNode info,
+                                    JsonNode variables,
+                                    Map<String, Map<String, Integer>> pathMethods,
+                                    Map<String, String> templates,
+                                    List<String> folderTags,
+                                    int requestCount,
+                                    int uncollapsed,
+                                    long inputBytes) {
+        String tag(int folder) {
+            return folder < 0 ? null : folderTags.get(folder);
+        }
+    }
 }
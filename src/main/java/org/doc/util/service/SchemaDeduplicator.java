@@ -0,0 +1,368 @@
+package org.doc.util.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Lifts object schemas that occur more than once into {@code components/schemas}
+ * and replaces every occurrence with a {@code $ref}.
+ * <p>
+ * Each schema map is hashed once, bottom-up and independent of property order, so
+ * finding repeats costs a single walk plus one equality check per candidate
+ * occurrence. Occurrences are then recounted the way they will be emitted: a repeated
+ * schema's body is walked only once, so a nested schema that only ever appears inside
+ * one repeated parent is not lifted on its own. A candidate is lifted when it has at
+ * least {@code minProperties} properties and the estimated token saving is positive.
+ * The input spec is never modified; changed maps are copied.
+ */
+@Component
+public class SchemaDeduplicator {
+
+    private static final String REF_PREFIX = "#/components/schemas/";
+
+    private final boolean enabled;
+    private final int minProperties;
+
+    @Autowired
+    public SchemaDeduplicator(@Value("${converter.dedup.enabled:true}") boolean enabled,
+                              @Value("${converter.dedup.min-properties:2}") int minProperties) {
+        this.enabled = enabled;
+        this.minProperties = minProperties;
+    }
+
+    /** Part of the cache key: results differ when these settings do. */
+    public String describe() {
+        return enabled ? "dedup:" + minProperties : "dedup:off";
+    }
+
+    /**
+     * @param tokenCost token count of a value serialized the way the spec is emitted,
+     *                  used to decide whether lifting pays off and to report the saving
+     */
+    public Result deduplicate(Map<String, Object> openApi, ToIntFunction<Object> tokenCost) {
+        if (!enabled || !(openApi.get("paths") instanceof Map<?, ?> paths)) {
+            return new Result(openApi, 0, 0);
+        }
+        Pass pass = new Pass(tokenCost);
+
+        List<Root> roots = collectRoots(paths);
+        for (Root root : roots) pass.count(root.schema());
+        for (Root root : roots) pass.measure(root.schema(), root.hint());
+        int savings = pass.selectLifted();
+        if (savings == 0) return new Result(openApi, 0, 0);
+
+        Map<String, Object> rewrittenPaths = new LinkedHashMap<>();
+        paths.forEach((path, item) -> rewrittenPaths.put((String) path, pass.rewritePathItem(item)));
+
+        Map<String, Object> out = new LinkedHashMap<>(openApi);
+        out.put("paths", rewrittenPaths);
+        Map<String, Object> components = new LinkedHashMap<>();
+        components.put("schemas", pass.components);
+        out.put("components", components);
+        return new Result(out, pass.components.size(), savings);
+    }
+
+    public record Result(Map<String, Object> openApi, int liftedSchemas, int tokenSavings) {}
+
+    // ── Schema roots ──────────────────────────────────────────────────────────
+
+    private record Root(Object schema, String hint) {}
+
+    private List<Root> collectRoots(Map<?, ?> paths) {
+        List<Root> roots = new ArrayList<>();
+        for (Object item : paths.values()) {
+            if (!(item instanceof Map<?, ?> pathItem)) continue;
+            for (Object value : pathItem.values()) {
+                if (!(value instanceof Map<?, ?> op)) continue;
+                String opId = String.valueOf(op.get("operationId"));
+                if (op.get("requestBody") instanceof Map<?, ?> body) {
+                    forEachMediaSchema(body, schema -> roots.add(new Root(schema, opId + "_request")));
+                }
+                if (op.get("responses") instanceof Map<?, ?> responses) {
+                    responses.forEach((code, response) -> {
+                        String suffix = String.valueOf(code).startsWith("2") ? "_response" : "_response_" + code;
+                        if (response instanceof Map<?, ?> r) {
+                            forEachMediaSchema(r, schema -> roots.add(new Root(schema, opId + suffix)));
+                        }
+                    });
+                }
+            }
+        }
+        return roots;
+    }
+
+    private static void forEachMediaSchema(Map<?, ?> holder, Consumer<Object> action) {
+        if (!(holder.get("content") instanceof Map<?, ?> content)) return;
+        for (Object media : content.values()) {
+            if (media instanceof Map<?, ?> m && m.get("schema") != null) action.accept(m.get("schema"));
+        }
+    }
+
+    private boolean isCandidate(Map<?, ?> schema) {
+        return "object".equals(schema.get("type"))
+                && schema.get("properties") instanceof Map<?, ?> props
+                && props.size() >= minProperties;
+    }
+
+    /**
+     * Visits nested schemas with a naming hint: the property name, a singular form for
+     * items, or the parent's hint for {@code oneOf} variants.
+     */
+    private static void forEachChild(Map<?, ?> schema, String hint, BiConsumer<Object, String> action) {
+        if (schema.get("properties") instanceof Map<?, ?> props) {
+            props.forEach((name, child) -> action.accept(child, String.valueOf(name)));
+        }
+        Object items = schema.get("items");
+        if (items != null) action.accept(items, singular(hint));
+        if (schema.get("oneOf") instanceof List<?> variants) {
+            for (Object variant : variants) action.accept(variant, hint);
+        }
+    }
+
+    // ── One deduplication run ─────────────────────────────────────────────────
+
+    private static final class Shape {
+        final Map<?, ?> representative;
+        int occurrences;
+        int emitted;
+        boolean bodyMeasured;
+        String hint;
+        boolean lifted;
+        String name;
+
+        Shape(Map<?, ?> representative) {
+            this.representative = representative;
+        }
+    }
+
+    private final class Pass {
+        private final ToIntFunction<Object> tokenCost;
+        private final IdentityHashMap<Object, Long> hashes = new IdentityHashMap<>();
+        private final IdentityHashMap<Object, Shape> shapes = new IdentityHashMap<>();
+        private final Map<Long, List<Shape>> byHash = new HashMap<>();
+        private final List<Shape> ordered = new ArrayList<>();
+        private final Map<String, Object> components = new LinkedHashMap<>();
+
+        Pass(ToIntFunction<Object> tokenCost) {
+            this.tokenCost = tokenCost;
+        }
+
+        void count(Object schema) {
+            if (!(schema instanceof Map<?, ?> map)) return;
+            if (isCandidate(map)) shapeOf(map).occurrences++;
+            forEachChild(map, "", (child, hint) -> count(child));
+        }
+
+        void measure(Object schema, String hint) {
+            if (!(schema instanceof Map<?, ?> map)) return;
+            if (isCandidate(map)) {
+                Shape shape = shapes.get(map);
+                shape.emitted++;
+                if (shape.hint == null) shape.hint = hint;
+                if (shape.occurrences > 1) {
+                    if (shape.bodyMeasured) return;
+                    shape.bodyMeasured = true;
+                }
+            }
+            forEachChild(map, hint, this::measure);
+        }
+
+        /** Marks shapes worth lifting and returns the estimated total token saving. */
+        int selectLifted() {
+            int refCost = tokenCost.applyAsInt(Map.of("$ref", REF_PREFIX + "Schema"));
+            int total = 0;
+            for (Shape shape : ordered) {
+                if (shape.emitted < 2) continue;
+                int body = tokenCost.applyAsInt(shape.representative);
+                int saving = (shape.emitted - 1) * body - shape.emitted * refCost - 2;
+                if (saving > 0) {
+                    shape.lifted = true;
+                    total += saving;
+                }
+            }
+            return total;
+        }
+
+        Object rewritePathItem(Object item) {
+            if (!(item instanceof Map<?, ?> pathItem)) return item;
+            Map<String, Object> out = new LinkedHashMap<>();
+            pathItem.forEach((method, op) -> out.put((String) method, rewriteOperation(op)));
+            return out;
+        }
+
+        private Object rewriteOperation(Object value) {
+            if (!(value instanceof Map<?, ?> op)) return value;
+            Map<String, Object> out = copy(op);
+            if (op.get("requestBody") instanceof Map<?, ?> body) {
+                out.put("requestBody", rewriteContentHolder(body));
+            }
+            if (op.get("responses") instanceof Map<?, ?> responses) {
+                Map<String, Object> rewritten = new LinkedHashMap<>();
+                responses.forEach((code, r) ->
+                        rewritten.put(String.valueOf(code), r instanceof Map<?, ?> m ? rewriteContentHolder(m) : r));
+                out.put("responses", rewritten);
+            }
+            return out;
+        }
+
+        private Map<?, ?> rewriteContentHolder(Map<?, ?> holder) {
+            if (!(holder.get("content") instanceof Map<?, ?> content)) return holder;
+            Map<String, Object> newContent = new LinkedHashMap<>();
+            content.forEach((type, media) -> {
+                if (media instanceof Map<?, ?> m && m.get("schema") != null) {
+                    Map<String, Object> newMedia = copy(m);
+                    newMedia.put("schema", rewrite(m.get("schema")));
+                    newContent.put((String) type, newMedia);
+                } else {
+                    newContent.put((String) type, media);
+                }
+            });
+            Map<String, Object> out = copy(holder);
+            out.put("content", newContent);
+            return out;
+        }
+
+        private Object rewrite(Object schema) {
+            if (!(schema instanceof Map<?, ?> map)) return schema;
+            if (isCandidate(map)) {
+                Shape shape = shapes.get(map);
+                if (shape.lifted) return refTo(shape);
+            }
+            return rewriteChildren(map);
+        }
+
+        private Map<?, ?> rewriteChildren(Map<?, ?> map) {
+            Map<String, Object> out = null;
+            if (map.get("properties") instanceof Map<?, ?> props) {
+                Map<String, Object> newProps = null;
+                for (Map.Entry<?, ?> e : props.entrySet()) {
+                    Object r = rewrite(e.getValue());
+                    if (r == e.getValue()) continue;
+                    if (newProps == null) newProps = copy(props);
+                    newProps.put((String) e.getKey(), r);
+                }
+                if (newProps != null) {
+                    out = copy(map);
+                    out.put("properties", newProps);
+                }
+            }
+            Object items = map.get("items");
+            if (items != null) {
+                Object r = rewrite(items);
+                if (r != items) {
+                    if (out == null) out = copy(map);
+                    out.put("items", r);
+                }
+            }
+            if (map.get("oneOf") instanceof List<?> variants) {
+                List<Object> newVariants = null;
+                for (int i = 0; i < variants.size(); i++) {
+                    Object r = rewrite(variants.get(i));
+                    if (r == variants.get(i)) continue;
+                    if (newVariants == null) newVariants = new ArrayList<>(variants);
+                    newVariants.set(i, r);
+                }
+                if (newVariants != null) {
+                    if (out == null) out = copy(map);
+                    out.put("oneOf", newVariants);
+                }
+            }
+            return out != null ? out : map;
+        }
+
+        private Map<String, Object> refTo(Shape shape) {
+            if (shape.name == null) {
+                shape.name = uniqueName(pascalCase(shape.hint));
+                components.put(shape.name, Map.of());
+                components.put(shape.name, rewriteChildren(shape.representative));
+            }
+            return Map.of("$ref", REF_PREFIX + shape.name);
+        }
+
+        private String uniqueName(String base) {
+            String name = base;
+            for (int i = 2; components.containsKey(name); i++) name = base + i;
+            return name;
+        }
+
+        private Shape shapeOf(Map<?, ?> map) {
+            Shape known = shapes.get(map);
+            if (known != null) return known;
+            List<Shape> bucket = byHash.computeIfAbsent(hash(map), h -> new ArrayList<>(1));
+            for (Shape s : bucket) {
+                if (s.representative.equals(map)) {
+                    shapes.put(map, s);
+                    return s;
+                }
+            }
+            Shape s = new Shape(map);
+            bucket.add(s);
+            ordered.add(s);
+            shapes.put(map, s);
+            return s;
+        }
+
+        /** Structural hash consistent with Map/List equals; memoized per instance. */
+        private long hash(Object value) {
+            if (value instanceof Map<?, ?> map) {
+                Long memo = hashes.get(map);
+                if (memo != null) return memo;
+                long sum = 0;
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    sum += mix(Objects.hashCode(e.getKey()) * 0x9E3779B97F4A7C15L + hash(e.getValue()));
+                }
+                long h = mix(sum + map.size());
+                hashes.put(map, h);
+                return h;
+            }
+            if (value instanceof List<?> list) {
+                long h = 1;
+                for (Object o : list) h = 31 * h + hash(o);
+                return mix(h);
+            }
+            return mix(Objects.hashCode(value));
+        }
+    }
+
+    // ── Helpers ───────────────────────────────────────────────────────────────
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> copy(Map<?, ?> map) {
+        return new LinkedHashMap<>((Map<String, Object>) map);
+    }
+
+    private static String singular(String hint) {
+        if (hint.endsWith("ies") && hint.length() > 3) return hint.substring(0, hint.length() - 3) + "y";
+        if (hint.endsWith("s") && !hint.endsWith("ss") && hint.length() > 1) return hint.substring(0, hint.length() - 1);
+        return hint + "_item";
+    }
+
+    /** {@code get_user_response} / {@code shippingAddress} → {@code GetUserResponse} / {@code ShippingAddress}. */
+    static String pascalCase(String hint) {
+        StringBuilder sb = new StringBuilder(hint.length());
+        boolean upper = true;
+        for (int i = 0; i < hint.length(); i++) {
+            char c = hint.charAt(i);
+            if (c < 128 && Character.isLetterOrDigit(c)) {
+                sb.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            } else {
+                upper = true;
+            }
+        }
+        if (sb.isEmpty() || Character.isDigit(sb.charAt(0))) sb.insert(0, "Schema");
+        return sb.toString();
+    }
+}
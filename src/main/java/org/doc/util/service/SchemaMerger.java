@@ -0,0 +1,295 @@
+package org.doc.util.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.doc.util.service.spec.SpecNode;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Infers one JSON schema from any number of example bodies.
+ * <p>
+ * Each example is read once with a streaming parser; no tree is built. What it shows
+ * is folded into a shape that records, per position, which JSON types occurred,
+ * whether {@code null} did, and how many complete objects contained each property.
+ * Every array element adds to the same item shape, and every example of a
+ * {@link #start() merge} adds to the same root, so the schema describes all of them:
+ * integer and floating-point numbers widen to {@code number}, other mixed types
+ * become {@code oneOf}, and properties missing from some objects are left out of
+ * {@code required}. {@code required} is only written for objects seen at least twice.
+ * <p>
+ * Cost is bounded per example: only the first {@code max-array-samples} elements of
+ * an array are inspected, nesting below {@code max-depth} is skipped, objects keep at
+ * most {@code max-properties} properties, and reading stops after
+ * {@code max-example-size} characters. A cut-off example still contributes the types
+ * it showed, but its unfinished objects do not count towards {@code required}.
+ */
+@Component
+public class SchemaMerger {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final SpecNode OBJECT = SpecNode.of("type", "object");
+    private static final SpecNode STRING = SpecNode.of("type", "string");
+    private static final SpecNode NUMBER = SpecNode.of("type", "number");
+    private static final SpecNode INTEGER = SpecNode.of("type", "integer");
+    private static final SpecNode BOOLEAN = SpecNode.of("type", "boolean");
+
+    private final int maxArraySamples;
+    private final int maxDepth;
+    private final int maxProperties;
+    private final long maxExampleChars;
+
+    @Autowired
+    public SchemaMerger(@Value("${converter.schema.max-array-samples:100}") int maxArraySamples,
+                        @Value("${converter.schema.max-depth:16}") int maxDepth,
+                        @Value("${converter.schema.max-properties:256}") int maxProperties,
+                        @Value("${converter.schema.max-example-size:1MB}") DataSize maxExampleSize) {
+        this.maxArraySamples = maxArraySamples;
+        this.maxDepth = maxDepth;
+        this.maxProperties = maxProperties;
+        this.maxExampleChars = maxExampleSize.toBytes();
+    }
+
+    /** Part of the cache key: results differ when these settings do. */
+    public String describe() {
+        return "schema:" + maxArraySamples + "/" + maxDepth + "/" + maxProperties + "/" + maxExampleChars;
+    }
+
+    /** Schema of a single example, or null when it is not JSON. */
+    public Map<String, Object> infer(String json) {
+        Merge merge = start();
+        merge.add(json);
+        return merge.schema();
+    }
+
+    public Merge start() {
+        return new Merge();
+    }
+
+    /** Examples folded into one schema so far. Not thread-safe. */
+    public final class Merge {
+
+        private final Shape root = new Shape();
+        private int examples;
+
+        private Merge() {
+        }
+
+        /**
+         * Folds one example in. Text that is not JSON is ignored and leaves the
+         * merge unchanged.
+         *
+         * @return whether the example was used
+         */
+        public boolean add(String json) {
+            if (json == null || json.isBlank()) return false;
+            Shape sample = new Shape();
+            try (JsonParser p = JSON.createParser(json)) {
+                Reader reader = new Reader(p);
+                JsonToken first = p.nextToken();
+                if (first == null) return false;
+                reader.observe(sample, first, 0);
+            } catch (IOException e) {
+                return false;
+            }
+            root.absorb(sample, maxProperties);
+            examples++;
+            return true;
+        }
+
+        public int examples() {
+            return examples;
+        }
+
+        /** The merged schema, or null when no example was usable. */
+        public Map<String, Object> schema() {
+            return examples == 0 ? null : root.schema();
+        }
+    }
+
+    // ── Reading ───────────────────────────────────────────────────────────────
+
+    /** Recursive descent over one example that stops quietly at the size limit. */
+    private final class Reader {
+
+        private final JsonParser p;
+        private boolean truncated;
+
+        Reader(JsonParser p) {
+            this.p = p;
+        }
+
+        private JsonToken next() throws IOException {
+            if (p.currentLocation().getCharOffset() > maxExampleChars) {
+                truncated = true;
+                return null;
+            }
+            return p.nextToken();
+        }
+
+        void observe(Shape shape, JsonToken token, int depth) throws IOException {
+            switch (token) {
+                case START_OBJECT -> readObject(shape, depth);
+                case START_ARRAY -> readArray(shape, depth);
+                case VALUE_STRING, VALUE_EMBEDDED_OBJECT -> shape.string = true;
+                case VALUE_NUMBER_INT -> shape.integer = true;
+                case VALUE_NUMBER_FLOAT -> shape.number = true;
+                case VALUE_TRUE, VALUE_FALSE -> shape.bool = true;
+                case VALUE_NULL -> shape.nullable = true;
+                default -> { }
+            }
+        }
+
+        private void readObject(Shape shape, int depth) throws IOException {
+            shape.object = true;
+            if (depth >= maxDepth) {
+                skip(JsonToken.START_OBJECT);
+                return;
+            }
+            if (shape.properties == null) shape.properties = new LinkedHashMap<>();
+            List<Shape> present = new ArrayList<>();
+            JsonToken token;
+            while ((token = next()) == JsonToken.FIELD_NAME) {
+                String name = p.currentName();
+                Shape child = shape.properties.get(name);
+                JsonToken value = next();
+                if (value == null) return;
+                if (child == null && shape.properties.size() >= maxProperties) {
+                    skip(value);
+                } else {
+                    if (child == null) {
+                        child = new Shape();
+                        shape.properties.put(name, child);
+                    }
+                    observe(child, value, depth + 1);
+                    present.add(child);
+                }
+                if (truncated) return;
+            }
+            if (token != JsonToken.END_OBJECT) return;
+            // Only complete objects say anything about which properties are always there
+            shape.objects++;
+            for (Shape child : present) child.present++;
+        }
+
+        private void readArray(Shape shape, int depth) throws IOException {
+            shape.array = true;
+            if (shape.items == null) shape.items = new Shape();
+            if (depth >= maxDepth) {
+                skip(JsonToken.START_ARRAY);
+                return;
+            }
+            int seen = 0;
+            JsonToken token;
+            while ((token = next()) != null && token != JsonToken.END_ARRAY) {
+                if (seen++ < maxArraySamples) {
+                    observe(shape.items, token, depth + 1);
+                } else {
+                    skip(token);
+                }
+                if (truncated) return;
+            }
+        }
+
+        /** Skips the value starting at {@code token}, still honouring the size limit. */
+        private void skip(JsonToken token) throws IOException {
+            if (!token.isStructStart()) return;
+            int open = 1;
+            while (open > 0) {
+                JsonToken t = next();
+                if (t == null) return;
+                if (t.isStructStart()) open++;
+                else if (t.isStructEnd()) open--;
+            }
+        }
+    }
+
+    // ── Shapes ────────────────────────────────────────────────────────────────
+
+    /** Everything observed at one position of the examples. */
+    private static final class Shape {
+
+        boolean object;
+        boolean array;
+        boolean string;
+        boolean integer;
+        boolean number;
+        boolean bool;
+        boolean nullable;
+        /** Complete objects observed here. */
+        int objects;
+        /** Complete parent objects that contained this property. */
+        int present;
+        Map<String, Shape> properties;
+        Shape items;
+
+        void absorb(Shape other, int maxProperties) {
+            object |= other.object;
+            array |= other.array;
+            string |= other.string;
+            integer |= other.integer;
+            number |= other.number;
+            bool |= other.bool;
+            nullable |= other.nullable;
+            objects += other.objects;
+            present += other.present;
+            if (other.properties != null) {
+                if (properties == null) properties = new LinkedHashMap<>();
+                for (Map.Entry<String, Shape> e : other.properties.entrySet()) {
+                    Shape mine = properties.get(e.getKey());
+                    if (mine != null) {
+                        mine.absorb(e.getValue(), maxProperties);
+                    } else if (properties.size() < maxProperties) {
+                        properties.put(e.getKey(), e.getValue());
+                    }
+                }
+            }
+            if (other.items != null) {
+                if (items == null) items = other.items;
+                else items.absorb(other.items, maxProperties);
+            }
+        }
+
+        SpecNode schema() {
+            List<SpecNode> variants = new ArrayList<>(2);
+            if (object) variants.add(objectSchema());
+            if (array) variants.add(SpecNode.of("type", "array", "items", items.hasType() ? items.schema() : OBJECT));
+            if (string) variants.add(STRING);
+            if (number) variants.add(NUMBER);
+            else if (integer) variants.add(INTEGER);
+            if (bool) variants.add(BOOLEAN);
+            // Only ever null: the type is unknown, string is the least surprising guess
+            if (variants.isEmpty()) variants.add(STRING);
+
+            SpecNode schema = variants.size() == 1 ? variants.getFirst() : SpecNode.of("oneOf", List.copyOf(variants));
+            return nullable ? schema.with("nullable", true) : schema;
+        }
+
+        private SpecNode objectSchema() {
+            if (properties == null || properties.isEmpty()) return OBJECT;
+            SpecNode.Builder props = SpecNode.builder();
+            List<String> required = new ArrayList<>();
+            for (Map.Entry<String, Shape> e : properties.entrySet()) {
+                props.put(e.getKey(), e.getValue().schema());
+                if (e.getValue().present == objects) required.add(e.getKey());
+            }
+            SpecNode.Builder schema = SpecNode.builder().put("type", "object").put("properties", props.build());
+            if (objects > 1 && !required.isEmpty()) schema.put("required", List.copyOf(required));
+            return schema.build();
+        }
+
+        private boolean hasType() {
+            return object || array || string || integer || number || bool || nullable;
+        }
+
+    }
+}
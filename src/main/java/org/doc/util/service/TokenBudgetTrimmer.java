@@ -0,0 +1,459 @@
+package org.doc.util.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Shrinks a built OpenAPI document until its estimated token count fits a budget.
+ * <p>
+ * Content is dropped in priority order, least useful first: descriptions, header
+ * parameters, response schemas inferred from examples, object properties nested
+ * deeper than 4, 3, 2 and then 1 levels, and finally whole groups of operations
+ * under the least-used tags (the most used tag is always kept). Within a step the
+ * largest operations are trimmed first, and trimming stops as soon as the estimate
+ * fits.
+ * <p>
+ * The caller passes the exact token count of the document once. After that each
+ * operation and each {@code components/schemas} entry is costed on its own, and only
+ * the parts a step actually changes are serialized and counted again. Component
+ * schemas are reference-counted, so a schema is pruned and its cost subtracted as
+ * soon as nothing refers to it. Costing parts on their own ignores their indentation
+ * in the full document, so the estimate drifts slightly; callers should count the
+ * result and trim again if it still does not fit. The input document is never
+ * modified; changed maps are copied.
+ */
+@Component
+public class TokenBudgetTrimmer {
+
+    private static final String REF_PREFIX = "#/components/schemas/";
+    private static final int[] DEPTH_LIMITS = {4, 3, 2, 1};
+
+    /**
+     * @param currentTokens exact token count of {@code openApi} as emitted
+     * @param tokenCost     token count of a value serialized the way the spec is emitted
+     */
+    public Result trim(Map<String, Object> openApi, int maxTokens, int currentTokens, ToIntFunction<Object> tokenCost) {
+        if (currentTokens <= maxTokens || !(openApi.get("paths") instanceof Map<?, ?> paths)) {
+            return new Result(openApi, currentTokens, List.of(), List.of());
+        }
+        Pass pass = new Pass(openApi, paths, maxTokens, currentTokens, tokenCost);
+        pass.run();
+        return pass.result();
+    }
+
+    /**
+     * @param openApi         the trimmed document, or the input itself when nothing changed
+     * @param estimatedTokens token count after trimming, estimated part by part
+     * @param trims           steps that changed something, in the order they ran
+     * @param droppedTags     tags whose operations were removed entirely
+     */
+    public record Result(Map<String, Object> openApi, int estimatedTokens, List<Trim> trims, List<String> droppedTags) {
+
+        public int droppedOperations() {
+            return trims.stream().filter(t -> t.step().equals("rare-tags")).mapToInt(Trim::count).sum();
+        }
+    }
+
+    /** One trimming step and the number of operations or component schemas it changed. */
+    public record Trim(String step, int count) {}
+
+    // ── One trimming run ──────────────────────────────────────────────────────
+
+    private static final class Op {
+        final String path;
+        final String method;
+        final String tag;
+        Map<String, Object> operation;
+        int cost;
+        Set<String> refs;
+        boolean dropped;
+
+        Op(String path, String method, Map<String, Object> operation) {
+            this.path = path;
+            this.method = method;
+            this.operation = operation;
+            this.tag = operation.get("tags") instanceof List<?> tags && !tags.isEmpty()
+                    ? String.valueOf(tags.getFirst()) : null;
+        }
+    }
+
+    private static final class Schema {
+        Object schema;
+        int cost;
+        Set<String> refs;
+        boolean pruned;
+    }
+
+    private static final class Pass {
+        private final Map<String, Object> openApi;
+        private final int maxTokens;
+        private final ToIntFunction<Object> tokenCost;
+        private final List<Op> ops = new ArrayList<>();
+        private final Map<String, Schema> components = new LinkedHashMap<>();
+        private final Map<String, Integer> refCounts = new HashMap<>();
+        private final List<Trim> trims = new ArrayList<>();
+        private final List<String> droppedTags = new ArrayList<>();
+        private Map<String, Object> info;
+        private int estimate;
+
+        Pass(Map<String, Object> openApi, Map<?, ?> paths, int maxTokens, int currentTokens,
+             ToIntFunction<Object> tokenCost) {
+            this.openApi = openApi;
+            this.maxTokens = maxTokens;
+            this.tokenCost = tokenCost;
+            this.estimate = currentTokens;
+
+            paths.forEach((path, item) -> {
+                if (!(item instanceof Map<?, ?> pathItem)) return;
+                pathItem.forEach((method, operation) -> {
+                    if (operation instanceof Map<?, ?> map) ops.add(new Op((String) path, (String) method, cast(map)));
+                });
+            });
+            if (openApi.get("components") instanceof Map<?, ?> c && c.get("schemas") instanceof Map<?, ?> schemas) {
+                schemas.forEach((name, schema) -> components.put((String) name, new Schema()));
+                schemas.forEach((name, body) -> {
+                    Schema schema = components.get(name);
+                    schema.schema = body;
+                    schema.cost = tokenCost.applyAsInt(Map.of(name, body));
+                    schema.refs = refs(body);
+                    schema.refs.forEach(this::addRef);
+                });
+            }
+            for (Op op : ops) {
+                op.cost = tokenCost.applyAsInt(Map.of(op.method, op.operation));
+                op.refs = refs(op.operation);
+                op.refs.forEach(this::addRef);
+            }
+        }
+
+        void run() {
+            if (record("descriptions", trimOperations(Pass::withoutDescriptions) + trimInfoDescription())) return;
+            if (record("header-params", trimOperations(Pass::withoutHeaderParams))) return;
+            if (record("response-schemas", trimOperations(Pass::withoutResponseSchemas))) return;
+            for (int limit : DEPTH_LIMITS) {
+                UnaryOperator<Object> truncate = s -> truncate(s, 0, limit);
+                int changed = trimOperations(op -> rewriteSchemas(op, truncate)) + trimSchemas(truncate);
+                if (record("depth-" + limit, changed)) return;
+            }
+            dropRareTags();
+        }
+
+        private boolean fits() {
+            return estimate <= maxTokens;
+        }
+
+        private boolean record(String step, int changed) {
+            if (changed > 0) trims.add(new Trim(step, changed));
+            return fits();
+        }
+
+        // ── Steps ──
+
+        /** Applies {@code trim} to the largest operations first until the estimate fits; returns the number changed. */
+        private int trimOperations(UnaryOperator<Map<String, Object>> trim) {
+            int changed = 0;
+            List<Op> largest = ops.stream()
+                    .filter(op -> !op.dropped)
+                    .sorted(Comparator.comparingInt((Op op) -> op.cost).reversed())
+                    .toList();
+            for (Op op : largest) {
+                if (fits()) break;
+                Map<String, Object> trimmed = trim.apply(op.operation);
+                if (trimmed != op.operation) {
+                    replace(op, trimmed);
+                    changed++;
+                }
+            }
+            return changed;
+        }
+
+        private int trimSchemas(UnaryOperator<Object> trim) {
+            int changed = 0;
+            for (Map.Entry<String, Schema> e : components.entrySet()) {
+                if (fits()) break;
+                Schema schema = e.getValue();
+                if (schema.pruned) continue;
+                Object trimmed = trim.apply(schema.schema);
+                if (trimmed != schema.schema) {
+                    replace(e.getKey(), schema, trimmed);
+                    changed++;
+                }
+            }
+            return changed;
+        }
+
+        /** The collection description goes after the operation descriptions. */
+        private int trimInfoDescription() {
+            if (fits() || !(openApi.get("info") instanceof Map<?, ?> current) || current.get("description") == null) {
+                return 0;
+            }
+            Map<String, Object> trimmed = new LinkedHashMap<>(cast(current));
+            trimmed.remove("description");
+            estimate += tokenCost.applyAsInt(Map.of("info", trimmed)) - tokenCost.applyAsInt(Map.of("info", current));
+            info = trimmed;
+            return 1;
+        }
+
+        /** Drops every operation of the least-used tag, repeatedly; later tags go first on ties. */
+        private void dropRareTags() {
+            Map<String, List<Op>> byTag = new LinkedHashMap<>();
+            for (Op op : ops) {
+                if (!op.dropped && op.tag != null) byTag.computeIfAbsent(op.tag, k -> new ArrayList<>()).add(op);
+            }
+            List<String> order = new ArrayList<>(byTag.keySet());
+            Collections.reverse(order);
+            order.sort(Comparator.comparingInt(tag -> byTag.get(tag).size()));
+
+            int dropped = 0;
+            for (String tag : order.subList(0, Math.max(0, order.size() - 1))) {
+                if (fits()) break;
+                for (Op op : byTag.get(tag)) {
+                    drop(op);
+                    dropped++;
+                }
+                droppedTags.add(tag);
+            }
+            if (dropped > 0) trims.add(new Trim("rare-tags", dropped));
+        }
+
+        // ── Incremental accounting ──
+
+        private void replace(Op op, Map<String, Object> operation) {
+            int before = op.cost;
+            Set<String> oldRefs = op.refs;
+            op.operation = operation;
+            op.cost = tokenCost.applyAsInt(Map.of(op.method, operation));
+            op.refs = refs(operation);
+            estimate += op.cost - before;
+            op.refs.forEach(this::addRef);
+            oldRefs.forEach(this::removeRef);
+        }
+
+        private void replace(String name, Schema schema, Object body) {
+            int before = schema.cost;
+            Set<String> oldRefs = schema.refs;
+            schema.schema = body;
+            schema.cost = tokenCost.applyAsInt(Map.of(name, body));
+            schema.refs = refs(body);
+            estimate += schema.cost - before;
+            schema.refs.forEach(this::addRef);
+            oldRefs.forEach(this::removeRef);
+        }
+
+        private void drop(Op op) {
+            estimate -= op.cost;
+            op.dropped = true;
+            op.refs.forEach(this::removeRef);
+        }
+
+        private void addRef(String name) {
+            refCounts.merge(name, 1, Integer::sum);
+        }
+
+        private void removeRef(String name) {
+            int left = refCounts.merge(name, -1, Integer::sum);
+            Schema schema = components.get(name);
+            if (left > 0 || schema == null || schema.pruned) return;
+            estimate -= schema.cost;
+            schema.pruned = true;
+            schema.refs.forEach(this::removeRef);
+        }
+
+        // ── Result ──
+
+        Result result() {
+            if (trims.isEmpty() && info == null) return new Result(openApi, estimate, List.of(), List.of());
+
+            Map<String, Object> out = new LinkedHashMap<>(openApi);
+            if (info != null) out.put("info", info);
+
+            Map<String, Map<String, Object>> paths = new LinkedHashMap<>();
+            for (Op op : ops) {
+                if (!op.dropped) paths.computeIfAbsent(op.path, k -> new LinkedHashMap<>()).put(op.method, op.operation);
+            }
+            out.put("paths", paths.isEmpty() ? Map.of("/", Map.of()) : paths);
+
+            Map<String, Object> schemas = new LinkedHashMap<>();
+            components.forEach((name, schema) -> {
+                if (!schema.pruned) schemas.put(name, schema.schema);
+            });
+            if (schemas.isEmpty()) {
+                out.remove("components");
+            } else {
+                Map<String, Object> c = new LinkedHashMap<>(cast((Map<?, ?>) openApi.get("components")));
+                c.put("schemas", schemas);
+                out.put("components", c);
+            }
+            return new Result(out, estimate, List.copyOf(trims), List.copyOf(droppedTags));
+        }
+
+        // ── Trims (copy-on-write; the same instance means unchanged) ──
+
+        private static Map<String, Object> withoutDescriptions(Map<String, Object> op) {
+            Map<String, Object> out = op;
+            if (op.containsKey("description")) {
+                out = new LinkedHashMap<>(op);
+                out.remove("description");
+            }
+            if (op.get("parameters") instanceof List<?> params) {
+                List<Object> trimmed = new ArrayList<>(params.size());
+                boolean changed = false;
+                for (Object p : params) {
+                    if (p instanceof Map<?, ?> param && param.containsKey("description")) {
+                        Map<String, Object> copy = new LinkedHashMap<>(cast(param));
+                        copy.remove("description");
+                        trimmed.add(copy);
+                        changed = true;
+                    } else {
+                        trimmed.add(p);
+                    }
+                }
+                if (changed) {
+                    if (out == op) out = new LinkedHashMap<>(op);
+                    out.put("parameters", trimmed);
+                }
+            }
+            return out;
+        }
+
+        private static Map<String, Object> withoutHeaderParams(Map<String, Object> op) {
+            if (!(op.get("parameters") instanceof List<?> params)) return op;
+            List<?> kept = params.stream()
+                    .filter(p -> !(p instanceof Map<?, ?> param && "header".equals(param.get("in"))))
+                    .toList();
+            if (kept.size() == params.size()) return op;
+            Map<String, Object> out = new LinkedHashMap<>(op);
+            if (kept.isEmpty()) out.remove("parameters");
+            else out.put("parameters", kept);
+            return out;
+        }
+
+        private static Map<String, Object> withoutResponseSchemas(Map<String, Object> op) {
+            if (!(op.get("responses") instanceof Map<?, ?> responses)) return op;
+            Map<String, Object> trimmed = new LinkedHashMap<>();
+            boolean changed = false;
+            for (Map.Entry<?, ?> e : responses.entrySet()) {
+                Object response = e.getValue();
+                if (response instanceof Map<?, ?> r && r.containsKey("content")) {
+                    Map<String, Object> copy = new LinkedHashMap<>(cast(r));
+                    copy.remove("content");
+                    response = copy;
+                    changed = true;
+                }
+                trimmed.put((String) e.getKey(), response);
+            }
+            if (!changed) return op;
+            Map<String, Object> out = new LinkedHashMap<>(op);
+            out.put("responses", trimmed);
+            return out;
+        }
+
+        /** Applies {@code fn} to every {@code schema} value in an operation, without descending into schemas. */
+        private static Map<String, Object> rewriteSchemas(Map<String, Object> op, UnaryOperator<Object> fn) {
+            return cast((Map<?, ?>) rewrite(op, fn));
+        }
+
+        private static Object rewrite(Object node, UnaryOperator<Object> fn) {
+            if (node instanceof Map<?, ?> map) {
+                Map<String, Object> out = null;
+                for (Map.Entry<?, ?> e : map.entrySet()) {
+                    Object value = e.getValue();
+                    Object next = "schema".equals(e.getKey()) ? fn.apply(value) : rewrite(value, fn);
+                    if (next != value) {
+                        if (out == null) out = new LinkedHashMap<>(cast(map));
+                        out.put((String) e.getKey(), next);
+                    }
+                }
+                return out != null ? out : map;
+            }
+            if (node instanceof List<?> list) {
+                List<Object> out = null;
+                for (int i = 0; i < list.size(); i++) {
+                    Object value = list.get(i);
+                    Object next = rewrite(value, fn);
+                    if (next != value) {
+                        if (out == null) out = new ArrayList<>(list);
+                        out.set(i, next);
+                    }
+                }
+                return out != null ? out : list;
+            }
+            return node;
+        }
+
+        /** Replaces the properties of objects nested {@code limit} or more levels down with a bare object type. */
+        private static Object truncate(Object schema, int depth, int limit) {
+            if (!(schema instanceof Map<?, ?> map)) return schema;
+            Map<String, Object> out = null;
+            if (map.get("properties") instanceof Map<?, ?> props) {
+                if (depth >= limit) {
+                    out = new LinkedHashMap<>(cast(map));
+                    out.remove("properties");
+                    out.remove("required");
+                } else {
+                    Map<String, Object> nested = null;
+                    for (Map.Entry<?, ?> e : props.entrySet()) {
+                        Object next = truncate(e.getValue(), depth + 1, limit);
+                        if (next != e.getValue()) {
+                            if (nested == null) nested = new LinkedHashMap<>(cast(props));
+                            nested.put((String) e.getKey(), next);
+                        }
+                    }
+                    if (nested != null) {
+                        out = new LinkedHashMap<>(cast(map));
+                        out.put("properties", nested);
+                    }
+                }
+            }
+            Object items = map.get("items");
+            Object nextItems = truncate(items, depth, limit);
+            if (nextItems != items) {
+                if (out == null) out = new LinkedHashMap<>(cast(map));
+                out.put("items", nextItems);
+            }
+            // A variant sits at its parent's depth, like items
+            if (map.get("oneOf") instanceof List<?> variants) {
+                List<Object> nextVariants = null;
+                for (int i = 0; i < variants.size(); i++) {
+                    Object next = truncate(variants.get(i), depth, limit);
+                    if (next != variants.get(i)) {
+                        if (nextVariants == null) nextVariants = new ArrayList<>(variants);
+                        nextVariants.set(i, next);
+                    }
+                }
+                if (nextVariants != null) {
+                    if (out == null) out = new LinkedHashMap<>(cast(map));
+                    out.put("oneOf", nextVariants);
+                }
+            }
+            return out != null ? out : map;
+        }
+
+        // ── Helpers ──
+
+        private static Set<String> refs(Object node) {
+            Set<String> refs = new HashSet<>();
+            collectRefs(node, refs);
+            return refs;
+        }
+
+        private static void collectRefs(Object node, Set<String> out) {
+            if (node instanceof Map<?, ?> map) {
+                if (map.get("$ref") instanceof String ref && ref.startsWith(REF_PREFIX)) {
+                    out.add(ref.substring(REF_PREFIX.length()));
+                }
+                map.values().forEach(v -> collectRefs(v, out));
+            } else if (node instanceof List<?> list) {
+                list.forEach(v -> collectRefs(v, out));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static Map<String, Object> cast(Map<?, ?> map) {
+            return (Map<String, Object>) map;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.doc.util.service.admission;
+
+/**
+ * A conversion was turned away because the memory budget is exhausted.
+ * {@link #getStatus()} is 429 when the wait queue was already full and 503 when the
+ * request waited in the queue and timed out.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+
+    private final int status;
+    private final long retryAfterSeconds;
+
+    public AdmissionRejectedException(int status, String message, long retryAfterSeconds) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,145 @@
+package org.doc.util.service.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits conversions against a heap budget.
+ * <p>
+ * A tree conversion holds several copies of its document at once: the input String,
+ * the JsonNode tree, the OpenAPI map tree, and the pretty-printed and YAML strings.
+ * Its cost is estimated as input bytes × {@code cost-factor} and reserved from a
+ * fair semaphore whose permits are kilobytes of the budget. A conversion larger than
+ * the whole budget is capped to it, so it still runs, alone. When the budget is
+ * exhausted, callers wait in a queue up to {@code queue-timeout}. If the queue
+ * already holds {@code max-queue} waiters the request is rejected with 429; a
+ * timed-out wait is rejected with 503.
+ */
+@Component
+public class ConversionAdmission {
+
+    private final boolean enabled;
+    private final int budgetKb;
+    private final double costFactor;
+    private final int maxQueue;
+    private final Duration queueTimeout;
+
+    private final Semaphore permits;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+
+    @Autowired
+    public ConversionAdmission(@Value("${converter.admission.enabled:true}") boolean enabled,
+                               @Value("${converter.admission.memory-budget:}") DataSize memoryBudget,
+                               @Value("${converter.admission.cost-factor:16}") double costFactor,
+                               @Value("${converter.admission.max-queue:16}") int maxQueue,
+                               @Value("${converter.admission.queue-timeout:10s}") Duration queueTimeout,
+                               MeterRegistry registry) {
+        this.enabled = enabled;
+        long budget = memoryBudget != null ? memoryBudget.toBytes() : Runtime.getRuntime().maxMemory() / 2;
+        this.budgetKb = Math.clamp(budget / 1024, 1, Integer.MAX_VALUE);
+        this.costFactor = costFactor;
+        this.maxQueue = maxQueue;
+        this.queueTimeout = queueTimeout;
+        this.permits = new Semaphore(budgetKb, true);
+
+        Gauge.builder("converter.admission.queue", waiting, AtomicInteger::get)
+                .description("Conversions waiting for memory budget")
+                .register(registry);
+        Gauge.builder("converter.admission.reserved", permits, p -> (budgetKb - p.availablePermits()) * 1024.0)
+                .description("Heap reserved by admitted conversions")
+                .baseUnit("bytes")
+                .register(registry);
+        this.waitTimer = Timer.builder("converter.admission.wait")
+                .description("Time spent waiting for memory budget")
+                .register(registry);
+        this.rejectedQueueFull = rejected(registry, "queue-full");
+        this.rejectedTimeout = rejected(registry, "timeout");
+    }
+
+    /**
+     * Reserves budget for converting {@code inputBytes} of collection JSON, waiting if
+     * needed. Close the returned permit when the conversion's documents are released.
+     *
+     * @throws AdmissionRejectedException when the queue is full or the wait times out
+     */
+    public Permit admit(long inputBytes) {
+        if (!enabled) return Permit.NONE;
+        int kb = costKb(inputBytes);
+        try {
+            if (permits.tryAcquire(kb, 0, TimeUnit.SECONDS)) return new Permit(this, kb);
+
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                rejectedQueueFull.increment();
+                throw new AdmissionRejectedException(429, "Too many conversions queued; retry shortly",
+                        Math.max(1, queueTimeout.toSeconds()));
+            }
+            long started = System.nanoTime();
+            try {
+                if (permits.tryAcquire(kb, queueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    return new Permit(this, kb);
+                }
+            } finally {
+                waiting.decrementAndGet();
+                waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            }
+            rejectedTimeout.increment();
+            throw new AdmissionRejectedException(503, "Not enough memory budget for this collection right now",
+                    Math.max(1, queueTimeout.toSeconds()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException(503, "Interrupted while waiting for memory budget", 1);
+        }
+    }
+
+    int costKb(long inputBytes) {
+        double cost = Math.max(1, inputBytes) * costFactor / 1024;
+        return (int) Math.clamp(Math.ceil(cost), 1, budgetKb);
+    }
+
+    private void release(int kb) {
+        permits.release(kb);
+    }
+
+    private static Counter rejected(MeterRegistry registry, String reason) {
+        return Counter.builder("converter.admission.rejected")
+                .description("Conversions turned away by admission control")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /** Reserved budget; closing it more than once releases only once. */
+    public static final class Permit implements AutoCloseable {
+        static final Permit NONE = new Permit(null, 0);
+
+        private final ConversionAdmission owner;
+        private int kb;
+
+        private Permit(ConversionAdmission owner, int kb) {
+            this.owner = owner;
+            this.kb = kb;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (owner != null && kb > 0) {
+                owner.release(kb);
+                kb = 0;
+            }
+        }
+    }
+}
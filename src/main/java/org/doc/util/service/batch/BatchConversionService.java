@@ -0,0 +1,285 @@
+package org.doc.util.service.batch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.doc.util.model.BatchReport;
+import org.doc.util.service.IoSupport;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.doc.util.service.format.OpenApiYamlFormat;
+import org.doc.util.service.format.OutputFormat;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Converts many collections in one go and streams the results back as a zip of
+ * OpenAPI YAML files plus a {@code token-report.json}.
+ * <p>
+ * Inputs are read one after another (plain collection files, or zip archives of them)
+ * and each collection is converted on its own virtual thread. A semaphore bounds the
+ * collections that are in flight or converted but not yet written, so memory stays
+ * proportional to the concurrency limit rather than the batch size. Results are
+ * written in input order by the calling thread; a failed collection is recorded in
+ * the report and the batch carries on. Each conversion also takes its share of the
+ * shared memory budget, so a batch cannot crowd out interactive requests; an item that
+ * cannot be admitted in time fails like any other.
+ */
+@Service
+public class BatchConversionService {
+
+    private static final String REPORT_ENTRY = "token-report.json";
+    private static final OutputFormat YAML = new OpenApiYamlFormat();
+
+    private final PostmanToSwaggerService converter;
+    private final Tokenizer tokenizer;
+    private final ConversionAdmission admission;
+    private final int concurrency;
+    private final int maxEntries;
+    private final long maxEntryBytes;
+    private final ObjectMapper jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Autowired
+    public BatchConversionService(PostmanToSwaggerService converter, Tokenizer tokenizer,
+                                  ConversionAdmission admission,
+                                  @Value("${converter.batch.concurrency:0}") int concurrency,
+                                  @Value("${converter.batch.max-entries:1000}") int maxEntries,
+                                  @Value("${converter.batch.max-entry-bytes:50MB}") DataSize maxEntryBytes) {
+        this.converter = converter;
+        this.tokenizer = tokenizer;
+        this.admission = admission;
+        this.concurrency = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        this.maxEntries = maxEntries;
+        this.maxEntryBytes = maxEntryBytes.toBytes();
+    }
+
+    /** An uploaded file: one collection, or a zip archive of collections; {@code size} is -1 if unknown. */
+    public record Input(String name, InputStreamSource source, long size) {}
+
+    public BatchReport convert(List<Input> inputs, OutputStream out) throws IOException {
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             ZipOutputStream zip = new ZipOutputStream(IoSupport.keepOpen(out))) {
+            Run run = new Run(executor, zip);
+            for (Input input : inputs) {
+                read(input, run);
+            }
+            run.drainAll();
+
+            BatchReport report = run.report(System.nanoTime() - started);
+            zip.putNextEntry(new ZipEntry(REPORT_ENTRY));
+            jsonMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(zip, report);
+            zip.closeEntry();
+            zip.finish();
+            return report;
+        }
+    }
+
+    // ── Reading inputs ────────────────────────────────────────────────────────
+
+    /** Entries past the batch limit, or known to be over the entry limit, are skipped unread. */
+    private void read(Input input, Run run) throws IOException {
+        try (InputStream raw = new BufferedInputStream(input.source().getInputStream())) {
+            if (!isZip(raw)) {
+                if (run.accept(input.name(), input.size())) run.submit(input.name(), readLimited(raw));
+                return;
+            }
+            ZipInputStream entries = new ZipInputStream(raw, StandardCharsets.UTF_8);
+            for (ZipEntry entry; (entry = entries.getNextEntry()) != null; ) {
+                if (isCollectionEntry(entry) && run.accept(entry.getName(), entry.getSize())) {
+                    run.submit(entry.getName(), readLimited(entries));
+                }
+            }
+        }
+    }
+
+    private static boolean isZip(InputStream in) throws IOException {
+        in.mark(4);
+        byte[] magic = in.readNBytes(4);
+        in.reset();
+        return magic.length == 4 && magic[0] == 'P' && magic[1] == 'K' && magic[2] == 3 && magic[3] == 4;
+    }
+
+    private static boolean isCollectionEntry(ZipEntry entry) {
+        String name = entry.getName();
+        String base = name.substring(name.lastIndexOf('/') + 1);
+        return !entry.isDirectory() && !name.startsWith("__MACOSX/") && !base.startsWith(".")
+                && base.toLowerCase(Locale.ROOT).endsWith(".json");
+    }
+
+    /** The entry's bytes, or null when it exceeds the per-entry limit. */
+    private byte[] readLimited(InputStream in) throws IOException {
+        byte[] data = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxEntryBytes + 1));
+        return data.length > maxEntryBytes ? null : data;
+    }
+
+    // ── One batch ─────────────────────────────────────────────────────────────
+
+    /** A converted collection: its YAML as written to the zip and the figures for the report. */
+    private record Converted(String collectionName, int postmanTokens, int swaggerTokens, byte[] yaml) {}
+
+    /** {@code holdsPermit} is false for inputs rejected before conversion. */
+    private record Pending(String source, CompletableFuture<Converted> result, boolean holdsPermit) {}
+
+    private final class Run {
+        private final ExecutorService executor;
+        private final ZipOutputStream zip;
+        private final Semaphore permits = new Semaphore(concurrency);
+        private final Deque<Pending> pending = new ArrayDeque<>();
+        private final List<BatchReport.Item> items = new ArrayList<>();
+        private final Set<String> outputNames = new HashSet<>();
+        private int submitted;
+
+        Run(ExecutorService executor, ZipOutputStream zip) {
+            this.executor = executor;
+            this.zip = zip;
+        }
+
+        /**
+         * Counts an entry against the batch limit before it is read; false, with the
+         * entry recorded as rejected, when it is over the batch or the entry limit.
+         *
+         * @param size the entry's length in bytes, or -1 if unknown
+         */
+        boolean accept(String source, long size) {
+            if (submitted++ >= maxEntries) {
+                reject(source, "Batch limit of " + maxEntries + " collections reached");
+                return false;
+            }
+            if (size > maxEntryBytes) {
+                rejectTooLarge(source);
+                return false;
+            }
+            return true;
+        }
+
+        /** @param content the accepted entry's bytes, or null when it turned out to be over the entry limit */
+        void submit(String source, byte[] content) throws IOException {
+            if (content == null) {
+                rejectTooLarge(source);
+                return;
+            }
+            // Permits are returned once a result is written, so free one by writing the oldest
+            while (!permits.tryAcquire()) {
+                writeOldest();
+            }
+            CompletableFuture<Converted> result = CompletableFuture.supplyAsync(() -> {
+                try (ConversionAdmission.Permit permit = admission.admit(content.length)) {
+                    PostmanToSwaggerService.PreparedSpec spec = converter.prepare(new ByteArrayInputStream(content));
+                    ByteArrayOutputStream yaml = new ByteArrayOutputStream(content.length / 2);
+                    int swaggerTokens = converter.writeCounted(spec, YAML, yaml);
+                    return new Converted(spec.collectionName(), spec.postmanTokens(), swaggerTokens,
+                            yaml.toByteArray());
+                } catch (Exception e) {
+                    throw new BatchItemException(e);
+                }
+            }, executor);
+            pending.add(new Pending(source, result, true));
+        }
+
+        private void rejectTooLarge(String source) {
+            reject(source, String.format("Exceeds the per-entry limit of %,d bytes", maxEntryBytes));
+        }
+
+        /** Queued like a conversion so the report stays in input order. */
+        private void reject(String source, String reason) {
+            pending.add(new Pending(source, CompletableFuture.failedFuture(new BatchItemException(reason)), false));
+        }
+
+        void drainAll() throws IOException {
+            while (!pending.isEmpty()) {
+                writeOldest();
+            }
+        }
+
+        private void writeOldest() throws IOException {
+            Pending next = pending.poll();
+            try {
+                Converted result = next.result().join();
+                String output = outputName(next.source());
+                zip.putNextEntry(new ZipEntry(output));
+                zip.write(result.yaml());
+                zip.closeEntry();
+                items.add(BatchReport.Item.builder()
+                        .source(next.source())
+                        .output(output)
+                        .collectionName(result.collectionName())
+                        .postmanTokens(result.postmanTokens())
+                        .swaggerTokens(result.swaggerTokens())
+                        .build());
+            } catch (RuntimeException e) {
+                items.add(failure(next.source(), IoSupport.rootMessage(e)));
+            } finally {
+                if (next.holdsPermit()) permits.release();
+            }
+        }
+
+        private String outputName(String source) {
+            String base = source.substring(source.lastIndexOf('/') + 1);
+            base = base.replaceFirst("(?i)(\\.postman_collection)?\\.json$", "");
+            if (base.isBlank()) base = "collection";
+            String name = base + ".yaml";
+            for (int i = 2; !outputNames.add(name); i++) name = base + "-" + i + ".yaml";
+            return name;
+        }
+
+        BatchReport report(long elapsedNanos) {
+            long postman = 0;
+            long swagger = 0;
+            int ok = 0;
+            for (BatchReport.Item item : items) {
+                if (item.getError() != null) continue;
+                ok++;
+                postman += item.getPostmanTokens();
+                swagger += item.getSwaggerTokens();
+            }
+            double pct = postman == 0 ? 0.0 : (double) (postman - swagger) / postman * 100.0;
+            return BatchReport.builder()
+                    .collections(items.size())
+                    .succeeded(ok)
+                    .failed(items.size() - ok)
+                    .tokenizer(tokenizer.name())
+                    .postmanTokens(postman)
+                    .swaggerTokens(swagger)
+                    .tokenDifference(postman - swagger)
+                    .reductionPct(String.format("%.1f", pct))
+                    .elapsedMillis(elapsedNanos / 1_000_000)
+                    .items(items)
+                    .build();
+        }
+    }
+
+    private static BatchReport.Item failure(String source, String error) {
+        return BatchReport.Item.builder().source(source).error(error).build();
+    }
+
+    private static final class BatchItemException extends RuntimeException {
+        BatchItemException(Throwable cause) {
+            super(cause);
+        }
+
+        BatchItemException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package org.doc.util.service.cache;
+
+/** Point-in-time counters of the {@link ConversionCache}. */
+public record CacheStats(long hits,
+                         long diskHits,
+                         long misses,
+                         long evictions,
+                         int entries,
+                         long bytes,
+                         long maxBytes,
+                         int diskEntries,
+                         long diskBytes) {
+}
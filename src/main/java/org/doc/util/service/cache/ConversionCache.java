@@ -0,0 +1,257 @@
+package org.doc.util.service.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.doc.util.model.ConversionResult;
+import org.doc.util.model.FormatOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of conversion results.
+ * <p>
+ * Keys are the XXH64 hash and length of the whitespace-trimmed UTF-8 input plus a
+ * variant string for everything else that shapes the output (tokenizer, options).
+ * Entries live in an access-ordered map evicted least-recently-used first whenever
+ * their estimated heap size exceeds the budget; an entry larger than a quarter of
+ * the budget is not kept in memory at all. When a directory is configured, results
+ * are also written there as JSON and memory misses fall back to disk, with the
+ * oldest files removed once the disk budget is exceeded.
+ */
+@Component
+public class ConversionCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionCache.class);
+    private static final long ENTRY_OVERHEAD = 512;
+
+    private final long maxBytes;
+    private final Path directory;
+    private final long maxDiskBytes;
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final LinkedHashMap<Path, Long> diskFiles = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long diskBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ConversionCache(@Value("${converter.cache.max-bytes:64MB}") DataSize maxBytes,
+                           @Value("${converter.cache.directory:}") String directory,
+                           @Value("${converter.cache.disk-max-bytes:1GB}") DataSize maxDiskBytes) {
+        this(maxBytes.toBytes(), directory.isBlank() ? null : Path.of(directory), maxDiskBytes.toBytes());
+    }
+
+    public ConversionCache(long maxBytes, Path directory, long maxDiskBytes) {
+        this.maxBytes = maxBytes;
+        this.directory = directory;
+        this.maxDiskBytes = maxDiskBytes;
+        if (directory != null) indexDirectory();
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0 || directory != null;
+    }
+
+    /** Key for a collection as submitted; leading/trailing whitespace does not change it. */
+    public Key key(byte[] input, String variant) {
+        int from = 0;
+        int to = input.length;
+        while (from < to && isWhitespace(input[from])) from++;
+        while (to > from && isWhitespace(input[to - 1])) to--;
+        return new Key(ContentHash.xxh64(input, from, to - from), to - from, variant);
+    }
+
+    public ConversionResult get(Key key) {
+        synchronized (this) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                hits.incrementAndGet();
+                return e.result();
+            }
+        }
+        ConversionResult fromDisk = readFromDisk(key);
+        if (fromDisk != null) {
+            diskHits.incrementAndGet();
+            remember(key, fromDisk);
+            return fromDisk;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(Key key, ConversionResult result) {
+        remember(key, result);
+        writeToDisk(key, result);
+    }
+
+    public CacheStats stats() {
+        synchronized (this) {
+            return new CacheStats(hits.get(), diskHits.get(), misses.get(), evictions.get(),
+                    entries.size(), bytes, maxBytes, diskFiles.size(), diskBytes);
+        }
+    }
+
+    // ── Memory tier ───────────────────────────────────────────────────────────
+
+    private synchronized void remember(Key key, ConversionResult result) {
+        long size = estimateSize(result);
+        if (size > maxBytes / 4) return;
+        Entry previous = entries.put(key, new Entry(result, size));
+        if (previous != null) bytes -= previous.size();
+        bytes += size;
+
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().size();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    /** Strings dominate a result; count two bytes per char plus a fixed overhead. */
+    private static long estimateSize(ConversionResult result) {
+        long chars = length(result.getPostmanJson()) + length(result.getSwaggerYaml());
+        if (result.getFormats() != null) {
+            for (FormatOutput format : result.getFormats()) chars += length(format.getContent());
+        }
+        return ENTRY_OVERHEAD + 2 * chars;
+    }
+
+    private static long length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
+    // ── Disk tier ─────────────────────────────────────────────────────────────
+
+    private void indexDirectory() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(p -> p.getFileName().toString().endsWith(".json"))
+                        .sorted(Comparator.comparing(ConversionCache::lastModified))
+                        .forEach(p -> {
+                            long size = sizeOf(p);
+                            diskFiles.put(p, size);
+                            diskBytes += size;
+                        });
+            }
+        } catch (IOException e) {
+            log.warn("Conversion cache directory {} is unusable: {}", directory, e.getMessage());
+        }
+    }
+
+    private ConversionResult readFromDisk(Key key) {
+        if (directory == null) return null;
+        Path file = fileFor(key);
+        synchronized (this) {
+            if (diskFiles.get(file) == null) return null;
+        }
+        try {
+            return jsonMapper.readValue(file.toFile(), ConversionResult.class);
+        } catch (IOException e) {
+            log.warn("Dropping unreadable cache file {}: {}", file, e.getMessage());
+            forget(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(Key key, ConversionResult result) {
+        if (directory == null) return;
+        Path file = fileFor(key);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(directory, "entry", ".tmp");
+            jsonMapper.writeValue(tmp.toFile(), result);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = sizeOf(file);
+            synchronized (this) {
+                Long previous = diskFiles.remove(file);
+                if (previous != null) diskBytes -= previous;
+                diskFiles.put(file, size);
+                diskBytes += size;
+            }
+            trimDisk();
+        } catch (IOException e) {
+            log.warn("Could not persist cache entry {}: {}", file, e.getMessage());
+            if (tmp != null) tmp.toFile().delete();
+        }
+    }
+
+    private void trimDisk() {
+        while (true) {
+            Path victim;
+            synchronized (this) {
+                if (diskBytes <= maxDiskBytes || diskFiles.isEmpty()) return;
+                Map.Entry<Path, Long> eldest = diskFiles.entrySet().iterator().next();
+                victim = eldest.getKey();
+            }
+            forget(victim);
+        }
+    }
+
+    private void forget(Path file) {
+        synchronized (this) {
+            Long size = diskFiles.remove(file);
+            if (size != null) diskBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cache file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /** Named by input hash, length and a 64-bit hash of the variant, so variants do not share a file. */
+    private Path fileFor(Key key) {
+        byte[] variant = key.variant().getBytes(StandardCharsets.UTF_8);
+        String variantHash = Long.toHexString(ContentHash.xxh64(variant, 0, variant.length));
+        return directory.resolve(Long.toHexString(key.hash()) + "-" + key.length() + "-" + variantHash + ".json");
+    }
+
+    private static long sizeOf(Path p) {
+        try {
+            return Files.size(p);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    // ── Types ─────────────────────────────────────────────────────────────────
+
+    public record Key(long hash, int length, String variant) {}
+
+    private record Entry(ConversionResult result, long size) {}
+}
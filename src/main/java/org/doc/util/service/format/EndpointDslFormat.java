@@ -0,0 +1,193 @@
+package org.doc.util.service.format;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A terse line-per-endpoint summary for prompts, not an OpenAPI document:
+ * <pre>
+ * ## Users
+ * GET /users/{id} "Get user" ?expand h:X-Trace -&gt; 200 {id:int, tags:[str]} | 404
+ * POST /users "Create user" &lt;- {name:str, age:int} -&gt; 201 User
+ * </pre>
+ * Endpoints are grouped under their first tag. Shared schemas are written once as
+ * {@code @schema Name {...}} lines and referred to by name. Path parameters are only
+ * shown in the path; operation ids and response descriptions are left out. A legend
+ * line at the top explains the notation.
+ */
+@Component
+@Order(30)
+public class EndpointDslFormat implements OutputFormat {
+
+    public static final String ID = "endpoint-dsl";
+
+    private static final String REF_PREFIX = "#/components/schemas/";
+    private static final String LEGEND = "# one line per endpoint: METHOD path \"summary\" ?query h:header"
+            + " <- request body -> status response | status;"
+            + " types int num str bool obj file, [item], {field:type}, a|b, ? nullable\n";
+    private static final Pattern BARE_NAME = Pattern.compile("[A-Za-z0-9_$.-]+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String label() {
+        return "Endpoint DSL";
+    }
+
+    @Override
+    public String mediaType() {
+        return "text/plain;charset=UTF-8";
+    }
+
+    @Override
+    public String extension() {
+        return "txt";
+    }
+
+    @Override
+    public void write(Map<String, Object> openApi, Writer out) throws IOException {
+        Map<?, ?> info = map(openApi.get("info"));
+        out.write("# " + text(info.get("title")) + " " + text(info.get("version")).trim());
+        String description = oneLine(info.get("description"));
+        if (!description.isEmpty()) out.write(" — " + description);
+        out.write('\n');
+        out.write(LEGEND);
+        for (Object server : list(openApi.get("servers"))) {
+            out.write("@server " + text(map(server).get("url")) + "\n");
+        }
+        Map<?, ?> schemas = map(map(openApi.get("components")).get("schemas"));
+        for (Map.Entry<?, ?> e : schemas.entrySet()) {
+            out.write("@schema " + e.getKey() + " " + schema(e.getValue()) + "\n");
+        }
+
+        // Grouped by first tag in order of appearance; untagged endpoints come first
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        groups.put("", new ArrayList<>());
+        for (Map.Entry<?, ?> path : map(openApi.get("paths")).entrySet()) {
+            for (Map.Entry<?, ?> op : map(path.getValue()).entrySet()) {
+                Map<?, ?> operation = map(op.getValue());
+                List<?> tags = list(operation.get("tags"));
+                String tag = tags.isEmpty() ? "" : text(tags.getFirst());
+                groups.computeIfAbsent(tag, k -> new ArrayList<>())
+                        .add(endpoint(String.valueOf(op.getKey()), String.valueOf(path.getKey()), operation));
+            }
+        }
+        for (Map.Entry<String, List<String>> group : groups.entrySet()) {
+            if (group.getValue().isEmpty()) continue;
+            if (!group.getKey().isEmpty()) out.write("## " + group.getKey() + "\n");
+            for (String line : group.getValue()) {
+                out.write(line);
+                out.write('\n');
+            }
+        }
+    }
+
+    private String endpoint(String method, String path, Map<?, ?> op) {
+        StringBuilder line = new StringBuilder(method.toUpperCase(Locale.ROOT)).append(' ').append(path);
+        String summary = oneLine(op.get("summary"));
+        if (!summary.isEmpty()) line.append(' ').append(quote(summary));
+
+        for (Object p : list(op.get("parameters"))) {
+            Map<?, ?> param = map(p);
+            String in = text(param.get("in"));
+            if (in.equals("path")) continue;
+            line.append(' ').append(switch (in) {
+                case "query" -> "?";
+                case "header" -> "h:";
+                case "cookie" -> "c:";
+                default -> in + ":";
+            }).append(text(param.get("name")));
+            if (Boolean.TRUE.equals(param.get("required"))) line.append('!');
+            String type = schema(param.get("schema"));
+            if (!type.equals("str")) line.append(':').append(type);
+        }
+
+        Map<?, ?> content = map(map(op.get("requestBody")).get("content"));
+        for (Map.Entry<?, ?> media : content.entrySet()) {
+            line.append(" <- ");
+            if (!media.getKey().equals("application/json")) line.append(media.getKey()).append(' ');
+            Object schema = map(media.getValue()).get("schema");
+            if (schema != null) line.append(schema(schema));
+        }
+
+        Map<?, ?> responses = map(op.get("responses"));
+        if (!responses.isEmpty()) {
+            StringJoiner codes = new StringJoiner(" | ", " -> ", "");
+            for (Map.Entry<?, ?> response : responses.entrySet()) {
+                Object schema = map(map(map(response.getValue()).get("content")).get("application/json")).get("schema");
+                codes.add(schema == null ? String.valueOf(response.getKey()) : response.getKey() + " " + schema(schema));
+            }
+            line.append(codes);
+        }
+
+        String description = oneLine(op.get("description"));
+        if (!description.isEmpty()) line.append("  # ").append(description);
+        return line.toString();
+    }
+
+    /** Compact type notation: {@code {id:int, tags:[str], ref:int|str}}, shared schemas by name. */
+    static String schema(Object node) {
+        Map<?, ?> schema = map(node);
+        if (schema.get("$ref") instanceof String ref) {
+            return ref.startsWith(REF_PREFIX) ? ref.substring(REF_PREFIX.length()) : ref;
+        }
+        String notation = schema.get("oneOf") instanceof List<?> variants
+                ? String.join("|", variants.stream().map(EndpointDslFormat::schema).toList())
+                : type(schema);
+        return Boolean.TRUE.equals(schema.get("nullable")) ? notation + "?" : notation;
+    }
+
+    private static String type(Map<?, ?> schema) {
+        String type = text(schema.get("type"));
+        return switch (type) {
+            case "object" -> {
+                Map<?, ?> props = map(schema.get("properties"));
+                if (props.isEmpty()) yield "obj";
+                StringJoiner fields = new StringJoiner(", ", "{", "}");
+                props.forEach((name, prop) -> fields.add(key(String.valueOf(name)) + ":" + schema(prop)));
+                yield fields.toString();
+            }
+            case "array" -> "[" + schema(schema.get("items")) + "]";
+            case "string" -> "binary".equals(schema.get("format")) ? "file" : "str";
+            case "integer" -> "int";
+            case "number" -> "num";
+            case "boolean" -> "bool";
+            case "" -> "any";
+            default -> type;
+        };
+    }
+
+    private static String key(String name) {
+        return BARE_NAME.matcher(name).matches() ? name : quote(name);
+    }
+
+    private static String quote(String s) {
+        return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(s)) + "\"";
+    }
+
+    private static String oneLine(Object value) {
+        return WHITESPACE.matcher(text(value)).replaceAll(" ").trim();
+    }
+
+    private static String text(Object value) {
+        return value == null ? "" : String.valueOf(value);
+    }
+
+    private static Map<?, ?> map(Object value) {
+        return value instanceof Map<?, ?> m ? m : Map.of();
+    }
+
+    private static List<?> list(Object value) {
+        return value instanceof List<?> l ? l : List.of();
+    }
+}
@@ -0,0 +1,136 @@
+package org.doc.util.service.format;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * YAML that keeps the outline readable and packs everything else into flow style:
+ * the document, paths, path items and operations are block maps, and every value
+ * below an operation (parameters, bodies, responses, schemas) is written inline as
+ * {@code {type: object, properties: {id: {type: integer}}}}. Saves the indentation
+ * and one line per schema keyword that block YAML spends. Strings are left unquoted
+ * whenever YAML would read them back as the same string.
+ */
+@Component
+@Order(20)
+public class FlowYamlFormat implements OutputFormat {
+
+    public static final String ID = "yaml-flow";
+
+    /** Maps above this depth (document = 0) are written block style. */
+    private static final int BLOCK_DEPTH = 4;
+
+    /** Plain scalars; flow context additionally forbids the collection indicators. */
+    private static final Pattern FLOW_PLAIN = Pattern.compile("[A-Za-z_$/][A-Za-z0-9_ .$/-]*");
+    private static final Pattern BLOCK_PLAIN = Pattern.compile("[A-Za-z_$/][A-Za-z0-9_ .$/{}-]*");
+    private static final Set<String> RESERVED = Set.of("true", "false", "null", "yes", "no", "on", "off", "y", "n");
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String label() {
+        return "Flow YAML";
+    }
+
+    @Override
+    public String mediaType() {
+        return "application/yaml";
+    }
+
+    @Override
+    public String extension() {
+        return "yaml";
+    }
+
+    @Override
+    public void write(Map<String, Object> openApi, Writer out) throws IOException {
+        writeBlock(openApi, 0, out);
+    }
+
+    private void writeBlock(Map<?, ?> map, int depth, Writer out) throws IOException {
+        String indent = "  ".repeat(depth);
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            Object value = e.getValue();
+            if (isEmpty(value)) continue;
+            out.write(indent);
+            out.write(scalar(String.valueOf(e.getKey()), false));
+            out.write(':');
+            boolean block = depth + 1 < BLOCK_DEPTH;
+            if (block && value instanceof Map<?, ?> nested && hasContent(nested)) {
+                out.write('\n');
+                writeBlock(nested, depth + 1, out);
+            } else if (block && value instanceof List<?> list) {
+                out.write('\n');
+                for (Object item : list) {
+                    out.write(indent);
+                    out.write("  - ");
+                    writeFlow(item, out);
+                    out.write('\n');
+                }
+            } else {
+                out.write(' ');
+                writeFlow(value, out);
+                out.write('\n');
+            }
+        }
+    }
+
+    private void writeFlow(Object value, Writer out) throws IOException {
+        if (value instanceof Map<?, ?> map) {
+            out.write('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                if (isEmpty(e.getValue())) continue;
+                if (!first) out.write(", ");
+                first = false;
+                out.write(scalar(String.valueOf(e.getKey()), true));
+                out.write(": ");
+                writeFlow(e.getValue(), out);
+            }
+            out.write('}');
+        } else if (value instanceof List<?> list) {
+            out.write('[');
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) out.write(", ");
+                writeFlow(list.get(i), out);
+            }
+            out.write(']');
+        } else if (value instanceof String s) {
+            out.write(scalar(s, true));
+        } else {
+            out.write(String.valueOf(value));
+        }
+    }
+
+    /** The string as written: plain when YAML reads it back unchanged, else double-quoted. */
+    static String scalar(String s, boolean flow) {
+        boolean plain = (flow ? FLOW_PLAIN : BLOCK_PLAIN).matcher(s).matches()
+                && !s.endsWith(" ")
+                && !RESERVED.contains(s.toLowerCase(Locale.ROOT));
+        return plain ? s : "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(s)) + "\"";
+    }
+
+    /** Mirrors the NON_NULL / NON_EMPTY inclusion of the other formats. */
+    private static boolean isEmpty(Object value) {
+        return value == null
+                || value instanceof String s && s.isEmpty()
+                || value instanceof Map<?, ?> m && m.isEmpty()
+                || value instanceof List<?> l && l.isEmpty();
+    }
+
+    private static boolean hasContent(Map<?, ?> map) {
+        return map.values().stream().anyMatch(v -> !isEmpty(v));
+    }
+}
@@ -0,0 +1,56 @@
+package org.doc.util.service.format;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/** OpenAPI as JSON without any whitespace. */
+@Component
+@Order(10)
+public class MinifiedJsonFormat implements OutputFormat {
+
+    public static final String ID = "json-min";
+
+    private final ObjectMapper mapper = newMapper();
+
+    /** The mapper behind this format; empty values are omitted as in the YAML. */
+    public static ObjectMapper newMapper() {
+        return new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String label() {
+        return "Minified JSON";
+    }
+
+    @Override
+    public String mediaType() {
+        return "application/json";
+    }
+
+    @Override
+    public String extension() {
+        return "json";
+    }
+
+    @Override
+    public void write(Map<String, Object> openApi, Writer out) throws IOException {
+        try (JsonGenerator gen = mapper.createGenerator(out)) {
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            mapper.writeValue(gen, openApi);
+        }
+    }
+}
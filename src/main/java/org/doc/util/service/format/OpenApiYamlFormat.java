@@ -0,0 +1,61 @@
+package org.doc.util.service.format;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+
+/** Block-style OpenAPI YAML, the format shown in the UI. */
+@Component
+@Order(0)
+public class OpenApiYamlFormat implements OutputFormat {
+
+    public static final String ID = "openapi-yaml";
+
+    private final ObjectMapper mapper = newMapper();
+
+    /** The mapper behind this format; empty values are omitted. */
+    public static ObjectMapper newMapper() {
+        return new ObjectMapper(
+                new YAMLFactory()
+                        .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
+                        .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES))
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String label() {
+        return "OpenAPI YAML";
+    }
+
+    @Override
+    public String mediaType() {
+        return "application/yaml";
+    }
+
+    @Override
+    public String extension() {
+        return "yaml";
+    }
+
+    @Override
+    public void write(Map<String, Object> openApi, Writer out) throws IOException {
+        try (JsonGenerator gen = mapper.createGenerator(out)) {
+            gen.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+            mapper.writeValue(gen, openApi);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.doc.util.service.format;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * A serialization of the generated OpenAPI document. Implementations are Spring beans,
+ * collected by {@link OutputFormats} in {@code @Order}; adding a bean adds a format.
+ * Implementations must be thread-safe, since formats are rendered in parallel.
+ */
+public interface OutputFormat {
+
+    /** Stable identifier used in URLs and results, e.g. {@code json-min}. */
+    String id();
+
+    /** Short name shown in the UI. */
+    String label();
+
+    String mediaType();
+
+    /** File extension without the dot. */
+    String extension();
+
+    /** Writes {@code openApi} to {@code out}, leaving it open. */
+    void write(Map<String, Object> openApi, Writer out) throws IOException;
+
+    default String render(Map<String, Object> openApi) {
+        StringWriter out = new StringWriter();
+        try {
+            write(openApi, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+}
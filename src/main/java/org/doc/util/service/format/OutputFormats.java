@@ -0,0 +1,42 @@
+package org.doc.util.service.format;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** The available output formats, in {@code @Order}, looked up by {@link OutputFormat#id()}. */
+@Component
+public class OutputFormats {
+
+    private final Map<String, OutputFormat> byId = new LinkedHashMap<>();
+
+    public OutputFormats(List<OutputFormat> formats) {
+        for (OutputFormat format : formats) {
+            if (byId.putIfAbsent(format.id(), format) != null) {
+                throw new IllegalStateException("Duplicate output format id '" + format.id() + "'");
+            }
+        }
+    }
+
+    /** The formats that ship with the converter, for use outside a Spring context. */
+    public static OutputFormats builtIn() {
+        return new OutputFormats(List.of(new OpenApiYamlFormat(), new MinifiedJsonFormat(),
+                new FlowYamlFormat(), new EndpointDslFormat()));
+    }
+
+    public List<OutputFormat> all() {
+        return List.copyOf(byId.values());
+    }
+
+    /** @throws IllegalArgumentException for an unknown id, listing the known ones */
+    public OutputFormat get(String id) {
+        OutputFormat format = byId.get(id);
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown output format '" + id + "'; expected one of "
+                    + String.join(", ", byId.keySet()));
+        }
+        return format;
+    }
+}
@@ -0,0 +1,80 @@
+package org.doc.util.service.incremental;
+
+import org.doc.util.service.tokenizer.ChunkCounts;
+
+import java.util.Map;
+
+/**
+ * What a conversion leaves behind for the next conversion of the same collection: the
+ * built operation of every request item, keyed by the item's fingerprint, and the
+ * token counts of the YAML and pretty-printed Postman chunks, keyed by chunk hash.
+ * Operations are shared with the documents built from them and must not be modified.
+ */
+public final class ConversionState {
+
+    public static final ConversionState EMPTY =
+            new ConversionState("", Map.of(), ChunkCounts.EMPTY, ChunkCounts.EMPTY, 0);
+
+    private static final long ENTRY_OVERHEAD = 512;
+    private static final long OPERATION_OVERHEAD = 160;
+
+    /** A request item's operation before schema deduplication. */
+    public record Operation(String path, String method, Map<String, Object> operation) {
+    }
+
+    private final String variant;
+    private final Map<Long, Operation> operations;
+    private final ChunkCounts yamlChunks;
+    private final ChunkCounts postmanChunks;
+    private final long estimatedSize;
+
+    /**
+     * Takes ownership of the maps.
+     *
+     * @param documentChars length of the YAML built from the operations, for the size estimate
+     */
+    public ConversionState(String variant, Map<Long, Operation> operations,
+                           ChunkCounts yamlChunks, ChunkCounts postmanChunks, long documentChars) {
+        this.variant = variant;
+        this.operations = operations;
+        this.yamlChunks = yamlChunks;
+        this.postmanChunks = postmanChunks;
+        // The operations hold about what the YAML says, as strings plus the maps around them
+        this.estimatedSize = ENTRY_OVERHEAD + OPERATION_OVERHEAD * operations.size() + 4 * documentChars
+                + yamlChunks.estimatedSize() + postmanChunks.estimatedSize();
+    }
+
+    /** Settings the state was built with; a state is only reused under the same ones. */
+    public String variant() {
+        return variant;
+    }
+
+    public Operation operation(long fingerprint) {
+        return operations.get(fingerprint);
+    }
+
+    public boolean hasOperation(long fingerprint) {
+        return operations.containsKey(fingerprint);
+    }
+
+    public Iterable<Long> fingerprints() {
+        return operations.keySet();
+    }
+
+    public int operationCount() {
+        return operations.size();
+    }
+
+    public ChunkCounts yamlChunks() {
+        return yamlChunks;
+    }
+
+    public ChunkCounts postmanChunks() {
+        return postmanChunks;
+    }
+
+    /** Approximate heap held by the state, for the store's budget. */
+    public long estimatedSize() {
+        return estimatedSize;
+    }
+}
@@ -0,0 +1,62 @@
+package org.doc.util.service.incremental;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The most recently used conversion states, by id, so that a pipeline can send only
+ * the id of its last conversion along with the new collection. At most
+ * {@code max-states} are kept, and their estimated size stays within {@code max-bytes};
+ * the least recently used is dropped first. A state larger than the whole budget is
+ * not kept, so its next conversion starts from scratch.
+ */
+@Component
+public class ConversionStateStore {
+
+    private final int maxStates;
+    private final long maxBytes;
+    private final LinkedHashMap<String, ConversionState> states = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    @Autowired
+    public ConversionStateStore(@Value("${converter.incremental.max-states:16}") int maxStates,
+                                @Value("${converter.incremental.max-bytes:128MB}") DataSize maxBytes) {
+        this(maxStates, maxBytes.toBytes());
+    }
+
+    public ConversionStateStore(int maxStates, long maxBytes) {
+        this.maxStates = maxStates;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized ConversionState get(String id) {
+        return id == null ? null : states.get(id);
+    }
+
+    public synchronized void put(String id, ConversionState state) {
+        ConversionState replaced = states.remove(id);
+        if (replaced != null) bytes -= replaced.estimatedSize();
+        if (maxStates <= 0 || state.estimatedSize() > maxBytes) return;
+        states.put(id, state);
+        bytes += state.estimatedSize();
+        Iterator<ConversionState> eldest = states.values().iterator();
+        while (states.size() > maxStates || bytes > maxBytes) {
+            bytes -= eldest.next().estimatedSize();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return states.size();
+    }
+
+    /** Estimated size of the states kept. */
+    public synchronized long bytes() {
+        return bytes;
+    }
+}
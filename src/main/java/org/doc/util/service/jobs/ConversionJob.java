@@ -0,0 +1,131 @@
+package org.doc.util.service.jobs;
+
+import org.doc.util.model.ConversionJobStatus;
+import org.doc.util.model.SpecFormat;
+import org.doc.util.model.StreamingConversionSummary;
+import org.doc.util.service.PostmanToSwaggerService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CancellationException;
+
+/**
+ * One submitted conversion. State is written by the worker converting it and read
+ * by pollers, so every field that changes is volatile; the job is also the progress
+ * listener of its conversion and abandons it once cancelled.
+ */
+public final class ConversionJob implements PostmanToSwaggerService.Progress {
+
+    public enum State {
+        QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this != QUEUED && this != RUNNING;
+        }
+    }
+
+    private final String id;
+    private final SpecFormat format;
+    private final Instant submittedAt;
+
+    private volatile State state = State.QUEUED;
+    private volatile boolean cancelled;
+    private volatile int total = -1;
+    private volatile int processed;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile StreamingConversionSummary summary;
+    private volatile long resultBytes;
+    private volatile String error;
+
+    ConversionJob(String id, SpecFormat format, Instant submittedAt) {
+        this.id = id;
+        this.format = format;
+        this.submittedAt = submittedAt;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public SpecFormat format() {
+        return format;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    Instant finishedAt() {
+        return finishedAt;
+    }
+
+    // ── Progress ──────────────────────────────────────────────────────────────
+
+    @Override
+    public void started(int requests) {
+        total = requests;
+    }
+
+    @Override
+    public void processed(int done) {
+        if (cancelled) throw new CancellationException("Job " + id + " was cancelled");
+        processed = done;
+    }
+
+    // ── Transitions ───────────────────────────────────────────────────────────
+
+    void running(Instant now) {
+        startedAt = now;
+        state = State.RUNNING;
+    }
+
+    void succeeded(StreamingConversionSummary summary, long resultBytes, Instant now) {
+        this.summary = summary;
+        this.resultBytes = resultBytes;
+        finish(State.SUCCEEDED, now);
+    }
+
+    void failed(String error, Instant now) {
+        this.error = error;
+        finish(State.FAILED, now);
+    }
+
+    /** Marks the job cancelled; a running conversion stops at its next request item. */
+    void cancel(Instant now) {
+        cancelled = true;
+        if (!state.isFinished()) finish(State.CANCELLED, now);
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void finish(State state, Instant now) {
+        finishedAt = now;
+        this.state = state;
+    }
+
+    public ConversionJobStatus status(Duration ttl) {
+        StreamingConversionSummary done = summary;
+        Instant finished = finishedAt;
+        return ConversionJobStatus.builder()
+                .id(id)
+                .state(state.name())
+                .format(format.formatId())
+                .processedRequests(processed)
+                .totalRequests(total)
+                .submittedAt(submittedAt)
+                .startedAt(startedAt)
+                .finishedAt(finished)
+                .expiresAt(finished != null ? finished.plus(ttl) : null)
+                .collectionName(done != null ? done.getCollectionName() : null)
+                .operationCount(done != null ? done.getOperationCount() : null)
+                .uncollapsedRequests(done != null ? done.getUncollapsedRequests() : null)
+                .postmanTokens(done != null ? done.getPostmanTokens() : null)
+                .swaggerTokens(done != null ? done.getSwaggerTokens() : null)
+                .resultBytes(done != null ? resultBytes : null)
+                .error(error)
+                .build();
+    }
+}
@@ -0,0 +1,227 @@
+package org.doc.util.service.jobs;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.doc.util.model.SpecFormat;
+import org.doc.util.model.StreamingConversionSummary;
+import org.doc.util.service.IoSupport;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.admission.AdmissionRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Asynchronous conversions for collections too large to convert within one HTTP
+ * request.
+ * <p>
+ * A submitted collection is spooled to the job directory and queued; a fixed pool of
+ * {@code workers} threads converts queued jobs with the streaming converter, writing
+ * the result to a file next to the input, so neither the collection nor the document
+ * is ever held in memory. At most {@code max-queued} jobs wait for a worker; beyond
+ * that, submissions are rejected with 429. Finished jobs, their status and their
+ * result file are removed {@code ttl} after they finish, by a periodic sweep and on
+ * every call, so disk use and the job table stay bounded. Jobs do not survive a
+ * restart: leftover files in the directory are removed at startup.
+ */
+@Service
+public class ConversionJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversionJobService.class);
+    private static final long RETRY_AFTER_SECONDS = 10;
+
+    private final PostmanToSwaggerService converter;
+    private final Path directory;
+    private final Duration ttl;
+    private final Clock clock;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, ConversionJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ConversionJobService(PostmanToSwaggerService converter,
+                                @Value("${converter.jobs.workers:2}") int workers,
+                                @Value("${converter.jobs.max-queued:32}") int maxQueued,
+                                @Value("${converter.jobs.directory:}") String directory,
+                                @Value("${converter.jobs.ttl:1h}") Duration ttl) throws IOException {
+        this(converter, workers, maxQueued,
+                directory.isBlank() ? Files.createTempDirectory("conversion-jobs") : Path.of(directory),
+                ttl, Clock.systemUTC());
+    }
+
+    public ConversionJobService(PostmanToSwaggerService converter, int workers, int maxQueued, Path directory,
+                                Duration ttl, Clock clock) throws IOException {
+        this.converter = converter;
+        this.directory = Files.createDirectories(directory);
+        this.ttl = ttl;
+        this.clock = clock;
+        int threads = Math.max(1, workers);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)),
+                Thread.ofPlatform().name("conversion-job-", 1).daemon(true).factory());
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("conversion-job-sweeper").daemon(true).factory());
+        removeLeftovers();
+    }
+
+    /** Starts the periodic sweep once the service is fully constructed; every call also expires jobs. */
+    @PostConstruct
+    public void startSweeper() {
+        long period = Math.clamp(ttl.toSeconds(), 1, 60);
+        sweeper.scheduleWithFixedDelay(this::expire, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Spools the collection and queues its conversion.
+     *
+     * @throws AdmissionRejectedException (429) when {@code max-queued} jobs are already waiting
+     */
+    public ConversionJob submit(InputStream collection, SpecFormat format) throws IOException {
+        expire();
+        if (executor.getQueue().remainingCapacity() == 0) throw queueFull();
+
+        ConversionJob job = new ConversionJob(UUID.randomUUID().toString(), format, clock.instant());
+        Path input = file(job, "in");
+        try {
+            Files.copy(collection, input);
+            jobs.put(job.id(), job);
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            abandon(job);
+            throw queueFull();
+        } catch (IOException | RuntimeException e) {
+            abandon(job);
+            throw e;
+        }
+        return job;
+    }
+
+    /** The job with this id, or null when it is unknown or has expired. */
+    public ConversionJob get(String id) {
+        expire();
+        return id == null ? null : jobs.get(id);
+    }
+
+    /** The result file of a succeeded job. */
+    public Path result(ConversionJob job) {
+        return file(job, "out");
+    }
+
+    /** Cancels the job if it has not finished and deletes it; false if there was none. */
+    public boolean delete(String id) {
+        ConversionJob job = jobs.remove(id);
+        if (job == null) return false;
+        job.cancel(clock.instant());
+        deleteFiles(job);
+        return true;
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    // ── Worker ────────────────────────────────────────────────────────────────
+
+    private void run(ConversionJob job) {
+        if (job.isCancelled()) return; // deleted while queued
+        job.running(clock.instant());
+        Path input = file(job, "in");
+        Path partial = file(job, "tmp");
+        Path result = file(job, "out");
+        try {
+            StreamingConversionSummary summary;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 65536)) {
+                summary = converter.convertStreaming(new FileSystemResource(input), out, job.format(), job);
+            }
+            Files.move(partial, result, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            job.succeeded(summary, Files.size(result), clock.instant());
+        } catch (CancellationException e) {
+            // delete() already finished the job and removed it
+        } catch (Exception e) {
+            job.failed(IoSupport.rootMessage(e), clock.instant());
+        } finally {
+            deleteQuietly(input);
+            deleteQuietly(partial);
+            if (job.isCancelled()) deleteQuietly(result);
+        }
+    }
+
+    // ── Disk store ────────────────────────────────────────────────────────────
+
+    /** Drops jobs that finished more than {@code ttl} ago, with their files. */
+    void expire() {
+        Instant cutoff = clock.instant().minus(ttl);
+        jobs.values().removeIf(job -> {
+            Instant finished = job.finishedAt();
+            if (finished == null || finished.isAfter(cutoff)) return false;
+            deleteFiles(job);
+            return true;
+        });
+    }
+
+    private void abandon(ConversionJob job) {
+        jobs.remove(job.id());
+        deleteFiles(job);
+    }
+
+    private Path file(ConversionJob job, String kind) {
+        return directory.resolve("job-" + job.id() + "." + kind);
+    }
+
+    private void deleteFiles(ConversionJob job) {
+        for (String kind : new String[] {"in", "tmp", "out"}) deleteQuietly(file(job, kind));
+    }
+
+    private void removeLeftovers() {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(p -> p.getFileName().toString().startsWith("job-")).forEach(this::deleteQuietly);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not clean job directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete job file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private AdmissionRejectedException queueFull() {
+        return new AdmissionRejectedException(429, "Too many conversion jobs queued; retry shortly",
+                RETRY_AFTER_SECONDS);
+    }
+}
@@ -0,0 +1,371 @@
+package org.doc.util.service.merge;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.doc.util.model.MergeReport;
+import org.doc.util.service.IoSupport;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Merges several collections of one product into a single OpenAPI document.
+ * <p>
+ * Each collection is parsed and built into its paths on its own virtual thread (at
+ * most {@code concurrency} at a time, each admitted against the memory budget) and
+ * added straight to a shared index: concurrent maps of path → method → claim,
+ * servers and tags, updated per key so collections never wait on each other for
+ * different paths. Operations are built from the shared interner, so identical
+ * schemas across collections are one node and are lifted into
+ * {@code components/schemas} once, for the whole document.
+ * <p>
+ * When several collections define the same path and method, the operation of the
+ * earliest collection in input order wins whatever order they finish in; identical
+ * definitions count as duplicates, different ones are reported as conflicts. The
+ * first server becomes the document's; operations of collections with another base
+ * URL carry their own {@code servers}. A collection that fails is reported and left
+ * out, as is one larger than {@code max-collection-bytes}. A collection is admitted on
+ * its size before it is read, and parsed from its stream.
+ */
+@Service
+public class CollectionMergeService {
+
+    private final PostmanToSwaggerService converter;
+    private final Tokenizer tokenizer;
+    private final ConversionAdmission admission;
+    private final int concurrency;
+    private final int maxCollections;
+    private final long maxCollectionBytes;
+    private final ObjectMapper jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    @Autowired
+    public CollectionMergeService(PostmanToSwaggerService converter, Tokenizer tokenizer,
+                                  ConversionAdmission admission,
+                                  @Value("${converter.merge.concurrency:0}") int concurrency,
+                                  @Value("${converter.merge.max-collections:100}") int maxCollections,
+                                  @Value("${converter.merge.max-collection-bytes:50MB}") DataSize maxCollectionBytes) {
+        this.converter = converter;
+        this.tokenizer = tokenizer;
+        this.admission = admission;
+        this.concurrency = concurrency > 0 ? concurrency : Runtime.getRuntime().availableProcessors();
+        this.maxCollections = maxCollections;
+        this.maxCollectionBytes = maxCollectionBytes.toBytes();
+    }
+
+    /** An uploaded collection file; {@code size} is its length in bytes, or -1 if unknown. */
+    public record Input(String name, InputStreamSource source, long size) {}
+
+    /** The merged OpenAPI YAML and its report. */
+    public record Merged(String yaml, MergeReport report) {}
+
+    /** @param title {@code info.title} of the merged document */
+    public Merged merge(List<Input> inputs, String title) {
+        if (inputs.isEmpty()) throw new IllegalArgumentException("No collections to merge");
+        if (inputs.size() > maxCollections) {
+            throw new IllegalArgumentException("At most " + maxCollections + " collections can be merged at once");
+        }
+        long started = System.nanoTime();
+        Index index = new Index();
+        List<CompletableFuture<PostmanToSwaggerService.CollectionPart>> parts = new ArrayList<>(inputs.size());
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < inputs.size(); i++) {
+                int collection = i;
+                Input input = inputs.get(i);
+                parts.add(CompletableFuture.supplyAsync(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        PostmanToSwaggerService.CollectionPart part = buildPart(input);
+                        index.add(collection, part);
+                        return part;
+                    } finally {
+                        permits.release();
+                    }
+                }, executor));
+            }
+        }
+
+        List<MergeReport.Item> items = new ArrayList<>(inputs.size());
+        List<String> servers = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            try {
+                PostmanToSwaggerService.CollectionPart part = parts.get(i).join();
+                items.add(MergeReport.Item.builder()
+                        .source(inputs.get(i).name())
+                        .collectionName(part.collectionName())
+                        .operations(part.operationCount())
+                        .swaggerTokens(part.swaggerTokens())
+                        .build());
+                if (part.server() != null && !servers.contains(part.server())) servers.add(part.server());
+            } catch (CompletionException e) {
+                items.add(MergeReport.Item.builder().source(inputs.get(i).name())
+                        .error(IoSupport.rootMessage(e)).build());
+            }
+        }
+
+        Map<String, Object> openApi = new LinkedHashMap<>();
+        openApi.put("openapi", "3.0.3");
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("title", title);
+        info.put("version", "1.0.0");
+        openApi.put("info", info);
+        if (!servers.isEmpty()) openApi.put("servers", List.of(Map.of("url", servers.get(0))));
+        Map<String, Object> paths = index.paths(servers.isEmpty() ? null : servers.get(0));
+        openApi.put("paths", paths.isEmpty() ? Map.of("/", Map.of()) : paths);
+        PostmanToSwaggerService.AssembledSpec spec = converter.assemble(openApi);
+
+        long separate = 0;
+        int ok = 0;
+        for (MergeReport.Item item : items) {
+            if (item.getError() != null) continue;
+            ok++;
+            separate += item.getSwaggerTokens();
+        }
+        double pct = separate == 0 ? 0.0 : (double) (separate - spec.swaggerTokens()) / separate * 100.0;
+        MergeReport report = MergeReport.builder()
+                .collections(inputs.size())
+                .succeeded(ok)
+                .failed(inputs.size() - ok)
+                .tokenizer(tokenizer.name())
+                .operations(index.operations())
+                .duplicateOperations(index.duplicates())
+                .servers(servers)
+                .sharedTags(index.sharedTags())
+                .sharedSchemas(spec.liftedSchemas())
+                .separateSwaggerTokens(separate)
+                .mergedSwaggerTokens(spec.swaggerTokens())
+                .tokenSavings(separate - spec.swaggerTokens())
+                .savingsPct(String.format("%.1f", pct))
+                .elapsedMillis((System.nanoTime() - started) / 1_000_000)
+                .items(items)
+                .conflicts(index.conflicts(inputs))
+                .build();
+        return new Merged(spec.yaml(), report);
+    }
+
+    /** Writes {@code openapi.yaml} and {@code merge-report.json} as a zip, leaving {@code out} open. */
+    public void write(Merged merged, OutputStream out) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(IoSupport.keepOpen(out))) {
+            zip.putNextEntry(new ZipEntry("openapi.yaml"));
+            zip.write(merged.yaml().getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+            zip.putNextEntry(new ZipEntry("merge-report.json"));
+            jsonMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(zip, merged.report());
+            zip.closeEntry();
+        }
+    }
+
+    /** Admits the collection on its size (the limit when unknown), then parses it from its stream. */
+    private PostmanToSwaggerService.CollectionPart buildPart(Input input) {
+        if (input.size() > maxCollectionBytes) throw new IllegalArgumentException(tooLarge());
+        long size = input.size() >= 0 ? input.size() : maxCollectionBytes;
+        try (ConversionAdmission.Permit permit = admission.admit(size);
+             InputStream in = new Limited(input.source().getInputStream(), maxCollectionBytes)) {
+            JsonNode root = jsonMapper.readTree(in);
+            if (root == null || !root.isObject()) {
+                throw new IllegalArgumentException("Not a Postman collection object");
+            }
+            return converter.buildPart(root);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private String tooLarge() {
+        return String.format("Exceeds the per-collection limit of %,d bytes", maxCollectionBytes);
+    }
+
+    /** Fails a read that goes past {@code limit} bytes, for sources whose size was not known. */
+    private final class Limited extends FilterInputStream {
+        private long remaining;
+
+        Limited(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count(1);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count(n);
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            remaining -= n;
+            if (remaining < 0) throw new IOException(tooLarge());
+        }
+    }
+
+    // ── Shared index ──────────────────────────────────────────────────────────
+
+    /**
+     * An operation as defined by one collection, with its position there so that the
+     * merged document keeps input order however the threads interleave.
+     */
+    private record Claim(int collection, int pathOrdinal, int methodOrdinal, String server,
+                         Map<?, ?> operation) {
+
+        boolean precedes(Claim other) {
+            return collection < other.collection;
+        }
+    }
+
+    private static final class Index {
+        private static final Comparator<Claim> CLAIM_ORDER =
+                Comparator.comparingInt(Claim::collection).thenComparingInt(Claim::pathOrdinal);
+
+        private final ConcurrentHashMap<String, ConcurrentHashMap<String, Claim>> paths = new ConcurrentHashMap<>();
+        /** path + " " + method → every claim, only for pairs defined more than once */
+        private final ConcurrentHashMap<String, List<Claim>> contested = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, Set<Integer>> tags = new ConcurrentHashMap<>();
+
+        void add(int collection, PostmanToSwaggerService.CollectionPart part) {
+            int pathOrdinal = 0;
+            for (Map.Entry<String, Object> path : part.paths().entrySet()) {
+                ConcurrentHashMap<String, Claim> methods =
+                        paths.computeIfAbsent(path.getKey(), k -> new ConcurrentHashMap<>());
+                int methodOrdinal = 0;
+                for (Map.Entry<?, ?> method : ((Map<?, ?>) path.getValue()).entrySet()) {
+                    Claim claim = new Claim(collection, pathOrdinal, methodOrdinal++, part.server(),
+                            (Map<?, ?>) method.getValue());
+                    String key = path.getKey() + " " + method.getKey();
+                    methods.merge((String) method.getKey(), claim, (held, mine) -> {
+                        contested.compute(key, (k, claims) -> {
+                            List<Claim> all = claims != null ? claims : new ArrayList<>(List.of(held));
+                            all.add(mine);
+                            return all;
+                        });
+                        return mine.precedes(held) ? mine : held;
+                    });
+                    if (claim.operation().get("tags") instanceof List<?> names) {
+                        for (Object tag : names) {
+                            tags.computeIfAbsent(String.valueOf(tag), k -> ConcurrentHashMap.newKeySet()).add(collection);
+                        }
+                    }
+                }
+                pathOrdinal++;
+            }
+        }
+
+        /**
+         * The merged paths: each path where its earliest collection has it, methods in
+         * the order of their collections. Operations from a collection whose server is
+         * not {@code server} get their own.
+         */
+        Map<String, Object> paths(String server) {
+            List<Map.Entry<String, ConcurrentHashMap<String, Claim>>> ordered = new ArrayList<>(paths.entrySet());
+            ordered.sort(Comparator.comparing(
+                    (Map.Entry<String, ConcurrentHashMap<String, Claim>> e) -> first(e.getValue().values()),
+                    CLAIM_ORDER));
+            Map<String, Object> out = new LinkedHashMap<>();
+            Map<String, List<Map<String, String>>> serverLists = new HashMap<>();
+            for (Map.Entry<String, ConcurrentHashMap<String, Claim>> path : ordered) {
+                List<Map.Entry<String, Claim>> methods = new ArrayList<>(path.getValue().entrySet());
+                methods.sort(Map.Entry.comparingByValue(Comparator.comparingInt(Claim::collection)
+                        .thenComparingInt(Claim::methodOrdinal)));
+                Map<String, Object> item = new LinkedHashMap<>();
+                for (Map.Entry<String, Claim> method : methods) {
+                    Claim claim = method.getValue();
+                    Object operation = claim.operation();
+                    if (claim.server() != null && server != null && !claim.server().equals(server)) {
+                        Map<String, Object> withServer = new LinkedHashMap<>();
+                        claim.operation().forEach((k, v) -> withServer.put((String) k, v));
+                        withServer.put("servers", serverLists.computeIfAbsent(claim.server(),
+                                url -> List.of(Map.of("url", url))));
+                        operation = withServer;
+                    }
+                    item.put(method.getKey(), operation);
+                }
+                out.put(path.getKey(), item);
+            }
+            return out;
+        }
+
+        private static Claim first(Collection<Claim> claims) {
+            return Collections.min(claims, CLAIM_ORDER);
+        }
+
+        int operations() {
+            int n = 0;
+            for (Map<String, Claim> methods : paths.values()) n += methods.size();
+            return n;
+        }
+
+        int duplicates() {
+            int n = 0;
+            for (Map.Entry<String, List<Claim>> e : contested.entrySet()) {
+                Claim kept = kept(e.getKey());
+                for (Claim claim : e.getValue()) {
+                    if (claim != kept && claim.operation().equals(kept.operation())) n++;
+                }
+            }
+            return n;
+        }
+
+        List<MergeReport.Conflict> conflicts(List<Input> inputs) {
+            List<MergeReport.Conflict> conflicts = new ArrayList<>();
+            List<String> keys = new ArrayList<>(contested.keySet());
+            Collections.sort(keys);
+            for (String key : keys) {
+                Claim kept = kept(key);
+                List<Claim> dropped = new ArrayList<>();
+                for (Claim claim : contested.get(key)) {
+                    if (claim != kept && !claim.operation().equals(kept.operation())) dropped.add(claim);
+                }
+                if (dropped.isEmpty()) continue;
+                dropped.sort(Comparator.comparingInt(Claim::collection));
+                int space = key.lastIndexOf(' ');
+                conflicts.add(MergeReport.Conflict.builder()
+                        .path(key.substring(0, space))
+                        .method(key.substring(space + 1))
+                        .keptFrom(inputs.get(kept.collection()).name())
+                        .droppedFrom(dropped.stream().map(c -> inputs.get(c.collection()).name()).toList())
+                        .build());
+            }
+            return conflicts;
+        }
+
+        List<String> sharedTags() {
+            return tags.entrySet().stream()
+                    .filter(e -> e.getValue().size() > 1)
+                    .map(Map.Entry::getKey)
+                    .sorted()
+                    .toList();
+        }
+
+        private Claim kept(String key) {
+            int space = key.lastIndexOf(' ');
+            return paths.get(key.substring(0, space)).get(key.substring(space + 1));
+        }
+    }
+}
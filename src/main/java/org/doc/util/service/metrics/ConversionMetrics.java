@@ -0,0 +1,97 @@
+package org.doc.util.service.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for conversions, published under {@code /actuator/metrics}:
+ * <ul>
+ *   <li>{@code converter.stage} — time per pipeline stage, tagged {@code mode} and {@code stage}</li>
+ *   <li>{@code converter.conversion} — end-to-end time, tagged {@code mode} and {@code cache} (hit/miss/off)</li>
+ *   <li>{@code converter.input.size} / {@code converter.output.size} — UTF-8 bytes in and out</li>
+ *   <li>{@code converter.requests} — requests per converted collection</li>
+ * </ul>
+ */
+@Component
+public class ConversionMetrics {
+
+    /** {@code mode} tag: a conversion that keeps the whole document in memory, as the web form does. */
+    public static final String TREE = "tree";
+    /** {@code mode} tag: a streamed conversion whose output is written as operations are built. */
+    public static final String STREAM = "stream";
+    /** {@code mode} tag: {@code /api/convert}, batch items and the CLI; parsed from a stream, written later. */
+    public static final String API = "api";
+    /** {@code mode} tag: a conversion that reuses the operations of an earlier one. */
+    public static final String INCREMENTAL = "incremental";
+
+    private final MeterRegistry registry;
+
+    public ConversionMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Starts timing one conversion; {@code mode} is {@link #TREE}, {@link #STREAM},
+     * {@link #API} or {@link #INCREMENTAL}.
+     */
+    public StageTimer start(String mode) {
+        return new StageTimer(this, mode);
+    }
+
+    void recordStage(String mode, String stage, long nanos) {
+        Timer.builder("converter.stage")
+                .description("Time spent in one conversion stage")
+                .tag("mode", mode)
+                .tag("stage", stage)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /** Records the end-to-end time and sizes once a conversion has finished. */
+    public void recordConversion(StageTimer timer, String cacheOutcome, long inputBytes, long outputBytes) {
+        Timer.builder("converter.conversion")
+                .description("End-to-end conversion time")
+                .tag("mode", timer.mode())
+                .tag("cache", cacheOutcome)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(timer.elapsedNanos(), TimeUnit.NANOSECONDS);
+        size("converter.input.size", "Postman collection size", timer.mode()).record(inputBytes);
+        size("converter.output.size", "OpenAPI document size", timer.mode()).record(outputBytes);
+        if (timer.requestCount() >= 0) {
+            DistributionSummary.builder("converter.requests")
+                    .description("Requests per converted collection")
+                    .tag("mode", timer.mode())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(timer.requestCount());
+        }
+    }
+
+    private DistributionSummary size(String name, String description, String mode) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .register(registry);
+    }
+
+    /** UTF-8 encoded length without encoding. */
+    public static long utf8Length(CharSequence s) {
+        long bytes = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) bytes++;
+            else if (c < 0x800) bytes += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else bytes += 3;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,61 @@
+package org.doc.util.service.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stopwatch for one conversion. Each {@link #lap} closes the stage that has been
+ * running since the previous lap, records it as a metric and keeps it for the
+ * per-conversion breakdown. Not thread-safe; laps are taken by the converting thread.
+ */
+public class StageTimer {
+
+    private final ConversionMetrics metrics;
+    private final String mode;
+    private final long started = System.nanoTime();
+    private final Map<String, Double> millis = new LinkedHashMap<>();
+    private long mark = started;
+    private int requestCount = -1;
+
+    StageTimer(ConversionMetrics metrics, String mode) {
+        this.metrics = metrics;
+        this.mode = mode;
+    }
+
+    /** Timer that records nothing, for callers outside a metered conversion. */
+    public static StageTimer none() {
+        return new StageTimer(null, "none");
+    }
+
+    public void lap(String stage) {
+        long now = System.nanoTime();
+        long nanos = now - mark;
+        mark = now;
+        millis.merge(stage, nanos / 1e6, Double::sum);
+        if (metrics != null) metrics.recordStage(mode, stage, nanos);
+    }
+
+    public void requestCount(int requests) {
+        this.requestCount = requests;
+    }
+
+    /** Stage durations in milliseconds, in the order the stages first ran, plus "total". */
+    public Map<String, Double> breakdown() {
+        Map<String, Double> out = new LinkedHashMap<>(millis);
+        out.put("total", elapsedNanos() / 1e6);
+        return Collections.unmodifiableMap(out);
+    }
+
+    String mode() {
+        return mode;
+    }
+
+    public int requestCount() {
+        return requestCount;
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - started;
+    }
+}
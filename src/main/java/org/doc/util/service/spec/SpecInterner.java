@@ -0,0 +1,195 @@
+package org.doc.util.service.spec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hash-consing for document nodes: structurally identical schemas, parameters and
+ * responses are returned as one shared {@link SpecNode}, and map keys as one shared
+ * String. A large collection repeats the same {@code {type: string}} schema and the
+ * same header parameter thousands of times; after interning each exists once.
+ * <p>
+ * Interning is bottom-up, so a node's children are already canonical and two nodes
+ * are the same when their keys are equal and their children identical: comparing a
+ * node costs one pass over its own entries, never a deep walk. Unlike map equality
+ * this is order-sensitive, so sharing never changes how a document is written.
+ * <p>
+ * The table is shared by all conversions and outlives them, so it is bounded twice:
+ * by {@code max-nodes} entries and by {@code max-bytes} of estimated heap, counting
+ * each node's own array, its scalar values and the interned keys (children are
+ * nodes of their own and counted once). When either bound is reached the table is
+ * cleared and starts over, which only loses sharing with nodes interned before.
+ * 0 nodes turns interning off.
+ */
+@Component
+public class SpecInterner {
+
+    private static final long NODE_OVERHEAD = 96;
+    private static final long KEY_OVERHEAD = 64;
+
+    private final int maxNodes;
+    private final long maxBytes;
+    private final ConcurrentHashMap<Key, Object> nodes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> keys = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    @Autowired
+    public SpecInterner(@Value("${converter.spec.intern-max-nodes:100000}") int maxNodes,
+                        @Value("${converter.spec.intern-max-bytes:32MB}") DataSize maxBytes) {
+        this(maxNodes, maxBytes.toBytes());
+    }
+
+    public SpecInterner(int maxNodes, long maxBytes) {
+        this.maxNodes = maxNodes;
+        this.maxBytes = maxBytes;
+    }
+
+    /** The shared node with the entries of {@code node}, nested maps and lists interned too. */
+    public SpecNode intern(Map<String, ?> node) {
+        if (maxNodes <= 0) return SpecNode.copyOf(node);
+        return (SpecNode) canonical(node);
+    }
+
+    /** An immutable list of the interned elements, itself shared. */
+    public List<?> intern(List<?> list) {
+        if (maxNodes <= 0) return list;
+        return (List<?>) canonical(list);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /** Estimated heap held by the table. */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    private Object canonical(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Object[] entries = new Object[map.size() * 2];
+            boolean same = value instanceof SpecNode;
+            int i = 0;
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                String key = key((String) e.getKey());
+                Object child = canonical(e.getValue());
+                same &= child == e.getValue();
+                entries[i++] = key;
+                entries[i++] = child;
+            }
+            return lookup(new Key(false, entries), same ? value : null);
+        }
+        if (value instanceof List<?> list) {
+            Object[] elements = new Object[list.size()];
+            for (int i = 0; i < elements.length; i++) elements[i] = canonical(list.get(i));
+            return lookup(new Key(true, elements), null);
+        }
+        return value;
+    }
+
+    /** @param existing a node with exactly these entries that can be used as is, or null */
+    private Object lookup(Key key, Object existing) {
+        Object found = nodes.get(key);
+        if (found != null) {
+            hits.incrementAndGet();
+            return found;
+        }
+        misses.incrementAndGet();
+        Object node = existing != null ? existing
+                : key.list ? Collections.unmodifiableList(Arrays.asList(key.parts))
+                : key.parts.length == 0 ? SpecNode.EMPTY : new SpecNode(key.parts);
+        long size = estimateSize(key);
+        if (nodes.size() >= maxNodes || bytes.get() + size > maxBytes) startOver();
+        found = nodes.putIfAbsent(key, node);
+        if (found != null) return found;
+        bytes.addAndGet(size);
+        return node;
+    }
+
+    private String key(String key) {
+        if (keys.size() >= maxNodes) keys.clear();
+        String found = keys.putIfAbsent(key, key);
+        if (found != null) return found;
+        bytes.addAndGet(KEY_OVERHEAD + 2L * key.length());
+        return key;
+    }
+
+    private void startOver() {
+        nodes.clear();
+        keys.clear();
+        bytes.set(0);
+    }
+
+    /** The node's array and its scalar values; keys and child nodes are counted where they are interned. */
+    private static long estimateSize(Key key) {
+        long size = NODE_OVERHEAD + 8L * key.parts.length;
+        for (int i = key.list ? 0 : 1; i < key.parts.length; i += key.list ? 1 : 2) {
+            if (key.parts[i] instanceof String value) size += KEY_OVERHEAD + 2L * value.length();
+        }
+        return size;
+    }
+
+    /** Parts of a node or list whose maps and lists are canonical, compared by identity. */
+    private static final class Key {
+        final boolean list;
+        final Object[] parts;
+        private final int hash;
+
+        Key(boolean list, Object[] parts) {
+            this.list = list;
+            this.parts = parts;
+            int h = list ? 1 : 0;
+            for (Object part : parts) h = 31 * h + partHash(part);
+            this.hash = h;
+        }
+
+        private static int partHash(Object part) {
+            return part instanceof Map<?, ?> || part instanceof List<?> ? System.identityHashCode(part)
+                    : part == null ? 0 : part.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key other) || other.list != list || other.hash != hash
+                    || other.parts.length != parts.length) {
+                return false;
+            }
+            for (int i = 0; i < parts.length; i++) {
+                Object a = parts[i];
+                Object b = other.parts[i];
+                if (a == b) continue;
+                if (a instanceof Map<?, ?> || a instanceof List<?> || a == null || !a.equals(b)) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(parts);
+        }
+    }
+}
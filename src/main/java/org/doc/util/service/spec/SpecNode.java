@@ -0,0 +1,248 @@
+package org.doc.util.service.spec;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable, insertion-ordered node of an OpenAPI document: a schema, a
+ * parameter, an operation. Entries live in one array of alternating keys and
+ * values, so a four-entry parameter is two objects instead of a LinkedHashMap's
+ * table and entry chain. Lookups scan the array; nodes are small.
+ * <p>
+ * It is a {@link Map}, so everything that reads the document as maps keeps working,
+ * and equality follows the Map contract (order-independent). Jackson writes nodes
+ * with their own serializer, straight from the array and without a serializer
+ * lookup per nested node; the mapper's content inclusion ({@code NON_NULL},
+ * {@code NON_EMPTY}) is honoured as it would be for a map.
+ */
+@JsonSerialize(using = SpecNode.Serializer.class)
+public final class SpecNode extends AbstractMap<String, Object> {
+
+    public static final SpecNode EMPTY = new SpecNode(new Object[0]);
+
+    /** key, value, key, value, ... */
+    final Object[] entries;
+    private int hash;
+
+    SpecNode(Object[] entries) {
+        this.entries = entries;
+    }
+
+    /** A node of the given keys and values, in order; a repeated key keeps its last value. */
+    public static SpecNode of(Object... keysAndValues) {
+        if (keysAndValues.length % 2 != 0) throw new IllegalArgumentException("Keys and values must pair up");
+        Builder builder = new Builder(keysAndValues.length / 2);
+        for (int i = 0; i < keysAndValues.length; i += 2) builder.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        return builder.build();
+    }
+
+    /** {@code map} itself if it is a node, else a node of its entries in iteration order. */
+    public static SpecNode copyOf(Map<String, ?> map) {
+        if (map instanceof SpecNode node) return node;
+        Builder builder = new Builder(map.size());
+        map.forEach(builder::put);
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder(4);
+    }
+
+    /** A copy with {@code key} set to {@code value}, in place if present, else appended. */
+    public SpecNode with(String key, Object value) {
+        Builder builder = new Builder(size() + 1);
+        for (int i = 0; i < entries.length; i += 2) builder.put((String) entries[i], entries[i + 1]);
+        return builder.put(key, value).build();
+    }
+
+    // ── Map ───────────────────────────────────────────────────────────────────
+
+    @Override
+    public int size() {
+        return entries.length / 2;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return i < 0 ? null : entries[i + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super Object> action) {
+        for (int i = 0; i < entries.length; i += 2) action.accept((String) entries[i], entries[i + 1]);
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < entries.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= entries.length) throw new NoSuchElementException();
+                        Entry<String, Object> e = new SimpleImmutableEntry<>((String) entries[next], entries[next + 1]);
+                        next += 2;
+                        return e;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return entries.length / 2;
+            }
+        };
+    }
+
+    /** Cached; the Map contract's sum of entry hashes. */
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            for (int i = 0; i < entries.length; i += 2) h += Objects.hashCode(entries[i]) ^ Objects.hashCode(entries[i + 1]);
+            hash = h;
+        }
+        return h;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i] == key) return i;
+        }
+        for (int i = 0; i < entries.length; i += 2) {
+            if (entries[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    // ── Serialization ─────────────────────────────────────────────────────────
+
+    /**
+     * Writes nodes the way Jackson writes maps, including the content inclusion:
+     * under {@code NON_EMPTY} a map counts as empty when every entry would be left out.
+     */
+    static final class Serializer extends StdSerializer<SpecNode> {
+
+        Serializer() {
+            super(SpecNode.class);
+        }
+
+        @Override
+        public void serialize(SpecNode node, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            JsonInclude.Include inclusion = contentInclusion(provider);
+            if (inclusion == JsonInclude.Include.NON_DEFAULT || inclusion == JsonInclude.Include.CUSTOM) {
+                provider.findValueSerializer(Map.class).serialize(node, gen, provider);
+                return;
+            }
+            write(node, gen, provider, inclusion);
+        }
+
+        @Override
+        public boolean isEmpty(SerializerProvider provider, SpecNode node) {
+            return node.isEmpty() || contentInclusion(provider) == JsonInclude.Include.NON_EMPTY && allSkipped(node);
+        }
+
+        private static void write(SpecNode node, JsonGenerator gen, SerializerProvider provider,
+                                  JsonInclude.Include inclusion) throws IOException {
+            boolean skipEmpty = inclusion == JsonInclude.Include.NON_EMPTY;
+            boolean skipNulls = skipEmpty || inclusion == JsonInclude.Include.NON_NULL
+                    || inclusion == JsonInclude.Include.NON_ABSENT;
+            Object[] entries = node.entries;
+            gen.writeStartObject(node, node.size());
+            for (int i = 0; i < entries.length; i += 2) {
+                Object value = entries[i + 1];
+                if (value == null ? skipNulls : skipEmpty && skipped(value)) continue;
+                gen.writeFieldName((String) entries[i]);
+                if (value instanceof SpecNode child) write(child, gen, provider, inclusion);
+                else if (value instanceof String text) gen.writeString(text);
+                else if (value instanceof Boolean flag) gen.writeBoolean(flag);
+                else if (value instanceof Integer number) gen.writeNumber(number);
+                else if (value == null) gen.writeNull();
+                else provider.defaultSerializeValue(value, gen);
+            }
+            gen.writeEndObject();
+        }
+
+        private static JsonInclude.Include contentInclusion(SerializerProvider provider) {
+            return provider.getConfig().getDefaultPropertyInclusion(Map.class).getContentInclusion();
+        }
+
+        /** What {@code NON_EMPTY} leaves out: null, "", empty collections and arrays, maps of such. */
+        private static boolean skipped(Object value) {
+            return value == null
+                    || value instanceof CharSequence text && text.isEmpty()
+                    || value instanceof Collection<?> c && c.isEmpty()
+                    || value instanceof Object[] array && array.length == 0
+                    || value instanceof Map<?, ?> map && allSkipped(map);
+        }
+
+        private static boolean allSkipped(Map<?, ?> map) {
+            for (Object value : map.values()) {
+                if (!skipped(value)) return false;
+            }
+            return true;
+        }
+    }
+
+    // ── Builder ───────────────────────────────────────────────────────────────
+
+    /**
+     * Collects entries in order; a key put twice keeps its first position and last
+     * value. Single use: the built node may share the builder's array.
+     */
+    public static final class Builder {
+        private Object[] entries;
+        private int length;
+
+        private Builder(int expectedSize) {
+            entries = new Object[Math.max(expectedSize, 1) * 2];
+        }
+
+        public Builder put(String key, Object value) {
+            for (int i = 0; i < length; i += 2) {
+                if (entries[i].equals(key)) {
+                    entries[i + 1] = value;
+                    return this;
+                }
+            }
+            if (length == entries.length) entries = Arrays.copyOf(entries, entries.length * 2);
+            entries[length++] = key;
+            entries[length++] = value;
+            return this;
+        }
+
+        /** Puts the value unless it is null. */
+        public Builder putIfNotNull(String key, Object value) {
+            return value == null ? this : put(key, value);
+        }
+
+        public boolean isEmpty() {
+            return length == 0;
+        }
+
+        public SpecNode build() {
+            return length == 0 ? EMPTY : new SpecNode(length == entries.length ? entries : Arrays.copyOf(entries, length));
+        }
+    }
+}
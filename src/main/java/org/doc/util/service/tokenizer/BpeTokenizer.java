@@ -0,0 +1,524 @@
+package org.doc.util.service.tokenizer;
+
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Byte-level BPE token counter driven by a tiktoken-format rank file
+ * ({@code base64(token) rank} per line, optionally gzipped). Pre-tokenization follows
+ * the {@code cl100k_base} split pattern with a hand-written scanner instead of a regex.
+ * <p>
+ * Every way of splitting a multi-byte token into two tokens is stored in an
+ * open-addressing {@code long -> int} table, so a merge step is a single probe on
+ * primitive arrays. Words are counted in per-thread scratch arrays and remembered in
+ * a fixed-size, direct-mapped cache; neither the cache hit path nor the merge loop
+ * allocates. The vocabulary is loaded on first use.
+ */
+public class BpeTokenizer implements Tokenizer {
+
+    private static final int WORD_CACHE_SIZE = 1 << 16;
+    private static final int MAX_CACHED_WORD = 48;
+    private static final int NO_MERGE = Integer.MAX_VALUE;
+
+    private final String name;
+    private final InputStreamSource source;
+    private final CachedWord[] wordCache = new CachedWord[WORD_CACHE_SIZE];
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private volatile Vocabulary vocabulary;
+
+    public BpeTokenizer(String name, InputStreamSource source) {
+        this.name = name;
+        this.source = source;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int countTokens(CharSequence text) {
+        Vocabulary v = vocabulary();
+        Scratch s = scratch.get();
+        int end = text.length();
+        int tokens = 0;
+        for (int i = 0; i < end; ) {
+            int next = pretokenEnd(text, i, end);
+            tokens += countWord(v, s, text, i, next);
+            i = next;
+        }
+        return tokens;
+    }
+
+    @Override
+    public TokenCounter newCounter() {
+        return new BpeCounter();
+    }
+
+    /** Pre-tokens only run past a line break into whitespace, so lines can be counted apart. */
+    @Override
+    public boolean countsLinesIndependently() {
+        return true;
+    }
+
+    // ── Word counting ─────────────────────────────────────────────────────────
+
+    private int countWord(Vocabulary v, Scratch s, CharSequence text, int from, int to) {
+        int len = to - from;
+        if (len > MAX_CACHED_WORD) return encode(v, s, text, from, to);
+
+        int hash = 0;
+        for (int i = from; i < to; i++) hash = 31 * hash + text.charAt(i);
+        hash ^= hash >>> 16;
+        int slot = hash & (WORD_CACHE_SIZE - 1);
+        CachedWord cached = wordCache[slot];
+        if (cached != null && cached.hash == hash && cached.matches(text, from, to)) return cached.tokens;
+
+        int tokens = encode(v, s, text, from, to);
+        char[] chars = new char[len];
+        for (int i = 0; i < len; i++) chars[i] = text.charAt(from + i);
+        wordCache[slot] = new CachedWord(hash, chars, tokens);
+        return tokens;
+    }
+
+    private int encode(Vocabulary v, Scratch s, CharSequence text, int from, int to) {
+        int n = s.utf8(text, from, to);
+        if (n <= 1) return n;
+        if (v.isToken(s.bytes, n)) return 1;
+
+        s.ensureParts(n);
+        int[] parts = s.parts;
+        int[] ranks = s.ranks;
+        for (int i = 0; i < n; i++) parts[i] = v.byteRanks[s.bytes[i] & 0xFF];
+        for (int i = 0; i < n - 1; i++) ranks[i] = v.mergeRank(parts[i], parts[i + 1]);
+
+        int count = n;
+        while (count > 1) {
+            int min = NO_MERGE;
+            int at = -1;
+            for (int i = 0; i < count - 1; i++) {
+                if (ranks[i] < min) {
+                    min = ranks[i];
+                    at = i;
+                }
+            }
+            if (at < 0) break;
+
+            parts[at] = min;
+            System.arraycopy(parts, at + 2, parts, at + 1, count - at - 2);
+            if (count - at - 3 > 0) System.arraycopy(ranks, at + 2, ranks, at + 1, count - at - 3);
+            count--;
+            if (at > 0) ranks[at - 1] = v.mergeRank(parts[at - 1], parts[at]);
+            if (at < count - 1) ranks[at] = v.mergeRank(parts[at], parts[at + 1]);
+        }
+        return count;
+    }
+
+    // ── Pre-tokenization ──────────────────────────────────────────────────────
+
+    /**
+     * End of the pre-token starting at {@code i}, equivalent to the first match of
+     * <pre>
+     * (?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\r\n\p{L}\p{N}]?\p{L}+|\p{N}{1,3}| ?[^\s\p{L}\p{N}]+[\r\n]*|\s*[\r\n]+|\s+(?!\S)|\s+
+     * </pre>
+     * with {@code end} treated as the end of the text.
+     */
+    static int pretokenEnd(CharSequence s, int i, int end) {
+        char c = s.charAt(i);
+        if (c == '\'' && i + 1 < end) {
+            char c1 = lower(s.charAt(i + 1));
+            if (c1 == 's' || c1 == 't' || c1 == 'm' || c1 == 'd') return i + 2;
+            if (i + 2 < end) {
+                char c2 = lower(s.charAt(i + 2));
+                if ((c1 == 'r' || c1 == 'v') && c2 == 'e' || c1 == 'l' && c2 == 'l') return i + 3;
+            }
+        }
+
+        int cp = Character.codePointAt(s, i);
+        int next = i + Character.charCount(cp);
+        if (isLetter(cp)) return letterRunEnd(s, next, end);
+        if (cp != '\r' && cp != '\n' && !isNumber(cp)
+                && next < end && isLetter(Character.codePointAt(s, next))) {
+            return letterRunEnd(s, next, end);
+        }
+
+        if (isNumber(cp)) {
+            int j = next;
+            for (int k = 1; k < 3 && j < end; k++) {
+                int d = Character.codePointAt(s, j);
+                if (!isNumber(d)) break;
+                j += Character.charCount(d);
+            }
+            return j;
+        }
+
+        int j = i;
+        if (cp == ' ' && next < end && isSymbol(Character.codePointAt(s, next))) j = next;
+        if (isSymbol(Character.codePointAt(s, j))) {
+            while (j < end) {
+                int p = Character.codePointAt(s, j);
+                if (!isSymbol(p)) break;
+                j += Character.charCount(p);
+            }
+            while (j < end && (s.charAt(j) == '\r' || s.charAt(j) == '\n')) j++;
+            return j;
+        }
+
+        // Whitespace run
+        int runEnd = i;
+        int lastNewline = -1;
+        int lastStart = i;
+        while (runEnd < end) {
+            int w = Character.codePointAt(s, runEnd);
+            if (!isWhitespace(w)) break;
+            if (w == '\r' || w == '\n') lastNewline = runEnd;
+            lastStart = runEnd;
+            runEnd += Character.charCount(w);
+        }
+        if (lastNewline >= 0) return lastNewline + 1;
+        if (runEnd < end && lastStart > i) return lastStart;
+        return runEnd;
+    }
+
+    private static int letterRunEnd(CharSequence s, int j, int end) {
+        while (j < end) {
+            int cp = Character.codePointAt(s, j);
+            if (!isLetter(cp)) break;
+            j += Character.charCount(cp);
+        }
+        return j;
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+
+    private static boolean isLetter(int cp) {
+        if (cp < 128) return (cp | 32) >= 'a' && (cp | 32) <= 'z';
+        return Character.isLetter(cp);
+    }
+
+    private static boolean isNumber(int cp) {
+        if (cp < 128) return cp >= '0' && cp <= '9';
+        int type = Character.getType(cp);
+        return type == Character.DECIMAL_DIGIT_NUMBER
+                || type == Character.LETTER_NUMBER
+                || type == Character.OTHER_NUMBER;
+    }
+
+    /** Unicode White_Space, which is what {@code \s} means in the reference pattern. */
+    static boolean isWhitespace(int cp) {
+        return cp == ' ' || (cp >= 0x09 && cp <= 0x0D)
+                || cp == 0x85 || cp == 0xA0 || cp == 0x1680
+                || (cp >= 0x2000 && cp <= 0x200A)
+                || cp == 0x2028 || cp == 0x2029 || cp == 0x202F || cp == 0x205F || cp == 0x3000;
+    }
+
+    private static boolean isSymbol(int cp) {
+        return !isWhitespace(cp) && !isLetter(cp) && !isNumber(cp);
+    }
+
+    // ── Vocabulary ────────────────────────────────────────────────────────────
+
+    private Vocabulary vocabulary() {
+        Vocabulary v = vocabulary;
+        if (v == null) {
+            synchronized (this) {
+                v = vocabulary;
+                if (v == null) {
+                    try {
+                        vocabulary = v = Vocabulary.load(source);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Cannot load tokenizer vocabulary for " + name, e);
+                    }
+                }
+            }
+        }
+        return v;
+    }
+
+    private static final class Vocabulary {
+        final int[] byteRanks = new int[256];
+
+        // (left rank, right rank) -> merged rank
+        final long[] mergeKeys;
+        final int[] mergeRanks;
+        final int mergeShift;
+
+        // token bytes -> presence, for words that are a single vocabulary entry
+        final int[] tokenSlots;
+        final byte[] tokenBytes;
+        final int[] tokenOffsets;
+        final int tokenMask;
+        final int maxTokenLength;
+
+        private Vocabulary(byte[][] tokens, long[] pairKeys, int[] pairRanks, int pairs) {
+            int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(pairs * 2 - 1));
+            mergeKeys = new long[1 << bits];
+            mergeRanks = new int[1 << bits];
+            mergeShift = 64 - bits;
+            Arrays.fill(mergeKeys, -1L);
+            for (int i = 0; i < pairs; i++) {
+                int slot = (int) ((pairKeys[i] * 0x9E3779B97F4A7C15L) >>> mergeShift);
+                while (mergeKeys[slot] != -1L) slot = (slot + 1) & (mergeKeys.length - 1);
+                mergeKeys[slot] = pairKeys[i];
+                mergeRanks[slot] = pairRanks[i];
+            }
+
+            int total = 0;
+            int longest = 0;
+            for (byte[] t : tokens) {
+                if (t == null) continue;
+                total += t.length;
+                longest = Math.max(longest, t.length);
+            }
+            maxTokenLength = longest;
+            tokenBytes = new byte[total];
+            tokenOffsets = new int[tokens.length + 1];
+            int pos = 0;
+            for (int r = 0; r < tokens.length; r++) {
+                tokenOffsets[r] = pos;
+                if (tokens[r] != null) {
+                    System.arraycopy(tokens[r], 0, tokenBytes, pos, tokens[r].length);
+                    pos += tokens[r].length;
+                }
+            }
+            tokenOffsets[tokens.length] = pos;
+
+            int slotBits = Math.max(4, 32 - Integer.numberOfLeadingZeros(tokens.length * 2 - 1));
+            tokenSlots = new int[1 << slotBits];
+            tokenMask = tokenSlots.length - 1;
+            for (int r = 0; r < tokens.length; r++) {
+                if (tokens[r] == null) continue;
+                int slot = hashBytes(tokens[r], tokens[r].length) & tokenMask;
+                while (tokenSlots[slot] != 0) slot = (slot + 1) & tokenMask;
+                tokenSlots[slot] = r + 1;
+            }
+        }
+
+        int mergeRank(int left, int right) {
+            long key = ((long) left << 32) | right;
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> mergeShift);
+            while (true) {
+                long k = mergeKeys[slot];
+                if (k == key) return mergeRanks[slot];
+                if (k == -1L) return NO_MERGE;
+                slot = (slot + 1) & (mergeKeys.length - 1);
+            }
+        }
+
+        boolean isToken(byte[] bytes, int len) {
+            if (len > maxTokenLength) return false;
+            int slot = hashBytes(bytes, len) & tokenMask;
+            while (true) {
+                int entry = tokenSlots[slot];
+                if (entry == 0) return false;
+                int from = tokenOffsets[entry - 1];
+                if (tokenOffsets[entry] - from == len
+                        && Arrays.equals(tokenBytes, from, from + len, bytes, 0, len)) {
+                    return true;
+                }
+                slot = (slot + 1) & tokenMask;
+            }
+        }
+
+        private static int hashBytes(byte[] bytes, int len) {
+            int h = 0x811C9DC5;
+            for (int i = 0; i < len; i++) h = (h ^ (bytes[i] & 0xFF)) * 0x01000193;
+            return h ^ (h >>> 15);
+        }
+
+        static Vocabulary load(InputStreamSource source) throws IOException {
+            List<byte[]> byRank = new ArrayList<>();
+            try (InputStream in = maybeGunzip(source.getInputStream());
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+                Base64.Decoder decoder = Base64.getDecoder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int sp = line.indexOf(' ');
+                    if (sp <= 0) continue;
+                    int rank = Integer.parseInt(line.substring(sp + 1).trim());
+                    while (byRank.size() <= rank) byRank.add(null);
+                    byRank.set(rank, decoder.decode(line.substring(0, sp)));
+                }
+            }
+            byte[][] tokens = byRank.toArray(new byte[0][]);
+
+            // Latin-1 maps bytes 1:1 to chars, which makes Strings usable as byte-sequence keys
+            Map<String, Integer> ranks = new HashMap<>(tokens.length * 2);
+            for (int r = 0; r < tokens.length; r++) {
+                if (tokens[r] != null) ranks.put(new String(tokens[r], StandardCharsets.ISO_8859_1), r);
+            }
+
+            long[] pairKeys = new long[tokens.length * 2];
+            int[] pairRanks = new int[tokens.length * 2];
+            int pairs = 0;
+            for (int r = 0; r < tokens.length; r++) {
+                if (tokens[r] == null || tokens[r].length < 2) continue;
+                String whole = new String(tokens[r], StandardCharsets.ISO_8859_1);
+                for (int k = 1; k < whole.length(); k++) {
+                    Integer left = ranks.get(whole.substring(0, k));
+                    if (left == null) continue;
+                    Integer right = ranks.get(whole.substring(k));
+                    if (right == null) continue;
+                    if (pairs == pairKeys.length) {
+                        pairKeys = Arrays.copyOf(pairKeys, pairs * 2);
+                        pairRanks = Arrays.copyOf(pairRanks, pairs * 2);
+                    }
+                    pairKeys[pairs] = ((long) left << 32) | right;
+                    pairRanks[pairs++] = r;
+                }
+            }
+
+            Vocabulary v = new Vocabulary(tokens, pairKeys, pairRanks, pairs);
+            for (int b = 0; b < 256; b++) {
+                Integer r = ranks.get(String.valueOf((char) b));
+                if (r == null) throw new IOException("Vocabulary has no single-byte token for 0x" + Integer.toHexString(b));
+                v.byteRanks[b] = r;
+            }
+            return v;
+        }
+
+        private static InputStream maybeGunzip(InputStream raw) throws IOException {
+            BufferedInputStream in = new BufferedInputStream(raw);
+            in.mark(2);
+            int b0 = in.read();
+            int b1 = in.read();
+            in.reset();
+            return b0 == 0x1F && b1 == 0x8B ? new GZIPInputStream(in) : in;
+        }
+    }
+
+    // ── Per-thread buffers and the word cache ─────────────────────────────────
+
+    private static final class Scratch {
+        byte[] bytes = new byte[256];
+        int[] parts = new int[256];
+        int[] ranks = new int[256];
+
+        /** UTF-8 encodes the range into {@link #bytes}; unpaired surrogates become '?'. */
+        int utf8(CharSequence text, int from, int to) {
+            if (bytes.length < (to - from) * 3) bytes = new byte[(to - from) * 3];
+            byte[] b = bytes;
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    b[n++] = (byte) c;
+                } else if (c < 0x800) {
+                    b[n++] = (byte) (0xC0 | (c >> 6));
+                    b[n++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    b[n++] = (byte) (0xF0 | (cp >> 18));
+                    b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    b[n++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    b[n++] = '?';
+                } else {
+                    b[n++] = (byte) (0xE0 | (c >> 12));
+                    b[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    b[n++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return n;
+        }
+
+        void ensureParts(int n) {
+            if (parts.length < n) {
+                parts = new int[n];
+                ranks = new int[n];
+            }
+        }
+    }
+
+    private record CachedWord(int hash, char[] chars, int tokens) {
+        boolean matches(CharSequence text, int from, int to) {
+            if (chars.length != to - from) return false;
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] != text.charAt(from + i)) return false;
+            }
+            return true;
+        }
+    }
+
+    // ── Streaming counter ─────────────────────────────────────────────────────
+
+    /**
+     * Buffers written text and counts every pre-token whose extent can no longer change.
+     * Held back each time: the last pre-token, a trailing whitespace run (later newlines
+     * may regroup it) and a dangling high surrogate.
+     */
+    private final class BpeCounter extends TokenCounter {
+        private char[] buf = new char[8192];
+        private int len;
+        private int tokens;
+        private boolean closed;
+
+        @Override
+        public void write(char[] cbuf, int off, int n) {
+            while (n > 0) {
+                if (len == buf.length) {
+                    drain(false);
+                    if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+                int chunk = Math.min(n, buf.length - len);
+                System.arraycopy(cbuf, off, buf, len, chunk);
+                len += chunk;
+                off += chunk;
+                n -= chunk;
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            drain(true);
+            closed = true;
+        }
+
+        @Override
+        public int tokens() {
+            return tokens;
+        }
+
+        private void drain(boolean eof) {
+            Vocabulary v = vocabulary();
+            Scratch s = scratch.get();
+            CharSequence text = CharBuffer.wrap(buf, 0, len);
+            int end = len;
+            int cut = len;
+            if (!eof) {
+                if (end > 0 && Character.isHighSurrogate(buf[end - 1])) end--;
+                cut = end;
+                while (cut > 0 && isWhitespace(buf[cut - 1])) cut--;
+            }
+
+            int i = 0;
+            while (i < end) {
+                int next = pretokenEnd(text, i, end);
+                if (!eof && (next >= end || next > cut)) break;
+                tokens += countWord(v, s, text, i, next);
+                i = next;
+            }
+            System.arraycopy(buf, i, buf, 0, len - i);
+            len -= i;
+        }
+    }
+}
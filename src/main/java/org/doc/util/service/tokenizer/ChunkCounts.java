@@ -0,0 +1,84 @@
+package org.doc.util.service.tokenizer;
+
+/**
+ * Token counts of text chunks keyed by a 64-bit hash of the chunk, so that the table
+ * kept for a large document costs a fixed 12 bytes per slot rather than the chunk text.
+ * Open addressing with linear probing; at most half the slots are used.
+ */
+public final class ChunkCounts {
+
+    /** No chunks; must not be added to. */
+    public static final ChunkCounts EMPTY = new ChunkCounts(0);
+
+    private static final int ABSENT = -1;
+
+    private long[] keys;
+    private int[] values;
+    private boolean hasZero;
+    private int zeroValue;
+    private int size;
+
+    /** @param expected chunks the table should hold without growing */
+    public ChunkCounts(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(1, expected) * 2 - 1) << 1;
+        keys = new long[expected == 0 ? 0 : capacity];
+        values = new int[keys.length];
+    }
+
+    /** The count stored for {@code hash}, or -1. */
+    public int get(long hash) {
+        if (hash == 0) return hasZero ? zeroValue : ABSENT;
+        if (keys.length == 0) return ABSENT;
+        int mask = keys.length - 1;
+        for (int i = slot(hash, mask); ; i = (i + 1) & mask) {
+            long key = keys[i];
+            if (key == hash) return values[i];
+            if (key == 0) return ABSENT;
+        }
+    }
+
+    public void put(long hash, int count) {
+        if (this == EMPTY) throw new UnsupportedOperationException("ChunkCounts.EMPTY is read-only");
+        if (hash == 0) {
+            if (!hasZero) size++;
+            hasZero = true;
+            zeroValue = count;
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) grow();
+        int mask = keys.length - 1;
+        int i = slot(hash, mask);
+        while (keys[i] != 0 && keys[i] != hash) i = (i + 1) & mask;
+        if (keys[i] == 0) size++;
+        keys[i] = hash;
+        values[i] = count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Heap used by the table. */
+    public long estimatedSize() {
+        return 64 + 12L * keys.length;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[Math.max(16, oldKeys.length * 2)];
+        values = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0) continue;
+            int i = slot(oldKeys[j], mask);
+            while (keys[i] != 0) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+
+    private static int slot(long hash, int mask) {
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
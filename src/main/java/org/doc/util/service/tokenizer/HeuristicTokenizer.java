@@ -0,0 +1,46 @@
+package org.doc.util.service.tokenizer;
+
+/**
+ * The original estimate: ~4 characters per token for mixed text/code content,
+ * skewed to 3.5 chars/token because JSON/YAML punctuation tokenizes densely.
+ * Kept for comparison and for deployments that do not want the vocabulary loaded.
+ */
+public class HeuristicTokenizer implements Tokenizer {
+
+    private static final double CHARS_PER_TOKEN = 3.5;
+
+    @Override
+    public String name() {
+        return "heuristic-3.5";
+    }
+
+    @Override
+    public int countTokens(CharSequence text) {
+        return estimate(text.length());
+    }
+
+    @Override
+    public TokenCounter newCounter() {
+        return new TokenCounter() {
+            private long chars;
+
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                chars += len;
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public int tokens() {
+                return estimate(chars);
+            }
+        };
+    }
+
+    private static int estimate(long chars) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (long) Math.ceil(chars / CHARS_PER_TOKEN)));
+    }
+}
@@ -0,0 +1,74 @@
+package org.doc.util.service.tokenizer;
+
+import org.doc.util.service.cache.ContentHash;
+
+/**
+ * Token counts of a document as the sum of its line chunks, reusing the counts of
+ * chunks that were already seen in an earlier version of the document.
+ * <p>
+ * A chunk is a line plus any blank or whitespace-only lines after it. With the
+ * tokenizers that split on {@link Tokenizer#countsLinesIndependently() line breaks},
+ * no pre-token crosses from one chunk into the next, so the sum is exact: counting a
+ * document that differs from its predecessor in a few places only runs the tokenizer
+ * over the lines that changed. Other tokenizers count the whole text every time.
+ * <p>
+ * Chunks are remembered by the XXH64 of their UTF-16 code units, not by their text,
+ * so the counts kept between versions stay small next to the document.
+ */
+public final class TokenChunks {
+
+    private TokenChunks() {
+    }
+
+    /** Token count and the chunk counts to pass in next time. */
+    public record Counted(int tokens, ChunkCounts chunks, int countedChunks) {
+    }
+
+    public static Counted count(Tokenizer tokenizer, String text, ChunkCounts previous) {
+        if (!tokenizer.countsLinesIndependently()) {
+            return new Counted(tokenizer.countTokens(text), ChunkCounts.EMPTY, 1);
+        }
+        ChunkCounts chunks = new ChunkCounts(Math.max(16, previous.size()));
+        byte[] units = new byte[256];
+        int tokens = 0;
+        int counted = 0;
+        int start = 0;
+        int length = text.length();
+        while (start < length) {
+            int end = chunkEnd(text, start);
+            int bytes = 2 * (end - start);
+            if (units.length < bytes) units = new byte[Math.max(bytes, units.length * 2)];
+            for (int i = start, j = 0; i < end; i++, j += 2) {
+                char c = text.charAt(i);
+                units[j] = (byte) c;
+                units[j + 1] = (byte) (c >>> 8);
+            }
+            long hash = ContentHash.xxh64(units, 0, bytes);
+            int known = chunks.get(hash);
+            if (known < 0) known = previous.get(hash);
+            if (known < 0) {
+                known = tokenizer.countTokens(text.substring(start, end));
+                counted++;
+            }
+            chunks.put(hash, known);
+            tokens += known;
+            start = end;
+        }
+        return new Counted(tokens, chunks, counted);
+    }
+
+    /** End of the line at {@code start}, extended over the whitespace-only lines after it. */
+    static int chunkEnd(String text, int start) {
+        int newline = text.indexOf('\n', start);
+        if (newline < 0) return text.length();
+        int length = text.length();
+        int end = newline + 1;
+        while (end < length) {
+            int next = end;
+            while (next < length && text.charAt(next) != '\n' && BpeTokenizer.isWhitespace(text.charAt(next))) next++;
+            if (next < length && text.charAt(next) != '\n') return end;
+            end = Math.min(next + 1, length);
+        }
+        return end;
+    }
+}
@@ -0,0 +1,16 @@
+package org.doc.util.service.tokenizer;
+
+import java.io.Writer;
+
+/**
+ * A {@link Writer} sink that counts tokens of everything written to it.
+ * {@link #tokens()} is final once the counter has been closed.
+ */
+public abstract class TokenCounter extends Writer {
+
+    public abstract int tokens();
+
+    @Override
+    public void flush() {
+    }
+}
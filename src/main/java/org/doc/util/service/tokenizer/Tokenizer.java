@@ -0,0 +1,24 @@
+package org.doc.util.service.tokenizer;
+
+/**
+ * Counts LLM tokens for the documents shown side by side.
+ * Implementations must be thread-safe; one instance is shared by all conversions.
+ */
+public interface Tokenizer {
+
+    /** Identifier reported next to the counts, e.g. {@code cl100k_base}. */
+    String name();
+
+    int countTokens(CharSequence text);
+
+    /** Counter for text that is written piecewise and never held in memory at once. */
+    TokenCounter newCounter();
+
+    /**
+     * Whether a text's count is the sum of the counts of its lines, each taken with the
+     * whitespace-only lines that follow it. Enables {@link TokenChunks} reuse.
+     */
+    default boolean countsLinesIndependently() {
+        return false;
+    }
+}
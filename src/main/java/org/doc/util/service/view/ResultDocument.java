@@ -0,0 +1,84 @@
+package org.doc.util.service.view;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * One document of a converted result, held for the web UI, with the offset of every
+ * line so that a page of lines is a single substring.
+ */
+public final class ResultDocument {
+
+    private static final int WRITE_CHUNK = 8192;
+
+    private final String id;
+    private final String mediaType;
+    private final String fileName;
+    private final String content;
+    private final int[] lineStarts;
+
+    ResultDocument(String id, String mediaType, String fileName, String content) {
+        this.id = id;
+        this.mediaType = mediaType;
+        this.fileName = fileName;
+        this.content = content;
+        this.lineStarts = lineStarts(content);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public String fileName() {
+        return fileName;
+    }
+
+    public int length() {
+        return content.length();
+    }
+
+    /** Lines in the document; a trailing newline does not start another line. */
+    public int lineCount() {
+        return lineStarts.length;
+    }
+
+    /** Up to {@code count} lines from line {@code from} (0-based), joined by newlines. */
+    public String lines(int from, int count) {
+        if (from < 0 || count < 0) throw new IllegalArgumentException("from and count must not be negative");
+        if (from >= lineStarts.length || count == 0) return "";
+        int to = (int) Math.min((long) from + count, lineStarts.length);
+        if (to < lineStarts.length) return content.substring(lineStarts[from], lineStarts[to] - 1);
+        int end = content.length();
+        if (end > lineStarts[from] && content.charAt(end - 1) == '\n') end--;
+        return content.substring(lineStarts[from], end);
+    }
+
+    /** Writes the whole document in chunks, without another copy of it. */
+    public void writeTo(Writer out) throws IOException {
+        for (int i = 0; i < content.length(); i += WRITE_CHUNK) {
+            out.write(content, i, Math.min(WRITE_CHUNK, content.length() - i));
+        }
+        out.flush();
+    }
+
+    /** Two bytes per char plus the line index. */
+    long estimatedSize() {
+        return 2L * content.length() + 4L * lineStarts.length;
+    }
+
+    private static int[] lineStarts(String content) {
+        int[] starts = new int[Math.max(16, content.length() / 32)];
+        int lines = 0;
+        if (!content.isEmpty()) starts[lines++] = 0;
+        for (int i = content.indexOf('\n'); i >= 0 && i + 1 < content.length(); i = content.indexOf('\n', i + 1)) {
+            if (lines == starts.length) starts = Arrays.copyOf(starts, lines * 2);
+            starts[lines++] = i + 1;
+        }
+        return Arrays.copyOf(starts, lines);
+    }
+}
@@ -0,0 +1,90 @@
+package org.doc.util.service.view;
+
+import org.doc.util.model.ConversionResult;
+import org.doc.util.model.FormatOutput;
+import org.doc.util.service.format.OpenApiYamlFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Documents of the results shown in the web UI, kept on the server so that the page
+ * carries only the summary and the browser fetches the lines it scrolls to. Results
+ * are identified by a random id and dropped least recently used first once their
+ * estimated size exceeds {@code max-bytes}; the newest result is always kept, however
+ * large, so that the page that was just rendered can load it.
+ */
+@Component
+public class ResultDocumentStore {
+
+    /** Document id of the Postman collection, next to the output format ids. */
+    public static final String POSTMAN = "postman";
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> results = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private record Entry(Map<String, ResultDocument> documents, long size) {}
+
+    @Autowired
+    public ResultDocumentStore(@Value("${converter.view.max-bytes:256MB}") DataSize maxBytes) {
+        this(maxBytes.toBytes());
+    }
+
+    public ResultDocumentStore(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Keeps the Postman JSON, the OpenAPI YAML and every compared format of
+     * {@code result} and returns the id to fetch them by.
+     */
+    public String put(ConversionResult result) {
+        Map<String, ResultDocument> documents = new LinkedHashMap<>();
+        String name = fileName(result.getCollectionName());
+        documents.put(POSTMAN, new ResultDocument(POSTMAN, "application/json",
+                name + ".postman_collection.json", result.getPostmanJson()));
+        documents.put(OpenApiYamlFormat.ID, new ResultDocument(OpenApiYamlFormat.ID, "application/yaml",
+                name + ".openapi.yaml", result.getSwaggerYaml()));
+        if (result.getFormats() != null) {
+            for (FormatOutput format : result.getFormats()) {
+                documents.computeIfAbsent(format.getId(), id -> new ResultDocument(id, format.getMediaType(),
+                        name + "." + id + "." + format.getExtension(), format.getContent()));
+            }
+        }
+        long size = documents.values().stream().mapToLong(ResultDocument::estimatedSize).sum();
+
+        String id = UUID.randomUUID().toString();
+        synchronized (this) {
+            results.put(id, new Entry(documents, size));
+            bytes += size;
+            Iterator<Entry> eldest = results.values().iterator();
+            while (bytes > maxBytes && results.size() > 1) {
+                bytes -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+        return id;
+    }
+
+    /** The document, or null when the result has been dropped or has no such document. */
+    public synchronized ResultDocument get(String resultId, String documentId) {
+        Entry entry = results.get(resultId);
+        return entry == null ? null : entry.documents().get(documentId);
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    private static String fileName(String collectionName) {
+        String name = collectionName == null ? "" : collectionName.trim().replaceAll("[^A-Za-z0-9._-]+", "-");
+        return name.isEmpty() || name.equals("-") ? "collection" : name;
+    }
+}
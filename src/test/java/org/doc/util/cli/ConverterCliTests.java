@@ -0,0 +1,99 @@
+package org.doc.util.cli;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.TestConverters;
+import org.doc.util.service.format.OutputFormats;
+import org.doc.util.service.tokenizer.HeuristicTokenizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConverterCliTests {
+
+    private final PostmanToSwaggerService converter = TestConverters.converter(new HeuristicTokenizer());
+    private final ConverterCli cli = new ConverterCli(converter, OutputFormats.builtIn());
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void convertsDirectoriesUnderOutAndReportsFailures() throws Exception {
+        Files.createDirectories(dir.resolve("in/team/nested"));
+        Files.writeString(dir.resolve("in/team/svc.postman_collection.json"), collection("Svc", 3));
+        Files.writeString(dir.resolve("in/team/nested/other.json"), collection("Other", 1));
+        Files.writeString(dir.resolve("in/team/broken.json"), "{\"item\": [");
+        Files.writeString(dir.resolve("in/team/.hidden.json"), collection("Hidden", 1));
+        Files.writeString(dir.resolve("in/team/README.md"), "not a collection");
+
+        int exit = run("-o", dir.resolve("out").toString(), "--threads=2", dir.resolve("in").toString());
+
+        assertThat(exit).isEqualTo(1);
+        assertThat(Files.readString(dir.resolve("out/team/svc.yaml")))
+                .isEqualTo(converter.convert(collection("Svc", 3)).getSwaggerYaml());
+        assertThat(dir.resolve("out/team/nested/other.yaml")).exists();
+        assertThat(dir.resolve("out/team/broken.yaml")).doesNotExist();
+        assertThat(dir.resolve("out/team/.hidden.yaml")).doesNotExist();
+        assertThat(out.toString(StandardCharsets.UTF_8)).contains("svc.yaml  3 operations").contains("2 of 3 converted");
+        assertThat(err.toString(StandardCharsets.UTF_8)).contains("broken.json");
+    }
+
+    @Test
+    void mapsLargeFilesAndWritesJsonNextToTheInput() throws Exception {
+        String large = collection("Large", 6000);
+        assertThat(large.length()).isGreaterThan(ConverterCli.MAP_THRESHOLD);
+        Files.writeString(dir.resolve("large.json"), large);
+
+        assertThat(run("-q", "-f", "json-min", dir.toString())).isZero();
+        JsonNode spec = new ObjectMapper().readTree(dir.resolve("large.openapi.json").toFile());
+        assertThat(spec.path("paths").size()).isEqualTo(6000);
+        assertThat(out.size()).isZero();
+
+        // the result is not taken for a collection on the next run
+        assertThat(run("-q", "-f", "json-min", dir.toString())).isZero();
+        assertThat(dir.resolve("large.openapi.openapi.json")).doesNotExist();
+        assertThat(run("-f", "xml", dir.toString())).isEqualTo(2);
+        assertThat(run("--threads", "0", dir.toString())).isEqualTo(2);
+        assertThat(run(dir.resolve("missing.json").toString())).isEqualTo(2);
+    }
+
+    @Test
+    void startsWithoutTheWebStack() throws Exception {
+        Path file = Files.writeString(dir.resolve("svc.json"), collection("Svc", 2));
+
+        assertThat(CliApplication.run(new String[] {"-q", file.toString(),
+                "--converter.tokenizer.engine=heuristic"})).isZero();
+        assertThat(Files.readString(dir.resolve("svc.yaml")))
+                .isEqualTo(converter.convert(collection("Svc", 2)).getSwaggerYaml());
+        assertThat(CliApplication.isProperty("--converter.cache.max-bytes=0")).isTrue();
+        assertThat(CliApplication.isProperty("--out=./build")).isFalse();
+    }
+
+    private int run(String... args) {
+        return cli.run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private static String collection(String name, int requests) {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < requests; i++) {
+            if (i > 0) items.append(',');
+            items.append("""
+                    { "name": "Get item %1$d", "request": { "method": "GET", "url": "https://api.example.com/items%1$d/:id",
+                      "description": "Returns item %1$d with all of its attributes, links, and audit metadata." },
+                      "response": [ { "code": 200, "body": "{\\"id\\": %1$d, \\"name\\": \\"item\\", \\"tags\\": [\\"a\\"]}" } ] }
+                    """.formatted(i));
+        }
+        return "{ \"info\": { \"name\": \"" + name + "\" }, \"item\": [" + items + "] }";
+    }
+}
@@ -0,0 +1,137 @@
+package org.doc.util.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.doc.util.model.ConversionResult;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.TestConverters;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.doc.util.service.tokenizer.HeuristicTokenizer;
+import org.doc.util.service.view.ResultDocumentStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ApiConverterControllerTests {
+
+    private static final String COLLECTION = """
+            { "info": { "name": "Api" },
+              "item": [
+                { "name": "Get user", "request": { "method": "GET", "url": "https://api.example.com/users/:id" },
+                  "response": [ { "code": 200, "body": "{\\"id\\": 1, \\"name\\": \\"x\\"}" } ] },
+                { "name": "Delete user", "request": { "method": "DELETE", "url": "https://api.example.com/users/:id" } }
+              ] }
+            """;
+
+    private final PostmanToSwaggerService service = TestConverters.converter(new HeuristicTokenizer());
+    private final ConversionAdmission admission = new ConversionAdmission(true, DataSize.ofMegabytes(64), 16, 0,
+            Duration.ofMillis(50), new SimpleMeterRegistry());
+    private final MockMvc mvc;
+
+    ApiConverterControllerTests() {
+        ApiConverterController controller = new ApiConverterController();
+        ReflectionTestUtils.setField(controller, "service", service);
+        ReflectionTestUtils.setField(controller, "admission", admission);
+        ReflectionTestUtils.setField(controller, "documents", new ResultDocumentStore(DataSize.ofMegabytes(8)));
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void pageCarriesTheSummaryAndLoadsDocumentsByTheLine() throws Exception {
+        MvcResult page = mvc.perform(post("/convert").param("postmanJson", COLLECTION).param("compareFormats", "true"))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("result", "resultId", "postmanInput"))
+                .andReturn();
+        String id = (String) page.getModelAndView().getModel().get("resultId");
+        ConversionResult expected = service.convert(COLLECTION.trim());
+        String[] yaml = expected.getSwaggerYaml().split("\n");
+
+        MvcResult lines = mvc.perform(asyncDispatch(mvc.perform(get("/result/{id}/openapi-yaml", id)
+                        .param("from", "2").param("count", "3")).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Lines", String.valueOf(yaml.length)))
+                .andReturn();
+        assertThat(lines.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo(String.join("\n", yaml[2], yaml[3], yaml[4]));
+
+        MvcResult dsl = mvc.perform(asyncDispatch(mvc.perform(get("/result/{id}/endpoint-dsl", id)
+                        .header("Accept-Encoding", "gzip")).andReturn()))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+        assertThat(gunzip(dsl.getResponse().getContentAsByteArray())).contains("DELETE /users/{id}");
+
+        MvcResult download = mvc.perform(asyncDispatch(mvc.perform(get("/result/{id}/postman/download", id))
+                        .andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"Api.postman_collection.json\""))
+                .andReturn();
+        assertThat(download.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo(expected.getPostmanJson());
+
+        mvc.perform(get("/result/{id}/openapi-yaml", id).param("count", "0")).andExpect(status().isBadRequest());
+        mvc.perform(get("/result/{id}/xml", id)).andExpect(status().isNotFound());
+        mvc.perform(get("/result/unknown/postman/download")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void uploadedInputIsNotEchoedIntoThePage() throws Exception {
+        mvc.perform(multipart("/convert").file(new MockMultipartFile("file", "api.json", "application/json",
+                        COLLECTION.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("result", "resultId"))
+                .andExpect(model().attributeDoesNotExist("postmanInput"));
+    }
+
+    @Test
+    void busyServerTurnsAnUploadAwayBeforeReadingIt() throws Exception {
+        MockMultipartFile upload = new MockMultipartFile("file", "api.json", "application/json",
+                COLLECTION.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public byte[] getBytes() {
+                throw new AssertionError("upload read before admission");
+            }
+        };
+        try (ConversionAdmission.Permit everything = admission.admit(Long.MAX_VALUE)) {
+            mvc.perform(multipart("/convert").file(upload))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists("Retry-After"))
+                    .andExpect(model().attributeDoesNotExist("result"));
+        }
+    }
+
+    @Test
+    void invalidCollectionIsRejectedBeforeTheDownloadStarts() throws Exception {
+        MvcResult result = mvc.perform(multipart("/convert/stream").file(new MockMultipartFile("file", "api.json",
+                        "application/json", "{\"item\": [".getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist("Content-Disposition"))
+                .andReturn();
+        assertThat(result.getResponse().getErrorMessage()).startsWith("Invalid collection");
+
+        mvc.perform(multipart("/convert/stream").file(new MockMultipartFile("file", "api.json", "application/json",
+                        COLLECTION.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"openapi.yaml\""));
+    }
+
+    private static String gunzip(byte[] body) throws Exception {
+        return new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,261 @@
+package org.doc.util.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.TestConverters;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.doc.util.service.format.OutputFormats;
+import org.doc.util.service.incremental.ConversionStateStore;
+import org.doc.util.service.jobs.ConversionJobService;
+import org.doc.util.service.merge.CollectionMergeService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ConversionApiControllerTests {
+
+    private static final String COLLECTION = """
+            { "info": { "name": "Api" },
+              "item": [
+                { "name": "Get user", "request": { "method": "GET", "url": "https://api.example.com/users/:id" },
+                  "response": [ { "code": 200, "body": "{\\"id\\": 1, \\"name\\": \\"x\\"}" } ] },
+                { "name": "Delete user", "request": { "method": "DELETE", "url": "https://api.example.com/users/:id" } }
+              ] }
+            """;
+
+    private final PostmanToSwaggerService service = TestConverters.converter(TestConverters.cl100k());
+
+    private final ConversionAdmission admission = new ConversionAdmission(true, DataSize.ofKilobytes(64), 16, 0,
+            Duration.ofMillis(50), new SimpleMeterRegistry());
+
+    private final ConversionJobService jobs;
+    private final MockMvc mvc;
+
+    ConversionApiControllerTests(@TempDir Path jobDirectory) throws Exception {
+        jobs = new ConversionJobService(service, 1, 2, jobDirectory, Duration.ofMinutes(5), Clock.systemUTC());
+        ConversionApiController controller = new ConversionApiController();
+        ReflectionTestUtils.setField(controller, "service", service);
+        ReflectionTestUtils.setField(controller, "admission", admission);
+        ReflectionTestUtils.setField(controller, "formats", OutputFormats.builtIn());
+        ReflectionTestUtils.setField(controller, "states", new ConversionStateStore(4, DataSize.ofMegabytes(64).toBytes()));
+        ReflectionTestUtils.setField(controller, "jobs", jobs);
+        ReflectionTestUtils.setField(controller, "merger", new CollectionMergeService(service,
+                TestConverters.cl100k(), admission, 2, 10, DataSize.ofMegabytes(50)));
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void returnsYamlByDefault() throws Exception {
+        MvcResult async = mvc.perform(post("/api/convert").content(COLLECTION))
+                .andExpect(header().string("X-Operation-Count", "2"))
+                .andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/yaml"))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo(service.convert(COLLECTION).getSwaggerYaml());
+    }
+
+    @Test
+    void negotiatesJsonAndGzipsBothWays() throws Exception {
+        MvcResult async = mvc.perform(post("/api/convert")
+                        .content(gzip(COLLECTION.getBytes(StandardCharsets.UTF_8)))
+                        .header("Content-Encoding", "gzip")
+                        .header("Accept", "application/yaml;q=0.5, application/json")
+                        .header("Accept-Encoding", "gzip, deflate"))
+                .andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+
+        byte[] body = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        JsonNode spec = new ObjectMapper().readTree(body);
+        assertThat(spec.at("/paths/~1users~1{id}/get/operationId").asText()).isEqualTo("get_user");
+        assertThat(spec.at("/paths/~1users~1{id}/delete").isObject()).isTrue();
+    }
+
+    @Test
+    void streamModeSpoolsAndStreams() throws Exception {
+        MvcResult async = mvc.perform(post("/api/convert").param("stream", "true").content(COLLECTION)).andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(async)).andExpect(status().isOk()).andReturn();
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo(service.convert(COLLECTION).getSwaggerYaml());
+    }
+
+    @Test
+    void formatParameterSelectsACompactFormat() throws Exception {
+        MvcResult async = mvc.perform(post("/api/convert").param("format", "endpoint-dsl").content(COLLECTION))
+                .andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "text/plain;charset=UTF-8"))
+                .andReturn();
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .contains("DELETE /users/{id} \"Delete user\"");
+        mvc.perform(post("/api/convert").param("format", "xml").content(COLLECTION))
+                .andExpect(status().isBadRequest());
+        mvc.perform(post("/api/convert").param("format", "yaml-flow").param("stream", "true").content(COLLECTION))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void incrementalEndpointReusesThePreviousState() throws Exception {
+        MvcResult first = mvc.perform(asyncDispatch(mvc.perform(post("/api/convert/incremental")
+                        .content(COLLECTION)).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Baseline", "none"))
+                .andExpect(header().string("X-Rebuilt-Operations", "2"))
+                .andReturn();
+        String state = first.getResponse().getHeader("X-Conversion-State");
+
+        String changed = COLLECTION.replace("Delete user", "Remove user");
+        MvcResult second = mvc.perform(asyncDispatch(mvc.perform(post("/api/convert/incremental")
+                        .param("since", state).content(changed)).andReturn()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Baseline", "reused"))
+                .andExpect(header().string("X-Reused-Operations", "1"))
+                .andExpect(header().string("X-Rebuilt-Operations", "1"))
+                .andExpect(header().string("X-Removed-Operations", "1"))
+                .andReturn();
+        assertThat(second.getResponse().getContentAsString(StandardCharsets.UTF_8))
+                .isEqualTo(service.convert(changed).getSwaggerYaml());
+
+        mvc.perform(asyncDispatch(mvc.perform(post("/api/convert/incremental")
+                        .param("since", "unknown").content(changed)).andReturn()))
+                .andExpect(header().string("X-Baseline", "missing"));
+    }
+
+    @Test
+    void jobsAreSubmittedPolledAndDownloaded() throws Exception {
+        MvcResult submitted = mvc.perform(post("/api/jobs").content(COLLECTION))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        String location = submitted.getResponse().getHeader("Location");
+        assertThat(location).startsWith("/api/jobs/");
+
+        JsonNode state = null;
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (System.nanoTime() < deadline) {
+            state = new ObjectMapper().readTree(mvc.perform(get(location)).andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsByteArray());
+            if (!state.path("state").asText().matches("QUEUED|RUNNING")) break;
+            Thread.sleep(10);
+        }
+        assertThat(state.path("state").asText()).isEqualTo("SUCCEEDED");
+        assertThat(state.path("processedRequests").asInt()).isEqualTo(2);
+        assertThat(state.path("totalRequests").asInt()).isEqualTo(2);
+
+        MvcResult async = mvc.perform(get(location + "/result").header("Accept-Encoding", "gzip")).andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/yaml"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+        byte[] yaml = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))
+                .readAllBytes();
+        assertThat(new String(yaml, StandardCharsets.UTF_8)).isEqualTo(service.convert(COLLECTION).getSwaggerYaml());
+
+        mvc.perform(delete(location)).andExpect(status().isNoContent());
+        mvc.perform(get(location)).andExpect(status().isNotFound());
+        mvc.perform(post("/api/jobs").param("format", "endpoint-dsl").content(COLLECTION))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void mergesCollectionsIntoOneDocument() throws Exception {
+        String orders = COLLECTION.replace("\"Api\"", "\"Orders\"").replace("users", "orders")
+                .replace("Delete user", "Cancel order");
+        String changed = COLLECTION.replace("Delete user", "Remove user");
+        MvcResult async = mvc.perform(multipart("/api/convert/merge")
+                        .file(file("users.json", COLLECTION))
+                        .file(file("orders.json", orders))
+                        .file(file("users-v2.json", changed))
+                        .param("title", "Shop"))
+                .andExpect(header().string("X-Operation-Count", "4"))
+                .andExpect(header().string("X-Merge-Conflicts", "1"))
+                .andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(async))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/zip"))
+                .andReturn();
+
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            for (ZipEntry e; (e = zip.getNextEntry()) != null; ) {
+                entries.put(e.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(entries.get("openapi.yaml")).contains("title: Shop").contains("/orders/{id}:");
+        JsonNode report = new ObjectMapper().readTree(entries.get("merge-report.json"));
+        assertThat(report.path("duplicateOperations").asInt()).isEqualTo(1);
+        assertThat(report.at("/conflicts/0/droppedFrom/0").asText()).isEqualTo("users-v2.json");
+
+        mvc.perform(multipart("/api/convert/merge").file(file("empty.json", ""))).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void rejectsUnreadableInput() throws Exception {
+        mvc.perform(post("/api/convert").content("{\"item\": [")).andExpect(status().isBadRequest());
+        mvc.perform(post("/api/convert").content(COLLECTION).header("Accept", "text/html"))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void answers429WhenTheMemoryBudgetIsTaken() throws Exception {
+        try (ConversionAdmission.Permit everything = admission.admit(Long.MAX_VALUE)) {
+            mvc.perform(post("/api/convert").content(COLLECTION))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().exists("Retry-After"));
+        }
+        MvcResult async = mvc.perform(post("/api/convert").content(COLLECTION)).andReturn();
+        mvc.perform(asyncDispatch(async)).andExpect(status().isOk());
+    }
+
+    private static byte[] gzip(byte[] data) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static MockMultipartFile file(String name, String content) {
+        return new MockMultipartFile("files", name, "application/json", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
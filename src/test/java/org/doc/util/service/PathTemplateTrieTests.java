@@ -0,0 +1,83 @@
+package org.doc.util.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathTemplateTrieTests {
+
+    private final PathTemplateTrie trie = new PathTemplateTrie(true, 2);
+
+    @Test
+    void collapsesIdSegmentsAcrossParents() {
+        Map<String, String> templates = trie.infer(List.of(
+                "/users/123/orders/987",
+                "/users/456/orders/12",
+                "/users/me",
+                "/files/3f2a9c1e7b4d5a60",
+                "/sessions/0b6f6c2e-4f59-4c43-9a0e-5d1f0c6f2a11/items/7",
+                "/v1/2/status",
+                "/categories/{id}/items",
+                "/categories/8/items"));
+
+        assertThat(templates).containsOnly(
+                Map.entry("/users/123/orders/987", "/users/{userId}/orders/{orderId}"),
+                Map.entry("/users/456/orders/12", "/users/{userId}/orders/{orderId}"),
+                Map.entry("/files/3f2a9c1e7b4d5a60", "/files/{fileId}"),
+                Map.entry("/sessions/0b6f6c2e-4f59-4c43-9a0e-5d1f0c6f2a11/items/7", "/sessions/{sessionId}/items/7"),
+                // joins the template that is already there
+                Map.entry("/categories/8/items", "/categories/{id}/items"));
+        assertThat(trie.infer(List.of("/a/1/b/2", "/a/3/b/4"))).containsEntry("/a/1/b/2", "/a/{aId}/b/{bId}");
+        assertThat(trie.infer(List.of("/1/2", "/3/4"))).containsEntry("/1/2", "/{id}/{id2}");
+        assertThat(new PathTemplateTrie(false, 2).infer(List.of("/users/1", "/users/2"))).isEmpty();
+    }
+
+    @Test
+    void normalizePathMatchesTheRegexVersion() {
+        List<String> cases = List.of("{{baseUrl}}/users/:id?x=1", "https://api.example.com", "http://h:8080//a//b/",
+                "{{base}}https://h/x#frag", "https://h?q=/x", "users", "", "?a", "{{}}x", "{{a}b}}/c",
+                "/{{a/:b}/c", "{{{a}}", "/a/:1/:_b2.json", "/x/{{id}}/{{}}/{{y}}}", "{{a?b}}/c", "//:id");
+        for (String url : cases) assertThat(PathTemplateTrie.normalizePath(url)).as(url).isEqualTo(regexPath(url));
+
+        Random random = new Random(7);
+        String[] parts = {"{", "}", "{{", "}}", "/", "//", ":", ":id", "a", "1", "_", "?", "#", " ", "https://h", "-"};
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder url = new StringBuilder(random.nextBoolean() ? "{{baseUrl}}" : "");
+            for (int n = random.nextInt(12); n > 0; n--) url.append(parts[random.nextInt(parts.length)]);
+            String raw = url.toString();
+            assertThat(PathTemplateTrie.normalizePath(raw)).as(raw).isEqualTo(regexPath(raw));
+        }
+    }
+
+    @Test
+    void operationIdMatchesTheRegexVersion() {
+        List<String> names = List.of("Get user", "  List -- all  users! ", "Ünïcode Näme", "", "???", "a\tb\nc", "x_y");
+        for (String name : names) {
+            assertThat(PathTemplateTrie.operationId("get", "/users/{id}", name)).as(name)
+                    .isEqualTo(regexOperationId("get", "/users/{id}", name));
+        }
+        assertThat(PathTemplateTrie.operationId("post", "/a-b/{id}_x", "!")).isEqualTo("post_ab_id_x");
+    }
+
+    /** The regex chain the scanner replaced. */
+    private static String regexPath(String rawUrl) {
+        String path = rawUrl.replaceAll("^\\{\\{[^}]+\\}\\}", "").replaceAll("^https?://[^/]*", "");
+        int q = path.indexOf('?');
+        if (q >= 0) path = path.substring(0, q);
+        int f = path.indexOf('#');
+        if (f >= 0) path = path.substring(0, f);
+        path = path.replaceAll("/:([a-zA-Z_][a-zA-Z0-9_]*)", "/{$1}").replaceAll("\\{\\{([^}]+)\\}\\}", "{$1}");
+        if (!path.startsWith("/")) path = "/" + path;
+        path = path.replaceAll("/+", "/");
+        return path.isBlank() ? "/" : path;
+    }
+
+    private static String regexOperationId(String method, String path, String name) {
+        String clean = name.toLowerCase().replaceAll("[^a-z0-9\\s]", " ").trim().replaceAll("\\s+", "_");
+        return clean.isBlank() ? method + path.replace("/", "_").replaceAll("[^a-z0-9_]", "") : clean;
+    }
+}
@@ -0,0 +1,303 @@
+package org.doc.util.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.doc.util.model.ConversionOptions;
+import org.doc.util.model.ConversionResult;
+import org.doc.util.model.FormatOutput;
+import org.doc.util.model.StreamingConversionSummary;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostmanToSwaggerServiceTests {
+
+    private static final String COLLECTION = """
+            {
+              "item": [
+                { "name": "Users",
+                  "item": [
+                    { "name": "List users", "request": { "method": "GET", "url": "{{baseUrl}}/users?page=1" } },
+                    { "name": "Get user", "request": { "method": "GET", "url": { "raw": "{{baseUrl}}/users/:id" } },
+                      "response": [ { "code": 200, "name": "OK", "body": "{\\"id\\": 1, \\"tags\\": [\\"a\\"]}" } ] }
+                  ] },
+                { "item": [
+                    { "name": "Create user", "request": { "method": "POST", "url": "{{baseUrl}}/users",
+                      "body": { "mode": "raw", "raw": "{\\"name\\": \\"x\\", \\"age\\": 3}" } } }
+                  ],
+                  "name": "Admin" },
+                { "name": "List users again", "request": { "method": "GET", "url": "{{baseUrl}}/users" } },
+                { "name": "Health", "request": { "method": "GET", "url": "https://api.example.com/health" } }
+              ],
+              "info": { "name": "Sample", "description": "Sample collection" },
+              "variable": [ { "key": "baseUrl", "value": "https://api.example.com" } ]
+            }
+            """;
+
+    private static final Tokenizer TOKENIZER = TestConverters.cl100k();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PostmanToSwaggerService service = service(registry, 0);
+
+    private static PostmanToSwaggerService service(SimpleMeterRegistry registry, int parallelThreshold) {
+        return TestConverters.builder(TOKENIZER).registry(registry).parallelThreshold(parallelThreshold).build();
+    }
+
+    @Test
+    void streamingMatchesTreeConversion() throws Exception {
+        ConversionResult tree = service.convert(COLLECTION);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingConversionSummary summary = service.convertStreaming(
+                new ByteArrayResource(COLLECTION.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(tree.getSwaggerYaml());
+        assertThat(summary.getCollectionName()).isEqualTo("Sample");
+        assertThat(summary.getOperationCount()).isEqualTo(4);
+        assertThat(summary.getSwaggerTokens()).isEqualTo(tree.getSwaggerTokens());
+        assertThat(summary.getPostmanTokens()).isEqualTo(tree.getPostmanTokens());
+    }
+
+    @Test
+    void recordedIdsAreMergedIntoPathTemplates() throws Exception {
+        String recorded = """
+                { "info": { "name": "Recorded" }, "item": [
+                    { "name": "Order", "request": { "method": "GET", "url": "{{baseUrl}}/users/123/orders/987" } },
+                    { "name": "Other order", "request": { "method": "GET", "url": "{{baseUrl}}/users/456/orders/12" } },
+                    { "name": "Cancel", "request": { "method": "DELETE", "url": "{{baseUrl}}/users/456/orders/12" } },
+                    { "name": "Me", "request": { "method": "GET", "url": "{{baseUrl}}/users/me" } }
+                ] }
+                """;
+
+        ConversionResult tree = service.convert(recorded);
+        JsonNode spec = new ObjectMapper(new YAMLFactory()).readTree(tree.getSwaggerYaml());
+
+        assertThat(spec.path("paths").fieldNames()).toIterable()
+                .containsExactly("/users/{userId}/orders/{orderId}", "/users/me");
+        JsonNode item = spec.path("paths").path("/users/{userId}/orders/{orderId}");
+        assertThat(item.path("get").path("summary").asText()).isEqualTo("Other order");
+        assertThat(item.path("delete").path("parameters").findValuesAsText("name")).containsExactly("userId", "orderId");
+
+        // Streaming keeps the first URL's definition of a template so nothing waits for the last one
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingConversionSummary summary =
+                service.convertStreaming(new ByteArrayResource(recorded.getBytes(StandardCharsets.UTF_8)), out);
+        assertThat(out.toString(StandardCharsets.UTF_8))
+                .isEqualTo(tree.getSwaggerYaml()
+                        .replace("summary: Other order", "summary: Order")
+                        .replace("operationId: other_order", "operationId: order"));
+        assertThat(summary.getUncollapsedRequests()).isEqualTo(1);
+    }
+
+    @Test
+    void requestsMergedIntoOneTemplateKeepEveryResponse() throws Exception {
+        String recorded = """
+                { "info": { "name": "Recorded" }, "item": [
+                    { "name": "Alice", "request": { "method": "GET",
+                        "url": { "raw": "{{baseUrl}}/users/1?expand=orders", "query": [ { "key": "expand" } ] } },
+                      "response": [
+                        { "name": "Found", "code": 200, "body": "{ \\"id\\": 1, \\"name\\": \\"Alice\\" }" } ] },
+                    { "name": "Bob", "request": { "method": "GET", "url": "{{baseUrl}}/users/2" },
+                      "response": [
+                        { "name": "Found Bob", "code": 200, "body": "{ \\"id\\": 2, \\"email\\": \\"b@x\\" }" },
+                        { "name": "Missing", "code": 404, "body": "{ \\"error\\": \\"not found\\" }" } ] }
+                ] }
+                """;
+
+        JsonNode spec = new ObjectMapper(new YAMLFactory()).readTree(service.convert(recorded).getSwaggerYaml());
+
+        JsonNode get = spec.path("paths").path("/users/{userId}").path("get");
+        assertThat(get.path("summary").asText()).isEqualTo("Bob");
+        assertThat(get.path("parameters").findValuesAsText("name")).containsExactly("userId", "expand");
+        assertThat(get.path("responses").fieldNames()).toIterable().containsExactly("200", "404");
+        assertThat(get.path("responses").path("200").path("description").asText()).isEqualTo("Found Bob");
+        JsonNode user = get.path("responses").path("200").path("content").path("application/json").path("schema");
+        assertThat(user.path("properties").fieldNames()).toIterable().containsExactly("id", "email", "name");
+        // both examples are folded into one schema, so only the id they share is required
+        assertThat(user.path("required").toString()).isEqualTo("[\"id\"]");
+    }
+
+    @Test
+    void conversionIsMeteredPerStage() throws Exception {
+        ConversionResult plain = service.convert(COLLECTION);
+        ConversionResult timed = service.convert(COLLECTION, ConversionOptions.builder().includeTimings(true).build());
+
+        assertThat(plain.getStageMillis()).isNull();
+        assertThat(timed.getStageMillis()).containsOnlyKeys(
+                "parse", "collect", "build", "dedup", "serialize", "pretty", "tokens", "total");
+        assertThat(timed.getSwaggerYaml()).isEqualTo(plain.getSwaggerYaml());
+
+        assertThat(registry.get("converter.stage").tags("mode", "tree", "stage", "build").timer().count()).isEqualTo(2);
+        assertThat(registry.get("converter.conversion").tags("cache", "off").timer().count()).isEqualTo(2);
+        assertThat(registry.get("converter.requests").summary().totalAmount()).isEqualTo(10);
+        assertThat(registry.get("converter.input.size").summary().totalAmount())
+                .isEqualTo(2.0 * COLLECTION.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void parallelBuildMatchesSequential() throws Exception {
+        StringBuilder items = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            if (i > 0) items.append(',');
+            items.append("""
+                    { "name": "Op %1$d", "request": { "method": "%2$s", "url": "{{baseUrl}}/r%3$d/:id",
+                      "body": { "mode": "raw", "raw": "{\\"n\\": %1$d, \\"tags\\": [\\"t\\"]}" } },
+                      "response": [ { "code": 200, "body": "{\\"id\\": %1$d, \\"ok\\": true}" } ] }
+                    """.formatted(i, i % 3 == 0 ? "POST" : "PUT", i % 40));
+        }
+        String collection = "{\"info\": {\"name\": \"Big\"}, \"item\": [" + items + "]}";
+
+        String sequential = service.convert(collection).getSwaggerYaml();
+        String parallel = service(new SimpleMeterRegistry(), 1).convert(collection).getSwaggerYaml();
+
+        assertThat(parallel).isEqualTo(sequential);
+    }
+
+    @Test
+    void repeatedResponseSchemasAreReferenced() throws Exception {
+        String body = "{\\\"id\\\": 1, \\\"name\\\": \\\"x\\\", \\\"email\\\": \\\"a@b.c\\\", \\\"active\\\": true}";
+        String collection = """
+                { "info": { "name": "Refs" },
+                  "item": [
+                    { "name": "Get user", "request": { "method": "GET", "url": "https://api.example.com/users/:id" },
+                      "response": [ { "code": 200, "body": "%1$s" } ] },
+                    { "name": "Get me", "request": { "method": "GET", "url": "https://api.example.com/me" },
+                      "response": [ { "code": 200, "body": "%1$s" } ] }
+                  ] }
+                """.formatted(body);
+
+        ConversionResult result = service.convert(collection);
+
+        assertThat(result.getSharedSchemas()).isEqualTo(1);
+        assertThat(result.getDedupTokenSavings()).isPositive();
+        JsonNode spec = new ObjectMapper(new YAMLFactory()).readTree(result.getSwaggerYaml());
+        assertThat(spec.at("/components/schemas/GetUserResponse/properties/email/type").asText()).isEqualTo("string");
+        assertThat(spec.at("/paths/~1me/get/responses/200/content/application~1json/schema/$ref").asText())
+                .isEqualTo("#/components/schemas/GetUserResponse");
+    }
+
+    @Test
+    void examplesWithTheSameStatusAreMergedIntoOneSchema() throws Exception {
+        String collection = """
+                { "info": { "name": "Merge" },
+                  "item": [
+                    { "name": "List orders", "request": { "method": "GET", "url": "https://api.example.com/orders" },
+                      "response": [
+                        { "code": 200, "name": "Page", "body": "[{\\"id\\": 1}, {\\"id\\": 2, \\"note\\": \\"x\\"}]" },
+                        { "code": 200, "name": "Last page", "body": "[{\\"id\\": 3, \\"total\\": 9.5}]" },
+                        { "code": 404, "name": "Missing", "body": "not found" } ] }
+                  ] }
+                """;
+
+        JsonNode spec = new ObjectMapper(new YAMLFactory()).readTree(service.convert(collection).getSwaggerYaml());
+
+        JsonNode responses = spec.at("/paths/~1orders/get/responses");
+        assertThat(responses.at("/200/description").asText()).isEqualTo("Page");
+        assertThat(responses.at("/404/content").isMissingNode()).isTrue();
+        JsonNode items = responses.at("/200/content/application~1json/schema/items");
+        assertThat(items.at("/properties").size()).isEqualTo(3);
+        assertThat(items.at("/required").toString()).isEqualTo("[\"id\"]");
+    }
+
+    @Test
+    void incrementalConversionOnlyRebuildsChangedItems() throws Exception {
+        PostmanToSwaggerService.IncrementalConversion first = service.convertIncremental(
+                COLLECTION.getBytes(StandardCharsets.UTF_8), null, ConversionOptions.defaults());
+        ConversionResult full = service.convert(COLLECTION);
+        assertThat(first.result().getSwaggerYaml()).isEqualTo(full.getSwaggerYaml());
+        assertThat(first.result().getSwaggerTokens()).isEqualTo(full.getSwaggerTokens());
+        assertThat(first.result().getPostmanTokens()).isEqualTo(full.getPostmanTokens());
+        assertThat(first.rebuilt()).isEqualTo(5);
+
+        String changed = COLLECTION.replace("\"name\": \"Health\"", "\"name\": \"Health check\"")
+                .replace("{ \"name\": \"List users again\", \"request\": { \"method\": \"GET\", \"url\": \"{{baseUrl}}/users\" } },", "");
+        PostmanToSwaggerService.IncrementalConversion second = service.convertIncremental(
+                changed.getBytes(StandardCharsets.UTF_8), first.state(), ConversionOptions.defaults());
+
+        ConversionResult expected = service.convert(changed);
+        assertThat(second.result().getSwaggerYaml()).isEqualTo(expected.getSwaggerYaml());
+        assertThat(second.result().getSwaggerTokens()).isEqualTo(expected.getSwaggerTokens());
+        assertThat(second.result().getPostmanTokens()).isEqualTo(expected.getPostmanTokens());
+        assertThat(second.baselineUsed()).isTrue();
+        assertThat(second.reused()).isEqualTo(3);
+        assertThat(second.rebuilt()).isEqualTo(1);
+        assertThat(second.removed()).isEqualTo(2);
+        assertThat(second.stateId()).isNotEqualTo(first.stateId());
+    }
+
+    @Test
+    void tokenBudgetTrimsUntilTheYamlFits() throws Exception {
+        ConversionResult full = service.convert(COLLECTION);
+        int budget = full.getSwaggerTokens() - 20;
+
+        ConversionResult trimmed = service.convert(COLLECTION, ConversionOptions.builder().maxTokens(budget).build());
+
+        assertThat(trimmed.getSwaggerTokens()).isLessThanOrEqualTo(budget)
+                .isEqualTo(TOKENIZER.countTokens(trimmed.getSwaggerYaml()));
+        assertThat(trimmed.isWithinBudget()).isTrue();
+        assertThat(trimmed.getBudgetTrims()).isNotEmpty();
+        assertThat(new ObjectMapper(new YAMLFactory()).readTree(trimmed.getSwaggerYaml()).at("/paths").size())
+                .isEqualTo(new ObjectMapper(new YAMLFactory()).readTree(full.getSwaggerYaml()).at("/paths").size());
+
+        ConversionResult tiny = service.convert(COLLECTION, ConversionOptions.builder().maxTokens(10).build());
+        assertThat(tiny.isWithinBudget()).isFalse();
+        // "Users" and "Admin" each keep one operation; on a tie the tag appearing later goes first
+        assertThat(tiny.getDroppedTags()).containsExactly("Users");
+        assertThat(full.getTokenBudget()).isNull();
+    }
+
+    @Test
+    void compareFormatsCountsEveryFormatFromTheSameDocument() throws Exception {
+        ConversionResult plain = service.convert(COLLECTION);
+        assertThat(plain.getFormats()).isNull();
+
+        ConversionResult compared = service.convert(COLLECTION, ConversionOptions.builder().compareFormats(true).build());
+
+        assertThat(compared.getFormats()).extracting(FormatOutput::getId)
+                .containsExactly("openapi-yaml", "json-min", "yaml-flow", "endpoint-dsl");
+        FormatOutput yaml = compared.getFormats().getFirst();
+        assertThat(yaml.getContent()).isEqualTo(compared.getSwaggerYaml());
+        assertThat(yaml.getTokens()).isEqualTo(compared.getSwaggerTokens());
+        int fewest = compared.getFormats().stream().mapToInt(FormatOutput::getTokens).min().orElseThrow();
+        assertThat(compared.getFormats()).allSatisfy(f -> {
+            assertThat(f.getTokens()).isEqualTo(TOKENIZER.countTokens(f.getContent()));
+            assertThat(f.isCheapest()).isEqualTo(f.getTokens() == fewest);
+        });
+        assertThat(compared.getFormats().getLast().getTokens()).isLessThan(yaml.getTokens());
+    }
+
+    @Test
+    void itemArrayMakesAFolderInBothModesWhereverTheRequestIs() throws Exception {
+        String mixed = """
+                { "info": { "name": "Mixed" },
+                  "item": [
+                    { "name": "Before", "item": [ { "name": "A", "request": { "method": "GET", "url": "https://x.io/a" } } ],
+                      "request": { "method": "GET", "url": "https://x.io/dropped-1" } },
+                    { "name": "After", "request": { "method": "GET", "url": "https://x.io/dropped-2" },
+                      "item": [ { "name": "B", "request": { "method": "GET", "url": "https://x.io/b" } } ] }
+                  ] }
+                """;
+        String tree = service.convert(mixed).getSwaggerYaml();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.convertStreaming(new ByteArrayResource(mixed.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(tree);
+        assertThat(tree).contains("/a:", "/b:", "- Before", "- After").doesNotContain("dropped");
+    }
+
+    @Test
+    void streamingHandlesEmptyCollection() throws Exception {
+        String empty = "{\"info\": {\"name\": \"Empty\"}, \"item\": []}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.convertStreaming(new ByteArrayResource(empty.getBytes(StandardCharsets.UTF_8)), out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(service.convert(empty).getSwaggerYaml());
+    }
+}
@@ -0,0 +1,163 @@
+package org.doc.util.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchemaDeduplicatorTests {
+
+    private final SchemaDeduplicator deduplicator = new SchemaDeduplicator(true, 2);
+
+    @Test
+    void liftsRepeatedSchemaAndNamesItAfterFirstUse() {
+        Map<String, Object> openApi = spec(
+                operation("get_user", user(), null),
+                operation("update_user", user(), reversed(user())));
+
+        SchemaDeduplicator.Result result = deduplicator.deduplicate(openApi, SchemaDeduplicatorTests::cost);
+
+        assertThat(result.liftedSchemas()).isEqualTo(1);
+        assertThat(result.tokenSavings()).isPositive();
+        Map<String, Object> schemas = components(result);
+        assertThat(schemas).containsOnlyKeys("GetUserResponse");
+        // the nested address only ever appears inside the shared user, so it stays inline there
+        assertThat(((Map<?, ?>) ((Map<?, ?>) schemas.get("GetUserResponse")).get("properties")).get("address"))
+                .isEqualTo(address());
+        assertThat(responseSchema(result.openApi(), "/get_user"))
+                .isEqualTo(Map.of("$ref", "#/components/schemas/GetUserResponse"));
+        assertThat(requestSchema(result.openApi(), "/update_user"))
+                .isEqualTo(Map.of("$ref", "#/components/schemas/GetUserResponse"));
+
+        // input is left untouched
+        assertThat(openApi).doesNotContainKey("components");
+        assertThat(responseSchema(openApi, "/get_user")).isEqualTo(user());
+    }
+
+    @Test
+    void liftsNestedSchemaSharedByDifferentParents() {
+        Map<String, Object> order = object("id", scalar("integer"), "shipping_address", address());
+        Map<String, Object> invoice = object("number", scalar("string"), "billing", address());
+        Map<String, Object> openApi = spec(
+                operation("get_order", order, null),
+                operation("get_invoice", invoice, null));
+
+        SchemaDeduplicator.Result result = deduplicator.deduplicate(openApi, SchemaDeduplicatorTests::cost);
+
+        Map<String, Object> schemas = components(result);
+        assertThat(schemas).containsOnlyKeys("ShippingAddress");
+        assertThat(((Map<?, ?>) responseSchema(result.openApi(), "/get_invoice").get("properties")).get("billing"))
+                .isEqualTo(Map.of("$ref", "#/components/schemas/ShippingAddress"));
+    }
+
+    @Test
+    void liftsSchemaRepeatedInsideOneOfVariants() {
+        Map<String, Object> order = object("id", scalar("integer"), "destination",
+                Map.of("oneOf", List.of(address(), scalar("string"))));
+        Map<String, Object> invoice = object("number", scalar("string"), "billing",
+                Map.of("oneOf", List.of(address(), scalar("integer"))));
+        Map<String, Object> openApi = spec(
+                operation("get_order", order, null),
+                operation("get_invoice", invoice, null));
+
+        SchemaDeduplicator.Result result = deduplicator.deduplicate(openApi, SchemaDeduplicatorTests::cost);
+
+        assertThat(components(result)).containsOnlyKeys("Destination");
+        assertThat(((Map<?, ?>) responseSchema(result.openApi(), "/get_invoice").get("properties")).get("billing"))
+                .isEqualTo(Map.of("oneOf", List.of(Map.of("$ref", "#/components/schemas/Destination"),
+                        scalar("integer"))));
+    }
+
+    @Test
+    void leavesSpecAloneWhenNothingRepeats() {
+        Map<String, Object> openApi = spec(operation("get_user", user(), null));
+
+        SchemaDeduplicator.Result result = deduplicator.deduplicate(openApi, SchemaDeduplicatorTests::cost);
+
+        assertThat(result.openApi()).isSameAs(openApi);
+        assertThat(result.liftedSchemas()).isZero();
+    }
+
+    // ── Fixtures ──────────────────────────────────────────────────────────────
+
+    /** Rough stand-in for serialized token counts: one token per leaf value. */
+    private static int cost(Object value) {
+        if (value instanceof Map<?, ?> map) return map.values().stream().mapToInt(SchemaDeduplicatorTests::cost).sum() + 1;
+        if (value instanceof List<?> list) return list.stream().mapToInt(SchemaDeduplicatorTests::cost).sum() + 1;
+        return 2;
+    }
+
+    private static Map<String, Object> user() {
+        return object("id", scalar("integer"), "name", scalar("string"), "email", scalar("string"),
+                "address", address());
+    }
+
+    private static Map<String, Object> address() {
+        return object("street", scalar("string"), "city", scalar("string"), "zip", scalar("string"));
+    }
+
+    private static Map<String, Object> reversed(Map<String, Object> schema) {
+        Map<?, ?> props = (Map<?, ?>) schema.get("properties");
+        Map<String, Object> flipped = new LinkedHashMap<>();
+        List<?> keys = List.copyOf(props.keySet());
+        for (int i = keys.size() - 1; i >= 0; i--) flipped.put((String) keys.get(i), props.get(keys.get(i)));
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("type", "object");
+        out.put("properties", flipped);
+        return out;
+    }
+
+    private static Map<String, Object> object(Object... nameSchemaPairs) {
+        Map<String, Object> props = new LinkedHashMap<>();
+        for (int i = 0; i < nameSchemaPairs.length; i += 2) props.put((String) nameSchemaPairs[i], nameSchemaPairs[i + 1]);
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("type", "object");
+        schema.put("properties", props);
+        return schema;
+    }
+
+    private static Map<String, Object> scalar(String type) {
+        return Map.of("type", type);
+    }
+
+    private static Map.Entry<String, Object> operation(String id, Object response, Object request) {
+        Map<String, Object> op = new LinkedHashMap<>();
+        op.put("operationId", id);
+        if (request != null) op.put("requestBody", Map.of("content", Map.of("application/json", Map.of("schema", request))));
+        op.put("responses", Map.of("200", Map.of("description", "OK",
+                "content", Map.of("application/json", Map.of("schema", response)))));
+        return Map.entry("/" + id, Map.of("post", op));
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> spec(Map.Entry<String, Object>... operations) {
+        Map<String, Object> paths = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : operations) paths.put(e.getKey(), e.getValue());
+        Map<String, Object> openApi = new LinkedHashMap<>();
+        openApi.put("openapi", "3.0.3");
+        openApi.put("paths", paths);
+        return openApi;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> components(SchemaDeduplicator.Result result) {
+        return (Map<String, Object>) ((Map<?, ?>) result.openApi().get("components")).get("schemas");
+    }
+
+    private static Map<?, ?> operationAt(Map<String, Object> openApi, String path) {
+        return (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) openApi.get("paths")).get(path)).get("post");
+    }
+
+    private static Map<?, ?> responseSchema(Map<String, Object> openApi, String path) {
+        Map<?, ?> ok = (Map<?, ?>) ((Map<?, ?>) operationAt(openApi, path).get("responses")).get("200");
+        return (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) ok.get("content")).get("application/json")).get("schema");
+    }
+
+    private static Map<?, ?> requestSchema(Map<String, Object> openApi, String path) {
+        Map<?, ?> body = (Map<?, ?>) operationAt(openApi, path).get("requestBody");
+        return (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) body.get("content")).get("application/json")).get("schema");
+    }
+}
@@ -0,0 +1,76 @@
+package org.doc.util.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SchemaMergerTests {
+
+    private final SchemaMerger merger = new SchemaMerger(100, 16, 256, DataSize.ofMegabytes(1));
+
+    @Test
+    void mergesEveryArrayItemAndEveryExample() {
+        SchemaMerger.Merge merge = merger.start();
+        merge.add("""
+                [ {"id": 1, "name": "a", "score": 1},
+                  {"id": 2, "name": null, "score": 2.5, "tags": ["x"]} ]""");
+        merge.add("[ {\"id\": 3, \"name\": \"c\", \"score\": 3, \"owner\": {\"id\": 9}} ]");
+        assertThat(merge.add("not json")).isFalse();
+
+        Map<String, Object> items = cast(merge.schema().get("items"));
+        assertThat(merge.examples()).isEqualTo(2);
+        assertThat(cast(items.get("properties"))).containsOnlyKeys("id", "name", "score", "tags", "owner");
+        assertThat(items.get("required")).isEqualTo(List.of("id", "name", "score"));
+        assertThat(property(items, "name")).isEqualTo(Map.of("type", "string", "nullable", true));
+        assertThat(property(items, "score")).isEqualTo(Map.of("type", "number"));
+        assertThat(property(items, "tags")).isEqualTo(Map.of("type", "array", "items", Map.of("type", "string")));
+        // seen once, so nothing is known about which of its properties are optional
+        assertThat(property(items, "owner")).doesNotContainKey("required");
+    }
+
+    @Test
+    void mixedTypesBecomeOneOf() {
+        Map<String, Object> schema = merger.infer("{\"values\": [1, \"two\", true, null]}");
+
+        assertThat(property(schema, "values").get("items")).isEqualTo(Map.of(
+                "oneOf", List.of(Map.of("type", "string"), Map.of("type", "integer"), Map.of("type", "boolean")),
+                "nullable", true));
+        assertThat(merger.infer("[]")).isEqualTo(Map.of("type", "array", "items", Map.of("type", "object")));
+        assertThat(merger.infer("  ")).isNull();
+    }
+
+    @Test
+    void limitsBoundHowMuchOfAnExampleIsRead() {
+        SchemaMerger small = new SchemaMerger(2, 2, 2, DataSize.ofBytes(64));
+
+        // only the first two items are sampled
+        assertThat(small.infer("[1, 2, \"three\"]").get("items")).isEqualTo(Map.of("type", "integer"));
+        // nesting below max-depth is skipped, the object stays
+        assertThat(property(small.infer("{\"a\": {\"b\": {\"c\": 1}}}"), "a"))
+                .isEqualTo(Map.of("type", "object", "properties", Map.of("b", Map.of("type", "object"))));
+        // extra properties are dropped
+        assertThat(cast(small.infer("{\"a\": 1, \"b\": 2, \"c\": 3}").get("properties"))).containsOnlyKeys("a", "b");
+
+        // reading stops at the size limit; what was seen still counts
+        StringBuilder huge = new StringBuilder("[");
+        for (int i = 0; i < 10_000; i++) huge.append(i == 0 ? "" : ",").append("{\"id\": ").append(i).append('}');
+        SchemaMerger.Merge merge = small.start();
+        assertThat(merge.add(huge.append("]").toString())).isTrue();
+        assertThat(merge.schema().get("items"))
+                .isEqualTo(Map.of("type", "object", "properties", Map.of("id", Map.of("type", "integer")),
+                        "required", List.of("id")));
+    }
+
+    private static Map<String, Object> property(Map<String, Object> schema, String name) {
+        return cast(cast(schema.get("properties")).get(name));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> cast(Object map) {
+        return (Map<String, Object>) map;
+    }
+}
@@ -0,0 +1,190 @@
+package org.doc.util.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Random;
+
+/**
+ * Builds Postman v2.1 collections for benchmarks and load tests. The same seed and
+ * shape always produce the same bytes, so runs are comparable across commits.
+ * <p>
+ * Requests are spread over a folder tree {@code folderDepth} levels deep. Each
+ * resource has a fixed entity shape, so response schemas repeat across operations
+ * the way they do in real APIs, while field values, URLs and parameters vary.
+ */
+public final class SyntheticCollectionGenerator {
+
+    private static final String[] RESOURCES = {
+            "users", "orders", "products", "invoices", "accounts", "sessions", "reports", "webhooks"};
+    private static final String[] METHODS = {"GET", "GET", "GET", "POST", "PUT", "PATCH", "DELETE"};
+    private static final String[] WORDS = {
+            "alpha", "bravo", "charlie", "delta", "echo", "foxtrot", "golf", "hotel", "india", "juliet"};
+    private static final int FOLDER_FANOUT = 4;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long seed;
+    private final int items;
+    private final int folderDepth;
+    private final int bodyFields;
+    private final int examples;
+
+    /**
+     * @param items       number of requests
+     * @param folderDepth folder nesting levels above the requests (0 = flat)
+     * @param bodyFields  top-level fields in request bodies and response entities
+     * @param examples    saved example responses per request
+     */
+    public SyntheticCollectionGenerator(long seed, int items, int folderDepth, int bodyFields, int examples) {
+        this.seed = seed;
+        this.items = items;
+        this.folderDepth = folderDepth;
+        this.bodyFields = bodyFields;
+        this.examples = examples;
+    }
+
+    public String generate() {
+        Random random = new Random(seed);
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode info = root.putObject("info");
+        info.put("name", "Synthetic " + items);
+        info.put("schema", "https://schema.getpostman.com/json/collection/v2.1.0/collection.json");
+        fill(root.putArray("item"), folderDepth, items, new int[1], random);
+        ArrayNode variables = root.putArray("variable");
+        variables.addObject().put("key", "baseUrl").put("value", "https://api.example.com");
+        variables.addObject().put("key", "orgId").put("value", "42");
+        return root.toString();
+    }
+
+    private void fill(ArrayNode target, int depth, int count, int[] next, Random random) {
+        if (depth == 0) {
+            for (int i = 0; i < count; i++) target.add(request(next[0]++, random));
+            return;
+        }
+        int folders = Math.min(FOLDER_FANOUT, Math.max(1, count));
+        for (int f = 0; f < folders; f++) {
+            int share = count / folders + (f < count % folders ? 1 : 0);
+            ObjectNode folder = target.addObject();
+            folder.put("name", "Folder " + depth + "." + f);
+            fill(folder.putArray("item"), depth - 1, share, next, random);
+        }
+    }
+
+    // ── Requests ──────────────────────────────────────────────────────────────
+
+    private ObjectNode request(int index, Random random) {
+        String resource = RESOURCES[random.nextInt(RESOURCES.length)];
+        String method = METHODS[random.nextInt(METHODS.length)];
+
+        ObjectNode item = mapper.createObjectNode();
+        item.put("name", capitalize(method.toLowerCase()) + " " + resource + " " + index);
+
+        ObjectNode request = item.putObject("request");
+        request.put("method", method);
+        request.put("description", "Operates on " + resource + " (" + word(random) + " " + word(random) + ").");
+        ArrayNode headers = request.putArray("header");
+        headers.addObject().put("key", "Accept").put("value", "application/json");
+        headers.addObject().put("key", "X-Request-Id").put("value", Long.toHexString(random.nextLong()));
+        if (random.nextBoolean()) {
+            headers.addObject().put("key", "X-Tenant").put("value", "{{orgId}}");
+        }
+
+        String path = urlPath(resource, random);
+        boolean paged = "GET".equals(method) && random.nextBoolean();
+        String raw = "{{baseUrl}}" + path + (paged ? "?page=" + random.nextInt(10) + "&limit=50" : "");
+        if (random.nextInt(3) == 0) {
+            request.put("url", raw);
+        } else {
+            ObjectNode url = request.putObject("url");
+            url.put("raw", raw);
+            if (paged) {
+                ArrayNode query = url.putArray("query");
+                query.addObject().put("key", "page").put("value", "1");
+                query.addObject().put("key", "limit").put("value", "50");
+            }
+        }
+
+        if (!"GET".equals(method) && !"DELETE".equals(method)) {
+            ObjectNode body = request.putObject("body");
+            body.put("mode", "raw");
+            body.put("raw", randomObject(bodyFields, 2, random).toPrettyString());
+            body.putObject("options").putObject("raw").put("language", "json");
+        }
+
+        ArrayNode responses = item.putArray("response");
+        for (int e = 0; e < examples; e++) {
+            ObjectNode response = responses.addObject();
+            boolean ok = e == 0 || random.nextInt(4) != 0;
+            response.put("name", ok ? "OK" : "Not found");
+            response.put("code", ok ? ("POST".equals(method) ? 201 : 200) : 404);
+            response.put("body", ok ? entity(resource, random).toPrettyString()
+                    : "{\n  \"error\": \"not_found\",\n  \"message\": \"" + word(random) + "\"\n}");
+        }
+        return item;
+    }
+
+    private static String urlPath(String resource, Random random) {
+        return switch (random.nextInt(5)) {
+            case 0 -> "/v1/" + resource;
+            case 1 -> "/v1/" + resource + "/:id";
+            case 2 -> "/v1/orgs/{{orgId}}/" + resource + "/:id";
+            case 3 -> "/v1/" + resource + "/" + random.nextInt(100_000) + "/history";
+            default -> "/v1/" + resource + "/:id/" + RESOURCES[random.nextInt(RESOURCES.length)];
+        };
+    }
+
+    // ── Bodies ────────────────────────────────────────────────────────────────
+
+    /** Same field names and types for a resource every time; only the values change. */
+    private ObjectNode entity(String resource, Random random) {
+        Random shape = new Random(seed ^ resource.hashCode());
+        ObjectNode entity = mapper.createObjectNode();
+        entity.put("id", random.nextInt(1_000_000));
+        for (int i = 1; i < bodyFields; i++) {
+            String field = WORDS[shape.nextInt(WORDS.length)] + "_" + i;
+            switch (shape.nextInt(6)) {
+                case 0 -> entity.put(field, random.nextInt(1000));
+                case 1 -> entity.put(field, random.nextDouble());
+                case 2 -> entity.put(field, random.nextBoolean());
+                case 3 -> {
+                    ObjectNode nested = entity.putObject(field);
+                    nested.put("street", word(random));
+                    nested.put("city", word(random));
+                    nested.put("zip", String.valueOf(10000 + random.nextInt(90000)));
+                }
+                case 4 -> {
+                    ArrayNode list = entity.putArray(field);
+                    for (int k = 0; k < 3; k++) list.addObject().put("name", word(random)).put("count", k);
+                }
+                default -> entity.put(field, word(random) + " " + word(random));
+            }
+        }
+        return entity;
+    }
+
+    private ObjectNode randomObject(int fields, int depth, Random random) {
+        ObjectNode node = mapper.createObjectNode();
+        for (int i = 0; i < fields; i++) {
+            String field = word(random) + i;
+            int kind = random.nextInt(depth > 0 ? 6 : 4);
+            switch (kind) {
+                case 0 -> node.put(field, random.nextInt(1000));
+                case 1 -> node.put(field, random.nextBoolean());
+                case 2 -> node.put(field, random.nextDouble());
+                case 3 -> node.put(field, word(random));
+                case 4 -> node.set(field, randomObject(Math.max(2, fields / 3), depth - 1, random));
+                default -> node.putArray(field).add(randomObject(Math.max(2, fields / 4), depth - 1, random));
+            }
+        }
+        return node;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    private static String capitalize(String s) {
+        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+    }
+}
@@ -0,0 +1,82 @@
+package org.doc.util.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.doc.util.service.cache.ConversionCache;
+import org.doc.util.service.format.OutputFormats;
+import org.doc.util.service.metrics.ConversionMetrics;
+import org.doc.util.service.spec.SpecInterner;
+import org.doc.util.service.tokenizer.BpeTokenizer;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * A {@link PostmanToSwaggerService} wired by hand with the application's defaults,
+ * for tests, benchmarks and load tests that run without a Spring context. The cache
+ * is off and operations are built sequentially unless a builder setting says otherwise.
+ */
+public final class TestConverters {
+
+    private TestConverters() {
+    }
+
+    /** The bundled {@code cl100k_base} tokenizer, loaded once per JVM. */
+    public static Tokenizer cl100k() {
+        return Cl100k.TOKENIZER;
+    }
+
+    public static PostmanToSwaggerService converter(Tokenizer tokenizer) {
+        return builder(tokenizer).build();
+    }
+
+    public static Builder builder(Tokenizer tokenizer) {
+        return new Builder(tokenizer);
+    }
+
+    public static final class Builder {
+        private final Tokenizer tokenizer;
+        private MeterRegistry registry = new SimpleMeterRegistry();
+        private PathTemplateTrie pathTemplates = new PathTemplateTrie(true, 2);
+        private boolean deduplicate = true;
+        private int parallelThreshold;
+
+        private Builder(Tokenizer tokenizer) {
+            this.tokenizer = tokenizer;
+        }
+
+        public Builder registry(MeterRegistry registry) {
+            this.registry = registry;
+            return this;
+        }
+
+        public Builder pathTemplates(PathTemplateTrie pathTemplates) {
+            this.pathTemplates = pathTemplates;
+            return this;
+        }
+
+        public Builder deduplicate(boolean deduplicate) {
+            this.deduplicate = deduplicate;
+            return this;
+        }
+
+        /** Requests from which operations are built in parallel; 0 (the default) = never. */
+        public Builder parallelThreshold(int parallelThreshold) {
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        public PostmanToSwaggerService build() {
+            return new PostmanToSwaggerService(tokenizer, new ConversionCache(0, null, 0),
+                    new SchemaMerger(100, 16, 256, DataSize.ofMegabytes(1)), pathTemplates,
+                    new SpecInterner(100_000, DataSize.ofMegabytes(32).toBytes()),
+                    new SchemaDeduplicator(deduplicate, 2), new TokenBudgetTrimmer(), OutputFormats.builtIn(),
+                    new ConversionMetrics(registry), parallelThreshold);
+        }
+    }
+
+    private static final class Cl100k {
+        static final Tokenizer TOKENIZER =
+                new BpeTokenizer("cl100k_base", new ClassPathResource("tokenizer/cl100k_base.tiktoken.gz"));
+    }
+}
@@ -0,0 +1,148 @@
+package org.doc.util.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TokenBudgetTrimmerTests {
+
+    private final TokenBudgetTrimmer trimmer = new TokenBudgetTrimmer();
+
+    @Test
+    void stopsAtTheFirstStepThatFits() {
+        Map<String, Object> openApi = spec(null,
+                operation("/users", "Users", "Lists every user in the system", header("X-Trace"), null),
+                operation("/users/{id}", "Users", "One user", header("X-Trace"), null));
+        int total = cost(openApi);
+
+        TokenBudgetTrimmer.Result result = trimmer.trim(openApi, total - 1, total, TokenBudgetTrimmerTests::cost);
+
+        assertThat(result.trims()).containsExactly(new TokenBudgetTrimmer.Trim("descriptions", 1));
+        assertThat(result.estimatedTokens()).isEqualTo(cost(result.openApi())).isLessThan(total);
+        assertThat(operationAt(result.openApi(), "/users/{id}")).containsKey("description");
+        assertThat(operationAt(result.openApi(), "/users")).doesNotContainKey("description").containsKey("parameters");
+
+        // input is left untouched, and a budget that already fits changes nothing
+        assertThat(operationAt(openApi, "/users")).containsKey("description");
+        assertThat(trimmer.trim(openApi, total, total, TokenBudgetTrimmerTests::cost).openApi()).isSameAs(openApi);
+    }
+
+    @Test
+    void prunesUnreferencedSchemasAndDropsRareTagsLast() {
+        Map<String, Object> components = new LinkedHashMap<>();
+        components.put("User", object("id", scalar("integer"), "profile",
+                object("bio", scalar("string"), "links", object("site", scalar("string")))));
+        components.put("Order", object("id", scalar("integer"), "total", scalar("number")));
+        components.put("Receipt", object("id", scalar("integer"), "lines", scalar("array")));
+        Map<String, Object> openApi = spec(components,
+                operation("/users", "Users", null, header("X-Trace"), ref("User")),
+                operation("/users/{id}", "Users", null, null, ref("User")),
+                operation("/orders", "Orders", "Place an order", null, ref("Order")),
+                operation("/receipts", "Orders", null, null, ref("Receipt")));
+        Map<?, ?> receiptResponse = Map.of("200", Map.of("description", "OK",
+                "content", Map.of("application/json", Map.of("schema", ref("Receipt")))));
+        operationAt(openApi, "/receipts").put("responses", receiptResponse);
+        operationAt(openApi, "/receipts").remove("requestBody");
+        int total = cost(openApi);
+
+        TokenBudgetTrimmer.Result result = trimmer.trim(openApi, 1, total, TokenBudgetTrimmerTests::cost);
+
+        assertThat(result.trims()).extracting(TokenBudgetTrimmer.Trim::step).containsExactly(
+                "descriptions", "header-params", "response-schemas", "depth-2", "depth-1", "rare-tags");
+        assertThat(result.droppedTags()).containsExactly("Orders");
+        assertThat(result.droppedOperations()).isEqualTo(2);
+        assertThat(cast((Map<?, ?>) result.openApi().get("paths"))).containsOnlyKeys("/users", "/users/{id}");
+        Map<String, Object> schemas = cast((Map<?, ?>) ((Map<?, ?>) result.openApi().get("components")).get("schemas"));
+        assertThat(schemas).containsOnlyKeys("User");
+        assertThat(((Map<?, ?>) ((Map<?, ?>) schemas.get("User")).get("properties")).get("profile"))
+                .isEqualTo(Map.of("type", "object"));
+        // parts are costed on their own, so the estimate may be off by the wrappers around them
+        assertThat(result.estimatedTokens()).isCloseTo(cost(result.openApi()), within(4));
+    }
+
+    @Test
+    void truncatesObjectsInsideOneOfVariants() {
+        Map<String, Object> payload = Map.of("oneOf", List.of(
+                object("detail", object("code", scalar("string")), "at", scalar("string")), scalar("string")));
+        Map<String, Object> components = new LinkedHashMap<>();
+        components.put("Event", object("id", scalar("integer"), "payload", payload));
+        Map<String, Object> openApi = spec(components, operation("/events", "Events", null, null, ref("Event")));
+        int total = cost(openApi);
+
+        TokenBudgetTrimmer.Result result = trimmer.trim(openApi, 1, total, TokenBudgetTrimmerTests::cost);
+
+        assertThat(result.trims()).extracting(TokenBudgetTrimmer.Trim::step).contains("depth-2", "depth-1");
+        Map<?, ?> event = (Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) result.openApi().get("components")).get("schemas"))
+                .get("Event");
+        // a variant sits at its parent's depth, so the object variant of payload goes at depth 1
+        assertThat(((Map<?, ?>) event.get("properties")).get("payload"))
+                .isEqualTo(Map.of("oneOf", List.of(Map.of("type", "object"), scalar("string"))));
+    }
+
+    // ── Fixtures ──────────────────────────────────────────────────────────────
+
+    /** Rough stand-in for serialized token counts: one token per map or list, two per leaf value. */
+    private static int cost(Object value) {
+        if (value instanceof Map<?, ?> map) return map.values().stream().mapToInt(TokenBudgetTrimmerTests::cost).sum() + 1;
+        if (value instanceof List<?> list) return list.stream().mapToInt(TokenBudgetTrimmerTests::cost).sum() + 1;
+        return 2;
+    }
+
+    private static Map<String, Object> header(String name) {
+        return Map.of("name", name, "in", "header", "schema", scalar("string"));
+    }
+
+    private static Map<String, Object> ref(String name) {
+        return Map.of("$ref", "#/components/schemas/" + name);
+    }
+
+    private static Map<String, Object> object(Object... nameSchemaPairs) {
+        Map<String, Object> props = new LinkedHashMap<>();
+        for (int i = 0; i < nameSchemaPairs.length; i += 2) props.put((String) nameSchemaPairs[i], nameSchemaPairs[i + 1]);
+        return Map.of("type", "object", "properties", props);
+    }
+
+    private static Map<String, Object> scalar(String type) {
+        return Map.of("type", type);
+    }
+
+    private static Map.Entry<String, Object> operation(String path, String tag, String description,
+                                                       Map<String, Object> header, Map<String, Object> request) {
+        Map<String, Object> op = new LinkedHashMap<>();
+        op.put("summary", path);
+        op.put("tags", List.of(tag));
+        if (description != null) op.put("description", description);
+        if (header != null) op.put("parameters", List.of(header));
+        if (request != null) op.put("requestBody", Map.of("content", Map.of("application/json", Map.of("schema", request))));
+        op.put("responses", Map.of("200", Map.of("description", "OK")));
+        Map<String, Object> pathItem = new LinkedHashMap<>();
+        pathItem.put("get", op);
+        return Map.entry(path, pathItem);
+    }
+
+    @SafeVarargs
+    private static Map<String, Object> spec(Map<String, Object> schemas, Map.Entry<String, Object>... operations) {
+        Map<String, Object> paths = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> e : operations) paths.put(e.getKey(), e.getValue());
+        Map<String, Object> openApi = new LinkedHashMap<>();
+        openApi.put("openapi", "3.0.3");
+        openApi.put("info", Map.of("title", "Api", "description", "An API"));
+        openApi.put("paths", paths);
+        if (schemas != null) openApi.put("components", Map.of("schemas", schemas));
+        return openApi;
+    }
+
+    private static Map<String, Object> operationAt(Map<String, Object> openApi, String path) {
+        return cast((Map<?, ?>) ((Map<?, ?>) ((Map<?, ?>) openApi.get("paths")).get(path)).get("get"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> cast(Map<?, ?> map) {
+        return (Map<String, Object>) map;
+    }
+}
@@ -0,0 +1,81 @@
+package org.doc.util.service.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConversionAdmissionTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void queuesUntilBudgetIsReleased() throws Exception {
+        ConversionAdmission admission = admission(1, Duration.ofSeconds(10));
+        ConversionAdmission.Permit first = admission.admit(40 * 1024);
+        assertThat(registry.get("converter.admission.reserved").gauge().value()).isEqualTo(640 * 1024);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<ConversionAdmission.Permit> second = CompletableFuture.supplyAsync(() -> {
+            started.countDown();
+            return admission.admit(40 * 1024);
+        });
+        started.await();
+        while (registry.get("converter.admission.queue").gauge().value() < 1) Thread.onSpinWait();
+        assertThat(second).isNotDone();
+
+        first.close();
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertThat(registry.get("converter.admission.reserved").gauge().value()).isZero();
+        assertThat(registry.get("converter.admission.queue").gauge().value()).isZero();
+    }
+
+    @Test
+    void rejectsWhenQueueIsFullOrWaitTimesOut() {
+        ConversionAdmission admission = admission(0, Duration.ofMillis(20));
+        try (ConversionAdmission.Permit all = admission.admit(Long.MAX_VALUE)) {
+            assertThatThrownBy(() -> admission.admit(1))
+                    .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                            e -> assertThat(e.getStatus()).isEqualTo(429));
+        }
+        assertThat(registry.get("converter.admission.rejected").tag("reason", "queue-full").counter().count())
+                .isEqualTo(1);
+
+        ConversionAdmission waiting = admission(1, Duration.ofMillis(20));
+        try (ConversionAdmission.Permit all = waiting.admit(Long.MAX_VALUE)) {
+            assertThatThrownBy(() -> waiting.admit(1))
+                    .isInstanceOfSatisfying(AdmissionRejectedException.class,
+                            e -> assertThat(e.getStatus()).isEqualTo(503));
+        }
+        assertThat(registry.get("converter.admission.rejected").tag("reason", "timeout").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void capsOversizedConversionsToTheWholeBudget() {
+        ConversionAdmission admission = admission(0, Duration.ofMillis(20));
+        assertThat(admission.costKb(1)).isEqualTo(1);
+        assertThat(admission.costKb(1024)).isEqualTo(16);
+        assertThat(admission.costKb(Long.MAX_VALUE)).isEqualTo(1024);
+
+        ConversionAdmission disabled = new ConversionAdmission(false, DataSize.ofKilobytes(1), 16, 0,
+                Duration.ZERO, new SimpleMeterRegistry());
+        try (ConversionAdmission.Permit a = disabled.admit(Long.MAX_VALUE);
+             ConversionAdmission.Permit b = disabled.admit(Long.MAX_VALUE)) {
+            assertThat(a).isSameAs(b);
+        }
+    }
+
+    private ConversionAdmission admission(int maxQueue, Duration timeout) {
+        registry.clear();
+        return new ConversionAdmission(true, DataSize.ofMegabytes(1), 16, maxQueue, timeout, registry);
+    }
+}
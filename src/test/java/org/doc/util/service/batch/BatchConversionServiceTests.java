@@ -0,0 +1,127 @@
+package org.doc.util.service.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.doc.util.model.BatchReport;
+import org.doc.util.model.ConversionResult;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.TestConverters;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.doc.util.service.tokenizer.Tokenizer;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchConversionServiceTests {
+
+    private final Tokenizer tokenizer = TestConverters.cl100k();
+    private final PostmanToSwaggerService converter = TestConverters.converter(tokenizer);
+    private final ConversionAdmission admission = new ConversionAdmission(true, DataSize.ofMegabytes(64), 16, 16,
+            Duration.ofSeconds(10), new SimpleMeterRegistry());
+    private final BatchConversionService batch =
+            new BatchConversionService(converter, tokenizer, admission, 2, 1000, DataSize.ofMegabytes(1));
+
+    @Test
+    void convertsArchiveAndFilesInInputOrderAndReportsFailures() throws Exception {
+        Map<String, String> archive = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) archive.put("team/svc" + i + ".postman_collection.json", collection("Svc " + i));
+        archive.put("team/broken.json", "{\"item\": [");
+        archive.put("team/README.md", "not a collection");
+        archive.put("other/svc0.postman_collection.json", collection("Svc 0 again"));
+
+        List<BatchConversionService.Input> inputs = List.of(
+                new BatchConversionService.Input("all.zip", new ByteArrayResource(zip(archive)), -1),
+                input("single.json", collection("Single")));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchReport report = batch.convert(inputs, out);
+        Map<String, String> entries = unzip(out.toByteArray());
+
+        assertThat(entries.keySet()).containsExactly("svc0.yaml", "svc1.yaml", "svc2.yaml", "svc3.yaml",
+                "svc4.yaml", "svc0-2.yaml", "single.yaml", "token-report.json");
+        ConversionResult svc3 = converter.convert(collection("Svc 3"));
+        assertThat(entries.get("svc3.yaml")).isEqualTo(svc3.getSwaggerYaml());
+        assertThat(report.getItems().get(3).getSwaggerTokens()).isEqualTo(svc3.getSwaggerTokens());
+        assertThat(report.getItems().get(3).getPostmanTokens()).isEqualTo(svc3.getPostmanTokens());
+
+        assertThat(report.getCollections()).isEqualTo(8);
+        assertThat(report.getSucceeded()).isEqualTo(7);
+        assertThat(report.getItems()).extracting(BatchReport.Item::getSource).containsExactly(
+                "team/svc0.postman_collection.json", "team/svc1.postman_collection.json",
+                "team/svc2.postman_collection.json", "team/svc3.postman_collection.json",
+                "team/svc4.postman_collection.json", "team/broken.json",
+                "other/svc0.postman_collection.json", "single.json");
+        assertThat(report.getItems().get(5).getError()).isNotBlank();
+        assertThat(report.getPostmanTokens()).isEqualTo(report.getItems().stream()
+                .mapToLong(BatchReport.Item::getPostmanTokens).sum());
+
+        BatchReport written = new ObjectMapper().readValue(entries.get("token-report.json"), BatchReport.class);
+        assertThat(written.getSucceeded()).isEqualTo(7);
+        assertThat(written.getItems()).hasSize(8);
+    }
+
+    @Test
+    void enforcesEntryLimits() throws Exception {
+        BatchConversionService small = new BatchConversionService(converter, tokenizer, admission, 1, 3,
+                DataSize.ofBytes(200));
+        byte[] unsized = collection("U".repeat(300)).getBytes(StandardCharsets.UTF_8);
+        List<BatchConversionService.Input> inputs = List.of(
+                input("a.json", collection("A")),
+                input("big.json", collection("B".repeat(300))),
+                new BatchConversionService.Input("unsized.json", new ByteArrayResource(unsized), -1),
+                input("c.json", collection("C")));
+
+        BatchReport report = small.convert(inputs, new ByteArrayOutputStream());
+
+        assertThat(report.getItems()).extracting(BatchReport.Item::getError)
+                .containsExactly(null, "Exceeds the per-entry limit of 200 bytes",
+                        "Exceeds the per-entry limit of 200 bytes", "Batch limit of 3 collections reached");
+    }
+
+    private static BatchConversionService.Input input(String name, String json) {
+        byte[] content = json.getBytes(StandardCharsets.UTF_8);
+        return new BatchConversionService.Input(name, new ByteArrayResource(content), content.length);
+    }
+
+    private static String collection(String name) {
+        return """
+                { "info": { "name": "%s" },
+                  "item": [ { "name": "Ping", "request": { "method": "GET", "url": "https://x.io/ping" } } ] }
+                """.formatted(name);
+    }
+
+    private static byte[] zip(Map<String, String> entries) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (Map.Entry<String, String> e : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(e.getKey()));
+                zip.write(e.getValue().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static Map<String, String> unzip(byte[] data) throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(data))) {
+            for (ZipEntry e; (e = zip.getNextEntry()) != null; ) {
+                entries.put(e.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,73 @@
+package org.doc.util.service.cache;
+
+import org.doc.util.model.ConversionResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionCacheTests {
+
+    @Test
+    void keyIgnoresSurroundingWhitespace() {
+        ConversionCache cache = new ConversionCache(1024, null, 0);
+        assertThat(cache.key(bytes("  {\"a\":1}\n"), "v")).isEqualTo(cache.key(bytes("{\"a\":1}"), "v"));
+        assertThat(cache.key(bytes("{\"a\":1}"), "v")).isNotEqualTo(cache.key(bytes("{\"a\":1}"), "w"));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedWhenOverBudget() {
+        // Each entry is ~512 + 2 * 100 bytes; the budget fits four of them
+        ConversionCache cache = new ConversionCache(3000, null, 0);
+        ConversionCache.Key[] keys = new ConversionCache.Key[5];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = cache.key(bytes("{\"n\":" + i + "}"), "v");
+            if (i == 4) cache.get(keys[0]);
+            cache.put(keys[i], result("c" + i));
+        }
+
+        assertThat(cache.get(keys[0])).isNotNull();
+        assertThat(cache.get(keys[1])).isNull();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().bytes()).isLessThanOrEqualTo(3000);
+    }
+
+    @Test
+    void servesPersistedEntriesAfterRestart(@TempDir Path dir) {
+        ConversionCache first = new ConversionCache(1 << 20, dir, 1 << 20);
+        ConversionCache.Key key = first.key(bytes("{}"), "v");
+        first.put(key, result("persisted"));
+
+        ConversionCache second = new ConversionCache(1 << 20, dir, 1 << 20);
+        ConversionResult hit = second.get(key);
+
+        assertThat(hit).isNotNull();
+        assertThat(hit.getCollectionName()).isEqualTo("persisted");
+        assertThat(hit.getSwaggerTokens()).isEqualTo(10);
+        assertThat(second.stats().diskHits()).isEqualTo(1);
+    }
+
+    @Test
+    void variantsWithTheSameStringHashKeepSeparateFiles(@TempDir Path dir) {
+        // "Aa" and "BB" have the same String.hashCode()
+        ConversionCache first = new ConversionCache(1 << 20, dir, 1 << 20);
+        first.put(first.key(bytes("{}"), "Aa"), result("Aa"));
+        first.put(first.key(bytes("{}"), "BB"), result("BB"));
+
+        ConversionCache second = new ConversionCache(1 << 20, dir, 1 << 20);
+        assertThat(second.stats().diskEntries()).isEqualTo(2);
+        assertThat(second.get(second.key(bytes("{}"), "Aa")).getCollectionName()).isEqualTo("Aa");
+        assertThat(second.get(second.key(bytes("{}"), "BB")).getCollectionName()).isEqualTo("BB");
+    }
+
+    private static ConversionResult result(String name) {
+        return ConversionResult.of(name, "p".repeat(50), "s".repeat(50), 20, 10, "test");
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,115 @@
+package org.doc.util.service.format;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutputFormatsTests {
+
+    private final OutputFormats formats = OutputFormats.builtIn();
+
+    @Test
+    void structuredFormatsReadBackAsTheSameDocument() throws Exception {
+        Map<String, Object> openApi = spec();
+        JsonNode expected = new ObjectMapper().valueToTree(openApi);
+
+        String flow = formats.get(FlowYamlFormat.ID).render(openApi);
+        assertThat(new YAMLMapper().readTree(flow)).isEqualTo(expected);
+        assertThat(flow).contains("  version: \"1.0\"\n", "  /users/{id}:\n    get:\n      tags: [Users]\n",
+                "      responses: {\"200\": {description: OK, content: {application/json: {schema: {$ref: ");
+
+        String json = formats.get(MinifiedJsonFormat.ID).render(openApi);
+        assertThat(new ObjectMapper().readTree(json)).isEqualTo(expected);
+        assertThat(json).doesNotContain("\n", ": ");
+    }
+
+    @Test
+    void flowScalarsAreQuotedOnlyWhenYamlWouldMisreadThem() {
+        assertThat(FlowYamlFormat.scalar("Get user", true)).isEqualTo("Get user");
+        assertThat(FlowYamlFormat.scalar("/users/{id}", false)).isEqualTo("/users/{id}");
+        assertThat(FlowYamlFormat.scalar("/users/{id}", true)).isEqualTo("\"/users/{id}\"");
+        assertThat(FlowYamlFormat.scalar("200", true)).isEqualTo("\"200\"");
+        assertThat(FlowYamlFormat.scalar("No", true)).isEqualTo("\"No\"");
+        assertThat(FlowYamlFormat.scalar("a: b", true)).isEqualTo("\"a: b\"");
+        assertThat(FlowYamlFormat.scalar("", true)).isEqualTo("\"\"");
+    }
+
+    @Test
+    void endpointDslWritesOneLinePerOperation() {
+        String dsl = formats.get(EndpointDslFormat.ID).render(spec());
+
+        assertThat(dsl.lines()).first().isEqualTo("# Users API 1.0 — Manages \"users\"");
+        assertThat(dsl.lines()).contains(
+                "@server https://api.example.com",
+                "@schema User {id:int, name:str?}",
+                "## Users",
+                "GET /users/{id} \"Get user\" ?expand h:X-Trace! -> 200 User | 404",
+                "POST /users \"Create user\" <- {name:str, tags:[str]} -> 201 User  # Creates a user. Name is required.");
+        assertThat(EndpointDslFormat.schema(Map.of("type", "string", "format", "binary"))).isEqualTo("file");
+        assertThat(EndpointDslFormat.schema(Map.of("type", "object"))).isEqualTo("obj");
+        assertThat(EndpointDslFormat.schema(Map.of("oneOf", List.of(Map.of("type", "integer"), Map.of("type", "string")),
+                "nullable", true))).isEqualTo("int|str?");
+    }
+
+    @Test
+    void rejectsUnknownAndDuplicateIds() {
+        assertThat(formats.all()).extracting(OutputFormat::id)
+                .containsExactly("openapi-yaml", "json-min", "yaml-flow", "endpoint-dsl");
+        assertThatThrownBy(() -> formats.get("xml"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("openapi-yaml, json-min, yaml-flow, endpoint-dsl");
+        assertThatThrownBy(() -> new OutputFormats(List.of(new FlowYamlFormat(), new FlowYamlFormat())))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    // ── Fixtures ──────────────────────────────────────────────────────────────
+
+    private static Map<String, Object> spec() {
+        Map<String, Object> user = Map.of("type", "object", "properties", ordered(
+                "id", Map.of("type", "integer"),
+                "name", ordered("type", "string", "nullable", true)));
+
+        Map<String, Object> get = ordered(
+                "tags", List.of("Users"),
+                "summary", "Get user",
+                "parameters", List.of(
+                        ordered("name", "id", "in", "path", "required", true, "schema", Map.of("type", "integer")),
+                        ordered("name", "expand", "in", "query", "schema", Map.of("type", "string")),
+                        ordered("name", "X-Trace", "in", "header", "required", true, "schema", Map.of("type", "string"))),
+                "responses", ordered(
+                        "200", ordered("description", "OK", "content", Map.of("application/json",
+                                Map.of("schema", Map.of("$ref", "#/components/schemas/User")))),
+                        "404", Map.of("description", "Not found")));
+        Map<String, Object> post = ordered(
+                "tags", List.of("Users"),
+                "summary", "Create user",
+                "description", "Creates a user.\nName is required.",
+                "requestBody", Map.of("content", Map.of("application/json", Map.of("schema",
+                        ordered("type", "object", "properties", ordered(
+                                "name", Map.of("type", "string"),
+                                "tags", ordered("type", "array", "items", Map.of("type", "string"))))))),
+                "responses", Map.of("201", ordered("description", "Created", "content", Map.of("application/json",
+                        Map.of("schema", Map.of("$ref", "#/components/schemas/User"))))));
+
+        return ordered(
+                "openapi", "3.0.3",
+                "info", ordered("title", "Users API", "version", "1.0", "description", "Manages \"users\""),
+                "servers", List.of(Map.of("url", "https://api.example.com")),
+                "paths", ordered("/users/{id}", Map.of("get", get), "/users", Map.of("post", post)),
+                "components", Map.of("schemas", Map.of("User", user)));
+    }
+
+    private static Map<String, Object> ordered(Object... keyValuePairs) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keyValuePairs.length; i += 2) map.put((String) keyValuePairs[i], keyValuePairs[i + 1]);
+        return map;
+    }
+}
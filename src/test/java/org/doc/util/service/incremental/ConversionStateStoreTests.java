@@ -0,0 +1,40 @@
+package org.doc.util.service.incremental;
+
+import org.doc.util.service.tokenizer.ChunkCounts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionStateStoreTests {
+
+    @Test
+    void keepsStatesWithinTheByteBudget() {
+        ConversionState small = state(10_000);
+        ConversionStateStore store = new ConversionStateStore(16, 3 * small.estimatedSize());
+        store.put("a", small);
+        store.put("b", state(10_000));
+        store.put("c", state(10_000));
+        assertThat(store.get("a")).isSameAs(small);
+
+        store.put("d", state(10_000));
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(store.get("b")).isNull();
+        assertThat(store.get("a")).isSameAs(small);
+        assertThat(store.bytes()).isEqualTo(3 * small.estimatedSize());
+
+        store.put("huge", state(1_000_000));
+        assertThat(store.get("huge")).isNull();
+        assertThat(store.size()).isEqualTo(3);
+
+        store.put("a", state(10_000));
+        assertThat(store.bytes()).isEqualTo(3 * small.estimatedSize());
+    }
+
+    private static ConversionState state(long documentChars) {
+        ChunkCounts chunks = new ChunkCounts(16);
+        chunks.put(42, 3);
+        return new ConversionState("v", Map.of(), chunks, ChunkCounts.EMPTY, documentChars);
+    }
+}
@@ -0,0 +1,121 @@
+package org.doc.util.service.jobs;
+
+import org.doc.util.model.ConversionJobStatus;
+import org.doc.util.model.SpecFormat;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.TestConverters;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionJobServiceTests {
+
+    private static final String COLLECTION = """
+            { "info": { "name": "Api" },
+              "item": [
+                { "name": "Get user", "request": { "method": "GET", "url": "https://api.example.com/users/:id" },
+                  "response": [ { "code": 200, "body": "{\\"id\\": 1, \\"name\\": \\"x\\"}" } ] },
+                { "name": "Delete user", "request": { "method": "DELETE", "url": "https://api.example.com/users/:id" } }
+              ] }
+            """;
+
+    private final PostmanToSwaggerService converter = TestConverters.converter(TestConverters.cl100k());
+    private final SettableClock clock = new SettableClock();
+
+    @TempDir
+    Path directory;
+
+    private ConversionJobService jobs;
+
+    @AfterEach
+    void shutdown() {
+        if (jobs != null) jobs.shutdown();
+    }
+
+    @Test
+    void convertsInTheBackgroundAndExpiresAfterTheTtl() throws Exception {
+        Files.writeString(directory.resolve("job-stale.out"), "left over from a previous run");
+        jobs = new ConversionJobService(converter, 1, 4, directory, Duration.ofMinutes(10), clock);
+        assertThat(directory).isEmptyDirectory();
+
+        ConversionJob job = jobs.submit(input(COLLECTION), SpecFormat.YAML);
+        awaitFinished(job);
+
+        ConversionJobStatus status = jobs.get(job.id()).status(jobs.ttl());
+        assertThat(status.getState()).isEqualTo("SUCCEEDED");
+        assertThat(status.getProcessedRequests()).isEqualTo(2);
+        assertThat(status.getTotalRequests()).isEqualTo(2);
+        assertThat(status.getOperationCount()).isEqualTo(2);
+        assertThat(status.getExpiresAt()).isEqualTo(status.getFinishedAt().plus(Duration.ofMinutes(10)));
+        assertThat(Files.readString(jobs.result(job))).isEqualTo(converter.convert(COLLECTION).getSwaggerYaml());
+        assertThat(status.getResultBytes()).isEqualTo(Files.size(jobs.result(job)));
+
+        clock.advance(Duration.ofMinutes(9));
+        assertThat(jobs.get(job.id())).isNotNull();
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(jobs.get(job.id())).isNull();
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    @Test
+    void reportsFailuresAndDeletesJobs() throws Exception {
+        jobs = new ConversionJobService(converter, 1, 4, directory, Duration.ofMinutes(10), clock);
+
+        ConversionJob broken = jobs.submit(input("{\"item\": ["), SpecFormat.JSON);
+        awaitFinished(broken);
+        ConversionJobStatus status = broken.status(jobs.ttl());
+        assertThat(status.getState()).isEqualTo("FAILED");
+        assertThat(status.getError()).isNotBlank();
+        assertThat(status.getFormat()).isEqualTo("json-min");
+
+        assertThat(jobs.delete(broken.id())).isTrue();
+        assertThat(jobs.delete(broken.id())).isFalse();
+        assertThat(jobs.get(broken.id())).isNull();
+        assertThat(directory).isEmptyDirectory();
+    }
+
+    private static ByteArrayInputStream input(String collection) {
+        return new ByteArrayInputStream(collection.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void awaitFinished(ConversionJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        while (!job.state().isFinished() && System.nanoTime() < deadline) Thread.sleep(10);
+        assertThat(job.state().isFinished()).isTrue();
+    }
+
+    private static final class SettableClock extends Clock {
+        private volatile Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
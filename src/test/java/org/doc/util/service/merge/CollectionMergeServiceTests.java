@@ -0,0 +1,170 @@
+package org.doc.util.service.merge;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.doc.util.model.MergeReport;
+import org.doc.util.service.PostmanToSwaggerService;
+import org.doc.util.service.TestConverters;
+import org.doc.util.service.admission.ConversionAdmission;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CollectionMergeServiceTests {
+
+    private static final String USER_BODY = "{\\\"id\\\": 1, \\\"name\\\": \\\"x\\\", \\\"email\\\": \\\"x@example.com\\\"}";
+
+    static final String USERS = """
+            { "info": { "name": "Users" },
+              "variable": [ { "key": "baseUrl", "value": "https://api.example.com" } ],
+              "item": [ { "name": "Users", "item": [
+                { "name": "Get user", "request": { "method": "GET", "url": "{{baseUrl}}/users/:id" },
+                  "response": [ { "code": 200, "body": "%1$s" } ] },
+                { "name": "Create user", "request": { "method": "POST", "url": "{{baseUrl}}/users",
+                    "body": { "mode": "raw", "raw": "{\\"name\\": \\"x\\", \\"email\\": \\"y\\"}" } } }
+              ] } ] }
+            """.formatted(USER_BODY);
+
+    static final String ORDERS = """
+            { "info": { "name": "Orders" },
+              "variable": [ { "key": "baseUrl", "value": "https://api.example.com" } ],
+              "item": [
+                { "name": "Get order", "request": { "method": "GET", "url": "{{baseUrl}}/orders/:id" },
+                  "response": [ { "code": 200, "body": "{\\"id\\": 7, \\"buyer\\": %1$s}" } ] },
+                { "name": "Users", "item": [
+                  { "name": "Get user", "request": { "method": "GET", "url": "{{baseUrl}}/users/:id" },
+                    "response": [ { "code": 200, "body": "%1$s" } ] },
+                  { "name": "Create user", "request": { "method": "POST", "url": "{{baseUrl}}/users",
+                      "body": { "mode": "raw", "raw": "{\\"login\\": \\"x\\"}" } } }
+                ] } ] }
+            """.formatted(USER_BODY);
+
+    static final String BILLING = """
+            { "info": { "name": "Billing" },
+              "variable": [ { "key": "baseUrl", "value": "https://billing.example.com" } ],
+              "item": [
+                { "name": "List invoices", "request": { "method": "GET", "url": "{{baseUrl}}/invoices" },
+                  "response": [ { "code": 200, "body": "[{\\"id\\": 1, \\"owner\\": %1$s}]" } ] }
+              ] }
+            """.formatted(USER_BODY);
+
+    private final PostmanToSwaggerService converter = TestConverters.converter(TestConverters.cl100k());
+    private final CollectionMergeService merger = new CollectionMergeService(converter, TestConverters.cl100k(),
+            new ConversionAdmission(true, DataSize.ofMegabytes(64), 16, 16, Duration.ofSeconds(5),
+                    new SimpleMeterRegistry()), 4, 16, DataSize.ofKilobytes(64));
+
+    @Test
+    void mergesPathsServersAndSchemasAndReportsConflicts() throws Exception {
+        CollectionMergeService.Merged merged = merger.merge(inputs(
+                "users.json", USERS, "orders.json", ORDERS, "broken.json", "{\"item\": [", "billing.json", BILLING),
+                "Shop API");
+        MergeReport report = merged.report();
+        JsonNode spec = new ObjectMapper(new YAMLFactory()).readTree(merged.yaml());
+
+        assertThat(spec.at("/info/title").asText()).isEqualTo("Shop API");
+        assertThat(spec.at("/servers/0/url").asText()).isEqualTo("https://api.example.com");
+        List<String> paths = new ArrayList<>();
+        spec.path("paths").fieldNames().forEachRemaining(paths::add);
+        assertThat(paths).containsExactly("/users/{id}", "/users", "/orders/{id}", "/invoices");
+        assertThat(spec.at("/paths/~1invoices/get/servers/0/url").asText()).isEqualTo("https://billing.example.com");
+        assertThat(spec.at("/paths/~1orders~1{id}/get/servers").isMissingNode()).isTrue();
+        // the first collection's operation wins the conflict
+        assertThat(spec.at("/paths/~1users/post/requestBody/content/application~1json/schema/properties/email")
+                .isObject()).isTrue();
+        // the user schema recurs in all three collections and is lifted once
+        assertThat(spec.at("/components/schemas").size()).isEqualTo(1);
+        assertThat(spec.at("/paths/~1orders~1{id}/get/responses/200/content/application~1json/schema"
+                + "/properties/buyer/$ref").asText()).startsWith("#/components/schemas/");
+
+        assertThat(report.getCollections()).isEqualTo(4);
+        assertThat(report.getSucceeded()).isEqualTo(3);
+        assertThat(report.getItems().get(2).getError()).isNotBlank();
+        assertThat(report.getOperations()).isEqualTo(4);
+        assertThat(report.getDuplicateOperations()).isEqualTo(1);
+        assertThat(report.getConflicts()).singleElement().satisfies(c -> {
+            assertThat(c.getPath()).isEqualTo("/users");
+            assertThat(c.getMethod()).isEqualTo("post");
+            assertThat(c.getKeptFrom()).isEqualTo("users.json");
+            assertThat(c.getDroppedFrom()).containsExactly("orders.json");
+        });
+        assertThat(report.getServers()).containsExactly("https://api.example.com", "https://billing.example.com");
+        assertThat(report.getSharedTags()).containsExactly("Users");
+        assertThat(report.getSharedSchemas()).isEqualTo(1);
+
+        long separate = converter.convert(USERS).getSwaggerTokens() + converter.convert(ORDERS).getSwaggerTokens()
+                + converter.convert(BILLING).getSwaggerTokens();
+        assertThat(report.getSeparateSwaggerTokens()).isEqualTo(separate);
+        assertThat(report.getTokenSavings()).isPositive()
+                .isEqualTo(separate - report.getMergedSwaggerTokens());
+    }
+
+    @Test
+    void resultDoesNotDependOnCompletionOrderAndIsWrittenAsAZip() throws Exception {
+        List<CollectionMergeService.Input> inputs = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            inputs.addAll(inputs("orders-" + i + ".json", ORDERS, "users-" + i + ".json", USERS));
+        }
+        CollectionMergeService.Merged first = merger.merge(inputs, "Api");
+        CollectionMergeService.Merged second = merger.merge(inputs, "Api");
+        assertThat(second.yaml()).isEqualTo(first.yaml());
+        assertThat(first.report().getConflicts()).singleElement().satisfies(c -> {
+            assertThat(c.getKeptFrom()).isEqualTo("orders-0.json");
+            assertThat(c.getDroppedFrom()).hasSize(8).allMatch(source -> source.startsWith("users-"));
+        });
+        // GET /orders/{id} and POST /users from 7 more orders, GET /users/{id} from 15 more collections
+        assertThat(first.report().getDuplicateOperations()).isEqualTo(7 + 7 + 15);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        merger.write(first, out);
+        List<String> entries = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry e; (e = zip.getNextEntry()) != null; ) entries.add(e.getName());
+        }
+        assertThat(entries).containsExactly("openapi.yaml", "merge-report.json");
+
+        assertThatThrownBy(() -> merger.merge(List.of(), "Api")).isInstanceOf(IllegalArgumentException.class);
+        inputs.addAll(inputs("one-too-many.json", USERS));
+        assertThatThrownBy(() -> merger.merge(inputs, "Api")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void collectionsOverTheSizeLimitAreReportedAndLeftOut() {
+        String padding = " ".repeat(70 * 1024);
+        byte[] large = (padding + USERS).getBytes(StandardCharsets.UTF_8);
+        List<CollectionMergeService.Input> inputs = new ArrayList<>(inputs("orders.json", ORDERS));
+        inputs.add(new CollectionMergeService.Input("declared.json", new ByteArrayResource(large), large.length));
+        inputs.add(new CollectionMergeService.Input("unknown.json", new ByteArrayResource(large), -1));
+        inputs.add(new CollectionMergeService.Input("small.json",
+                new ByteArrayResource(USERS.getBytes(StandardCharsets.UTF_8)), -1));
+
+        MergeReport report = merger.merge(inputs, "Api").report();
+        assertThat(report.getSucceeded()).isEqualTo(2);
+        assertThat(report.getItems().get(1).getError()).contains("per-collection limit");
+        assertThat(report.getItems().get(2).getError()).contains("per-collection limit");
+        assertThat(report.getItems().get(3).getError()).isNull();
+    }
+
+    static List<CollectionMergeService.Input> inputs(String... namesAndContents) {
+        List<CollectionMergeService.Input> inputs = new ArrayList<>();
+        for (int i = 0; i < namesAndContents.length; i += 2) {
+            byte[] content = namesAndContents[i + 1].getBytes(StandardCharsets.UTF_8);
+            inputs.add(new CollectionMergeService.Input(namesAndContents[i], new ByteArrayResource(content),
+                    content.length));
+        }
+        return inputs;
+    }
+}
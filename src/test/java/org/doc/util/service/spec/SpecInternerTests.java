@@ -0,0 +1,91 @@
+package org.doc.util.service.spec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.doc.util.service.format.MinifiedJsonFormat;
+import org.doc.util.service.format.OpenApiYamlFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpecInternerTests {
+
+    private final SpecInterner interner = new SpecInterner(1000, 1 << 20);
+
+    @Test
+    void identicalNodesAreShared() {
+        SpecNode a = interner.intern(parameter("id"));
+        Map<String, Object> plain = new LinkedHashMap<>(parameter("id"));
+        SpecNode b = interner.intern(plain);
+
+        assertThat(b).isSameAs(a);
+        assertThat(interner.intern(List.of(parameter("id"), parameter("name"))).getFirst()).isSameAs(a);
+        // equal as maps, but written in another order: not shared
+        SpecNode reordered = interner.intern(SpecNode.of("in", "path", "name", "id", "required", true,
+                "schema", SpecNode.of("type", "string")));
+        assertThat(reordered).isEqualTo(a).isNotSameAs(a);
+        assertThat(reordered.get("schema")).isSameAs(a.get("schema"));
+
+        SpecInterner off = new SpecInterner(0, 0);
+        SpecNode node = parameter("id");
+        assertThat(off.intern(node)).isSameAs(node);
+    }
+
+    @Test
+    void fullTableStartsOver() {
+        SpecInterner small = new SpecInterner(4, 1 << 20);
+        for (int i = 0; i < 10; i++) small.intern(parameter("p" + i));
+
+        assertThat(small.size()).isLessThanOrEqualTo(4);
+        assertThat(small.intern(parameter("p9"))).isEqualTo(parameter("p9"));
+    }
+
+    @Test
+    void tableStartsOverAtItsByteBudget() {
+        SpecInterner small = new SpecInterner(1000, 2048);
+        for (int i = 0; i < 100; i++) small.intern(parameter("p" + i));
+
+        assertThat(small.bytes()).isPositive().isLessThanOrEqualTo(2048);
+        assertThat(small.size()).isLessThan(100);
+        assertThat(small.intern(parameter("p99"))).isSameAs(small.intern(parameter("p99")));
+    }
+
+    @Test
+    void nodesAreWrittenLikeMaps() throws Exception {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("summary", "Get");
+        map.put("description", null);
+        map.put("tags", List.of());
+        map.put("content", Map.of("text/plain", Map.of()));
+        map.put("parameters", List.of(parameter("id")));
+        map.put("count", 3);
+        map.put("nullable", true);
+        map.put("empty", "");
+        map.put("enum", new ArrayList<>(List.of("a", "b")));
+        SpecNode.Builder builder = SpecNode.builder();
+        map.forEach(builder::put);
+        SpecNode node = builder.build();
+
+        // also when held by a plain map, which asks the node whether it is empty
+        Map<String, Object> emptyContent = Map.of("text/plain", SpecNode.EMPTY);
+        Map<String, Object> holder = new LinkedHashMap<>(Map.of("required", true));
+        holder.put("content", SpecNode.copyOf(emptyContent));
+        Map<String, Object> plainHolder = new LinkedHashMap<>(Map.of("required", true));
+        plainHolder.put("content", emptyContent);
+
+        for (ObjectMapper mapper : List.of(OpenApiYamlFormat.newMapper(), MinifiedJsonFormat.newMapper(),
+                new ObjectMapper())) {
+            assertThat(mapper.writeValueAsString(node)).isEqualTo(mapper.writeValueAsString(map));
+            assertThat(mapper.writeValueAsString(holder)).isEqualTo(mapper.writeValueAsString(plainHolder));
+        }
+        assertThat(node.with("summary", "List").keySet()).containsExactlyElementsOf(map.keySet());
+    }
+
+    private static SpecNode parameter(String name) {
+        return SpecNode.of("name", name, "in", "path", "required", true, "schema", SpecNode.of("type", "string"));
+    }
+}
@@ -0,0 +1,35 @@
+package org.doc.util.service.tokenizer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BpeTokenizerTests {
+
+    private final BpeTokenizer tokenizer =
+            new BpeTokenizer("cl100k_base", new ClassPathResource("tokenizer/cl100k_base.tiktoken.gz"));
+
+    @Test
+    void matchesReferenceCounts() {
+        // Expected values from tiktoken's cl100k_base encoder
+        assertThat(tokenizer.countTokens("Hello world! It's a test.")).isEqualTo(8);
+        assertThat(tokenizer.countTokens("paths:\n  /users/{id}:\n    get:\n      summary: Get user\n")).isEqualTo(18);
+        assertThat(tokenizer.countTokens("{\n  \"name\" : \"Postman Echo\",\n  \"id\" : 12345\n}")).isEqualTo(21);
+        assertThat(tokenizer.countTokens("日本語 🎉 ①②③ 3.14159")).isEqualTo(19);
+        assertThat(tokenizer.countTokens("   \n\n  x  ")).isEqualTo(4);
+        assertThat(tokenizer.countTokens("")).isZero();
+    }
+
+    @Test
+    void streamingCounterMatchesWholeText() throws Exception {
+        String text = "openapi: 3.0.3\ninfo:\n  title: Demo\n   \n\n  \t" + "key: value 🎉\n".repeat(2000) + "   ";
+        TokenCounter counter = tokenizer.newCounter();
+        for (int i = 0; i < text.length(); i += 7) {
+            counter.write(text, i, Math.min(7, text.length() - i));
+        }
+        counter.close();
+
+        assertThat(counter.tokens()).isEqualTo(tokenizer.countTokens(text));
+    }
+}
@@ -0,0 +1,74 @@
+package org.doc.util.service.tokenizer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenChunksTests {
+
+    private final BpeTokenizer tokenizer =
+            new BpeTokenizer("cl100k_base", new ClassPathResource("tokenizer/cl100k_base.tiktoken.gz"));
+
+    @Test
+    void chunkSumsMatchTheWholeText() {
+        String text = """
+                openapi: 3.0.3
+                info:
+                  description: |-
+                    First paragraph.
+
+                    Second paragraph,\tafter a blank line.
+                \s\s\s
+                paths:
+                  /users/{id}:
+                    get: {}
+                {
+                  "name" : "Postman Echo",
+                  "items" : [ ],
+                  "id" : 12345
+                }
+                trailing   \n\n\n  x  """;
+
+        TokenChunks.Counted counted = TokenChunks.count(tokenizer, text, ChunkCounts.EMPTY);
+
+        assertThat(counted.tokens()).isEqualTo(tokenizer.countTokens(text));
+        assertThat(chunkAt(text, "    First paragraph.")).isEqualTo("    First paragraph.\n\n");
+        assertThat(chunkAt(text, "paths:")).isEqualTo("paths:\n");
+        assertThat(chunkAt(text, "trailing")).isEqualTo("trailing   \n\n\n");
+    }
+
+    @Test
+    void onlyNewChunksAreTokenized() {
+        String before = "a: 1\nb: 2\nc: 3\n";
+        TokenChunks.Counted first = TokenChunks.count(tokenizer, before, ChunkCounts.EMPTY);
+        TokenChunks.Counted second = TokenChunks.count(tokenizer, "a: 1\nb: 20\nc: 3\nc: 3\n", first.chunks());
+
+        assertThat(first.countedChunks()).isEqualTo(3);
+        assertThat(second.countedChunks()).isEqualTo(1);
+        assertThat(second.tokens()).isEqualTo(tokenizer.countTokens("a: 1\nb: 20\nc: 3\nc: 3\n"));
+        assertThat(second.chunks().size()).isEqualTo(3);
+
+        HeuristicTokenizer heuristic = new HeuristicTokenizer();
+        assertThat(TokenChunks.count(heuristic, before, ChunkCounts.EMPTY).tokens()).isEqualTo(heuristic.countTokens(before));
+    }
+
+    @Test
+    void chunkCountsGrowAndKeepEveryCount() {
+        ChunkCounts counts = new ChunkCounts(2);
+        for (long hash = -500; hash < 500; hash++) counts.put(hash * 0x9E3779B97F4A7C15L, (int) hash + 500);
+        counts.put(7 * 0x9E3779B97F4A7C15L, 1);
+
+        assertThat(counts.size()).isEqualTo(1000);
+        assertThat(counts.get(0)).isEqualTo(500);
+        assertThat(counts.get(-3 * 0x9E3779B97F4A7C15L)).isEqualTo(497);
+        assertThat(counts.get(7 * 0x9E3779B97F4A7C15L)).isEqualTo(1);
+        assertThat(counts.get(12345)).isEqualTo(-1);
+        assertThat(ChunkCounts.EMPTY.get(12345)).isEqualTo(-1);
+    }
+
+    private static String chunkAt(String text, String prefix) {
+        int start = text.indexOf(prefix);
+        return text.substring(start, TokenChunks.chunkEnd(text, start));
+    }
+}
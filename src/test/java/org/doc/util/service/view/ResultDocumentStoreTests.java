@@ -0,0 +1,70 @@
+package org.doc.util.service.view;
+
+import org.doc.util.model.ConversionResult;
+import org.doc.util.model.FormatOutput;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResultDocumentStoreTests {
+
+    @Test
+    void pagesLinesWithoutTheTrailingNewline() throws Exception {
+        ResultDocumentStore store = new ResultDocumentStore(1 << 20);
+        String id = store.put(result("My API", "{\n  \"a\": 1\n}", "openapi: 3.0.3\npaths:\n\n  /a: {}\n"));
+
+        ResultDocument yaml = store.get(id, "openapi-yaml");
+        assertThat(yaml.lineCount()).isEqualTo(4);
+        assertThat(yaml.lines(0, 2)).isEqualTo("openapi: 3.0.3\npaths:");
+        assertThat(yaml.lines(2, 1)).isEmpty();
+        assertThat(yaml.lines(1, 2)).isEqualTo("paths:\n");
+        assertThat(yaml.lines(2, 500)).isEqualTo("\n  /a: {}");
+        assertThat(yaml.lines(4, 10)).isEmpty();
+        assertThat(yaml.fileName()).isEqualTo("My-API.openapi.yaml");
+        assertThatThrownBy(() -> yaml.lines(-1, 1)).isInstanceOf(IllegalArgumentException.class);
+
+        ResultDocument postman = store.get(id, ResultDocumentStore.POSTMAN);
+        assertThat(postman.lineCount()).isEqualTo(3);
+        assertThat(postman.lines(1, 1)).isEqualTo("  \"a\": 1");
+        StringWriter whole = new StringWriter();
+        postman.writeTo(whole);
+        assertThat(whole.toString()).isEqualTo("{\n  \"a\": 1\n}");
+
+        assertThat(store.get(id, "endpoint-dsl").lines(0, 5)).isEqualTo("GET /a");
+        assertThat(store.get(id, "xml")).isNull();
+        assertThat(store.get("unknown", "postman")).isNull();
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedResultButKeepsTheNewest() {
+        String big = "x".repeat(10_000);
+        ResultDocumentStore store = new ResultDocumentStore(100_000);
+        String first = store.put(result("a", big, big));
+        String second = store.put(result("b", big, big));
+        store.get(first, "postman");
+        String third = store.put(result("c", big, big));
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.get(second, "postman")).isNull();
+        assertThat(store.get(first, "postman")).isNotNull();
+
+        String huge = store.put(result("d", "y".repeat(200_000), ""));
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.get(huge, "postman").length()).isEqualTo(200_000);
+        assertThat(store.get(third, "postman")).isNull();
+    }
+
+    private static ConversionResult result(String name, String postman, String yaml) {
+        return ConversionResult.of(name, postman, yaml, 10, 5, "test").toBuilder()
+                .formats(List.of(
+                        FormatOutput.builder().id("openapi-yaml").mediaType("application/yaml").extension("yaml")
+                                .content(yaml).build(),
+                        FormatOutput.builder().id("endpoint-dsl").mediaType("text/plain;charset=UTF-8")
+                                .extension("txt").content("GET /a\n").build()))
+                .build();
+    }
+}